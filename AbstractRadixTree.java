@@ -0,0 +1,202 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * Abstract class for radix trees of generic type that extends
+ * AbstractRadixTreeElement. Every occurrence added is kept at a location,
+ * starting at 1 in order of occurance, and iteration is in order of
+ * elements. Iteration used to follow the order of occurance; toArray still
+ * does.
+ *
+ * @param <V> generic that is instance of AbstractRadixTreeElement
+ * @author Austin Leal
+ * @version 1.0
+ */
+public abstract class AbstractRadixTree<V extends AbstractRadixTreeElement>
+        extends AbstractCollection<V> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        if (o != null && o instanceof AbstractRadixTreeElement) {
+            //find only compares o to the elements, which it does not
+            //equal if it is of another kind
+            return find((V) o) >= 0;
+        }
+        return false;
+    }
+
+    /**
+     * Returns array of elements in order of occurance.
+    */
+    @Override
+    public <T> T[] toArray(T[] a) {
+        if (a != null) {
+            Object[] elements = toArray();
+            if (a.length < elements.length) {
+                //a new array of the same type as a
+                a = Arrays.copyOf(a, elements.length);
+            }
+            System.arraycopy(elements, 0, a, 0, elements.length);
+            for (int j = elements.length; j < a.length; j++) {
+                a[j] = null;
+            }
+            return a;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c != null) {
+            for (Object o : c) {
+                if (!contains(o)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean result = false;
+        if (c != null) {
+            for (Object element : c) {
+                if (!result) {
+                    result = remove(element);
+                } else {
+                    remove(element);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean result = false;
+        if (c != null) {
+            Iterator<V> elements = iterator();
+            while (elements.hasNext()) {
+                if (!c.contains(elements.next())) {
+                    elements.remove();
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        String result = "";
+        for (Object element : toArray()) {
+            result += "[" + String.valueOf(element) + "], ";
+        }
+        return result.substring(0, result.length() - 2) + "\n";
+    }
+
+    /**
+     * finds first location of element in tree
+     *
+     * @param element element to be found in tree
+     * @return int location of first occurance of element in tree, -1 if not
+     *         in tree
+     */
+    public abstract int find(V element);
+
+    /**
+     * Finds all occurances of element in tree with locations starting at 1.
+     *
+     * @param element element to be found in tree
+     * @return set of int locations of element in tree or null if not in tree
+     */
+    public abstract List<Integer> findAll(V element);
+
+    /**
+     * Returns a view of the distinct elements in the tree, in order of
+     * elements. Removing from the view removes every occurrence.
+     *
+     * @return NavigableSet of distinct elements
+     */
+    public NavigableSet<V> keySet() {
+        return new RadixTreeKeySet<>(this, null, false, null, false, false);
+    }
+
+    /**
+     * Iterates over distinct elements in order, for RadixTreeKeySet.
+     * Removing through the iterator removes every occurrence.
+     *
+     * @param from lowest element, or null to start at the first
+     * @param fromInclusive if from itself may be returned
+     * @param to highest element, or null to go to the last
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
+     */
+    abstract Iterator<V> keyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive);
+
+    /**
+     * Iterates over distinct elements in reverse order, for
+     * RadixTreeKeySet. Removing through the iterator removes every
+     * occurrence.
+     *
+     * @param from highest element, or null to start at the last
+     * @param fromInclusive if from itself may be returned
+     * @param to lowest element, or null to go to the first
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
+     */
+    abstract Iterator<V> descendingKeyIterator(V from, boolean fromInclusive,
+            V to, boolean toInclusive);
+
+    /**
+     * Iterates over every occurrence of elements starting with prefix, in
+     * order of elements.
+     *
+     * @param prefix start of elements to iterate over
+     * @return Iterator over elements starting with prefix
+     */
+    public abstract Iterator<V> prefixIterator(V prefix);
+
+    /**
+     * Counts occurrences of elements starting with prefix.
+     *
+     * @param prefix start of elements to count
+     * @return int number of occurrences
+     */
+    public abstract int countWithPrefix(V prefix);
+
+    /**
+     * Counts occurrences of elements that come before element, which is
+     * also the index element would have in iteration order.
+     *
+     * @param element element to count up to
+     * @return int number of occurrences less than element
+     */
+    public abstract int rank(V element);
+
+    /**
+     * Finds the element at a position in iteration order, counting every
+     * occurrence.
+     *
+     * @param position int index starting at 0
+     * @return element at position or null if position is out of range
+     */
+    public abstract V select(int position);
+
+    /**
+     * Finds all occurances of elements starting with prefix with locations
+     * starting at 1.
+     *
+     * @param prefix start of elements to be found in tree
+     * @return sorted list of int locations or null if none are in tree
+     */
+    public abstract List<Integer> findAllWithPrefix(V prefix);
+}
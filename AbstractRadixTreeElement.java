@@ -8,6 +8,8 @@ public abstract class AbstractRadixTreeElement implements Comparable {
 
     /**
      * adds to end of current AbstractRadixTreeElement's data
+     * elements are immutable, so the result may share data with either
+     * element instead of copying it
      *
      * @param  other  AbstractRadixTreeElement to be appended
      *
@@ -23,7 +25,25 @@ public abstract class AbstractRadixTreeElement implements Comparable {
      *
      * @return int -1 if no equal prefix, positive number - end of equal prefix
      */
-    protected abstract int comparePrefix(AbstractRadixTreeElement otherElement);
+    protected int comparePrefix(AbstractRadixTreeElement otherElement) {
+        int result = mismatch(otherElement, 0);
+        if (result > 0) {
+            return result;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * returns an element equal to this one that keeps no more data
+     * reachable than its own, so a view onto a larger element returns a
+     * copy and any other element returns itself
+     *
+     * @return AbstractRadixTreeElement equal to this one
+     */
+    public AbstractRadixTreeElement compact() {
+        return this;
+    }
 
     @Override
     public abstract int compareTo(Object o);
@@ -38,9 +58,34 @@ public abstract class AbstractRadixTreeElement implements Comparable {
      */
     protected abstract Object getData();
 
+    /**
+     * returns the object holding the data this element is a view onto,
+     * which the elements made from it by subSet and append may share, so
+     * estimates of memory can count it once
+     *
+     * @return Object backing data, or null if the element holds its data
+     *         itself
+     */
+    protected Object getSource() {
+        return null;
+    }
+
     @Override
     public abstract int hashCode();
 
+    /**
+     * finds the first position at which this element differs from other,
+     * reading other from otherStart onwards. Must not create new elements.
+     *
+     * @param  other          element to compare to
+     * @param  otherStart     int position in other to start comparing at
+     *
+     * @return int number of leading symbols that are equal, 0 if other is
+     *         not comparable to this element
+     */
+    protected abstract int mismatch(AbstractRadixTreeElement other,
+            int otherStart);
+
     /**
      * method to find number of subSets
      *
@@ -48,9 +93,23 @@ public abstract class AbstractRadixTreeElement implements Comparable {
      */
     public abstract int length();
 
+    /**
+     * returns the symbol at index, used to find the child of a node that
+     * an element continues into. Symbols compare in the same order as
+     * compareTo orders elements. A node with many children whose symbols
+     * are all below 256, as unsigned bytes always are, finds them in a
+     * table indexed by symbol.
+     *
+     * @param index        int position of symbol
+     *
+     * @return int non-negative symbol
+     */
+    public abstract int symbolAt(int index);
+
     /**
      * returns a subset of this element
      * ensure that subSet(0,0) returns an empty element
+     * the subset may be a view sharing this element's data
      *
      * @param start        int starting position
      * @param end          int ending position
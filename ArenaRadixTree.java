@@ -0,0 +1,1321 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * RadixTree of StringRadixTreeElements laid out in an arena of int arrays
+ * instead of node objects.
+ *
+ * A node is an int id indexing parallel arrays. Its label is a range of one
+ * shared char buffer, its children are a range of a shared pool of ids kept
+ * sorted by the first char of their labels, and its occurrences are a list
+ * of cells in a shared pool, newest first, each holding a slot of a
+ * LocationIndex as in RadixTree. A tree of any size is a fixed handful of
+ * arrays, so the garbage collector has almost nothing to trace, and
+ * elements are only created when one is handed out.
+ *
+ * A node other than root either holds occurrences or has at least two
+ * children, so no empty subset nodes are needed.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ArenaRadixTree extends AbstractRadixTree<StringRadixTreeElement> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * released slots or label chars tolerated beyond the live ones before
+     * they are compacted
+     */
+    private static final int COMPACT_SLACK = 64;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    //node records, indexed by node id
+    private ArenaStore labelStart;
+    private ArenaStore labelLength;
+    private ArenaStore childStart;
+    private ArenaStore childCount;
+    private ArenaStore childCapacity;
+    private ArenaStore locationHead; //newest cell, or NONE
+    private ArenaStore locationTail; //oldest cell, or NONE
+    private ArenaStore ends; //occurrences of the element leading to the node
+    private ArenaStore count; //occurrences in the node and all below it
+    private int nodes;
+    private int freeNode;
+
+    //labels of every node
+    private ArenaStore labels;
+    private int labelsUsed;
+    private int labelsLive;
+
+    //children of every node, in blocks of a power of two ids
+    private ArenaStore childPool;
+    private int childPoolUsed;
+    private int[] freeBlocks; //first free block of each size
+
+    //occurrences of every node, as a list of cells
+    private ArenaStore cellSlot;
+    private ArenaStore cellNext; //older cell, or NONE
+    private int cells;
+    private int freeCell;
+
+    private final boolean direct;
+    private final LocationIndex index;
+    private int size;
+    private int modCount;
+    private int[] path; //nodes visited by the last descent
+
+    /**
+     * empty ArenaRadixTree constructor
+     */
+    public ArenaRadixTree() {
+        this(false);
+    }
+
+    /**
+     * empty ArenaRadixTree constructor
+     *
+     * @param direct if the arenas are kept outside the heap
+     */
+    ArenaRadixTree(boolean direct) {
+        this.direct = direct;
+        index = new LocationIndex();
+        reset();
+    }
+
+    @Override
+    public Iterator<StringRadixTreeElement> iterator() {
+        return new ArenaIterator(false, null, null, false);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && o instanceof StringRadixTreeElement
+                && find((StringRadixTreeElement) o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        if (!isEmpty()) {
+            toArrayHelper(result, ROOT, new char[INITIAL_CAPACITY], 0);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(StringRadixTreeElement newElement) {
+        if (newElement == null) {
+            return false;
+        } else if (labels == null) {
+            throw new IllegalStateException("tree is closed");
+        }
+        int node = ROOT;
+        int start = 0; //newElement before start is already matched
+        count.set(ROOT, count.get(ROOT) + 1);
+        while (start < newElement.length()) {
+            int child = child(node, newElement.symbolAt(start));
+            if (child == NONE) {
+                //CASE1: NO MATCH, new leaf
+                child = newNode(newElement, start);
+                insertChild(node, child);
+                node = child;
+                break;
+            }
+            int comparison = mismatch(child, newElement, start);
+            if (comparison < labelLength.get(child)) {
+                //CASE2: PART OF CHILD IN NEWELEMENT
+                split(child, comparison);
+            }
+            count.set(child, count.get(child) + 1);
+            start += comparison;
+            node = child;
+        }
+        addLocation(node);
+        return true;
+    }
+
+    /**
+     * removes last occurance of element in tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null || !(o instanceof StringRadixTreeElement)) {
+            return false;
+        }
+        int depth = findHelper((StringRadixTreeElement) o);
+        if (depth < 0) {
+            return false;
+        }
+        int node = path[depth];
+        int cell = locationHead.get(node);
+        index.release(cellSlot.get(cell));
+        locationHead.set(node, cellNext.get(cell));
+        if (locationHead.get(node) == NONE) {
+            locationTail.set(node, NONE);
+        }
+        cellNext.set(cell, freeCell);
+        freeCell = cell;
+        ends.set(node, ends.get(node) - 1);
+        for (int i = 0; i <= depth; i++) {
+            count.set(path[i], count.get(path[i]) - 1);
+        }
+        size--;
+        modCount++;
+        if (node != ROOT && ends.get(node) == 0) {
+            if (childCount.get(node) == 0) {
+                int parent = path[depth - 1];
+                removeChild(parent, node);
+                freeNode(node);
+                if (parent != ROOT && ends.get(parent) == 0
+                        && childCount.get(parent) == 1) {
+                    mergeChild(parent);
+                }
+            } else if (childCount.get(node) == 1) {
+                mergeChild(node);
+            }
+        }
+        if (index.slots() > 2 * size + COMPACT_SLACK) {
+            compactLocations();
+        }
+        if (labelsUsed > 2 * labelsLive + COMPACT_SLACK) {
+            compactLabelBuffer();
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+        index.clear();
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int find(StringRadixTreeElement element) {
+        int depth = findHelper(element);
+        if (depth < 0) {
+            return -1;
+        }
+        return index.rank(cellSlot.get(locationTail.get(path[depth])));
+    }
+
+    @Override
+    public List<Integer> findAll(StringRadixTreeElement element) {
+        int depth = findHelper(element);
+        if (depth < 0) {
+            return null;
+        }
+        int node = path[depth];
+        int[] locations = new int[ends.get(node)];
+        int i = locations.length;
+        for (int cell = locationHead.get(node); cell != NONE;
+                cell = cellNext.get(cell)) {
+            i--;
+            locations[i] = index.rank(cellSlot.get(cell));
+        }
+        LocationList result = new LocationList(locations.length);
+        for (int location : locations) {
+            result.addInt(location);
+        }
+        return result;
+    }
+
+    @Override
+    Iterator<StringRadixTreeElement> keyIterator(StringRadixTreeElement from,
+            boolean fromInclusive, StringRadixTreeElement to,
+            boolean toInclusive) {
+        ArenaIterator result = new ArenaIterator(true, null, to,
+                toInclusive);
+        if (from != null) {
+            result.seekAscending(from, fromInclusive);
+        }
+        return result;
+    }
+
+    @Override
+    Iterator<StringRadixTreeElement> descendingKeyIterator(
+            StringRadixTreeElement from, boolean fromInclusive,
+            StringRadixTreeElement to, boolean toInclusive) {
+        DescendingArenaIterator result = new DescendingArenaIterator(to,
+                toInclusive);
+        result.seek(from, fromInclusive);
+        return result;
+    }
+
+    @Override
+    public Iterator<StringRadixTreeElement> prefixIterator(
+            StringRadixTreeElement prefix) {
+        if (prefix == null) {
+            return Collections.emptyIterator();
+        } else if (prefix.length() == 0) {
+            return iterator();
+        }
+        return new ArenaIterator(false, prefix, null, false);
+    }
+
+    @Override
+    public int countWithPrefix(StringRadixTreeElement prefix) {
+        int node = prefixHelper(prefix);
+        return node == NONE ? 0 : count.get(node);
+    }
+
+    @Override
+    public int rank(StringRadixTreeElement element) {
+        int result = 0;
+        if (element != null && !isEmpty()) {
+            int node = ROOT;
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                //node is a prefix of element
+                result += ends.get(node);
+                int symbol = element.symbolAt(start);
+                int i = 0;
+                int child = NONE;
+                for (; i < childCount.get(node); i++) {
+                    child = childPool.get(childStart.get(node) + i);
+                    if (labels.get(labelStart.get(child)) >= symbol) {
+                        break;
+                    }
+                    result += count.get(child);
+                }
+                if (i == childCount.get(node)
+                        || labels.get(labelStart.get(child)) != symbol) {
+                    return result;
+                }
+                int comparison = mismatch(child, element, start);
+                if (comparison < labelLength.get(child)) {
+                    if (start + comparison < element.length()
+                            && labels.get(labelStart.get(child) + comparison)
+                            < element.symbolAt(start + comparison)) {
+                        //all of child comes before element
+                        result += count.get(child);
+                    }
+                    return result;
+                }
+                start += comparison;
+                node = child;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public StringRadixTreeElement select(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder();
+        int node = ROOT;
+        while (position >= ends.get(node)) {
+            position -= ends.get(node);
+            for (int i = 0; i < childCount.get(node); i++) {
+                int child = childPool.get(childStart.get(node) + i);
+                if (position < count.get(child)) {
+                    appendLabel(result, child);
+                    node = child;
+                    break;
+                }
+                position -= count.get(child);
+            }
+        }
+        return new StringRadixTreeElement(result.toString());
+    }
+
+    @Override
+    public List<Integer> findAllWithPrefix(StringRadixTreeElement prefix) {
+        int node = prefixHelper(prefix);
+        if (node == NONE || count.get(node) == 0) {
+            return null;
+        }
+        LocationList result = new LocationList(count.get(node));
+        findAllHelper(node, result);
+        result.sort();
+        return result;
+    }
+
+    /**
+     * Descends to the node holding element, recording the nodes visited in
+     * path
+     *
+     * @param element element to find
+     * @return int depth of the node in path, or -1 if element is not in tree
+     */
+    private int findHelper(StringRadixTreeElement element) {
+        if (element == null || isEmpty()) {
+            return -1;
+        }
+        int node = ROOT;
+        int depth = 0;
+        int start = 0; //element before start is already matched
+        path[0] = ROOT;
+        while (start < element.length()) {
+            node = child(node, element.symbolAt(start));
+            if (node == NONE || mismatch(node, element, start)
+                    < labelLength.get(node)) {
+                return -1;
+            }
+            start += labelLength.get(node);
+            depth++;
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = node;
+        }
+        return ends.get(node) > 0 ? depth : -1;
+    }
+
+    /**
+     * Helper for prefix methods, finds the highest node whose elements all
+     * start with prefix
+     *
+     * @param prefix start of elements
+     * @return int node found, NONE if no element starts with prefix
+     */
+    private int prefixHelper(StringRadixTreeElement prefix) {
+        if (prefix == null || isEmpty()) {
+            return NONE;
+        }
+        int node = ROOT;
+        int start = 0; //prefix before start is already matched
+        while (start < prefix.length()) {
+            node = child(node, prefix.symbolAt(start));
+            if (node == NONE) {
+                return NONE;
+            }
+            int comparison = mismatch(node, prefix, start);
+            if (start + comparison == prefix.length()) {
+                //prefix ends inside or at the end of node
+                return node;
+            } else if (comparison < labelLength.get(node)) {
+                return NONE;
+            }
+            start += comparison;
+        }
+        return node;
+    }
+
+    /**
+     * Helper for findAllWithPrefix method
+     *
+     * @param node               current start node
+     * @param result             list to add locations to
+     */
+    private void findAllHelper(int node, LocationList result) {
+        for (int cell = locationHead.get(node); cell != NONE;
+                cell = cellNext.get(cell)) {
+            result.addInt(index.rank(cellSlot.get(cell)));
+        }
+        for (int i = 0; i < childCount.get(node); i++) {
+            findAllHelper(childPool.get(childStart.get(node) + i), result);
+        }
+    }
+
+    /**
+     * Helper for toArray
+     *
+     * @param array              array to populate
+     * @param node               current start node
+     * @param key                chars of the element leading to node
+     * @param length             length of the element leading to node
+     */
+    private void toArrayHelper(Object[] array, int node, char[] key,
+            int length) {
+        if (ends.get(node) > 0) {
+            StringRadixTreeElement element = new StringRadixTreeElement(
+                    new String(key, 0, length));
+            for (int cell = locationHead.get(node); cell != NONE;
+                    cell = cellNext.get(cell)) {
+                array[index.rank(cellSlot.get(cell)) - 1] = element;
+            }
+        }
+        for (int i = 0; i < childCount.get(node); i++) {
+            int child = childPool.get(childStart.get(node) + i);
+            int childLength = length + labelLength.get(child);
+            if (childLength > key.length) {
+                key = Arrays.copyOf(key, Math.max(childLength,
+                        key.length * 2));
+            }
+            labels.copy(labelStart.get(child), key, length,
+                    labelLength.get(child));
+            toArrayHelper(array, child, key, childLength);
+        }
+    }
+
+    /**
+     * appends the label of node to builder
+     *
+     * @param builder            builder to append to
+     * @param node               node whose label is appended
+     */
+    private void appendLabel(StringBuilder builder, int node) {
+        for (int i = 0; i < labelLength.get(node); i++) {
+            builder.append((char) labels.get(labelStart.get(node) + i));
+        }
+    }
+
+    /**
+     * finds the child of node whose label starts with symbol
+     *
+     * @param node               node to search
+     * @param symbol             first symbol of label
+     * @return int child, or NONE if there is none
+     */
+    private int child(int node, int symbol) {
+        int i = childIndex(node, symbol);
+        if (i < childCount.get(node)) {
+            int child = childPool.get(childStart.get(node) + i);
+            if (labels.get(labelStart.get(child)) == symbol) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * binary search for the first child of node whose label starts with
+     * symbol or a later one
+     *
+     * @param node               node to search
+     * @param symbol             first symbol of label
+     * @return int index among the children of node
+     */
+    private int childIndex(int node, int symbol) {
+        int low = 0;
+        int high = childCount.get(node);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int child = childPool.get(childStart.get(node) + middle);
+            if (labels.get(labelStart.get(child)) < symbol) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * counts the leading symbols of node's label equal to element's from
+     * start onwards
+     *
+     * @param node               node whose label to compare
+     * @param element            element to compare to
+     * @param start              position in element to start at
+     * @return int number of equal symbols
+     */
+    private int mismatch(int node, StringRadixTreeElement element,
+            int start) {
+        int length = Math.min(labelLength.get(node), element.length() - start);
+        int offset = labelStart.get(node);
+        int result = 0;
+        while (result < length && labels.get(offset + result)
+                == element.symbolAt(start + result)) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * gives node a new occurrence at the next slot
+     *
+     * @param node               node to add to
+     */
+    private void addLocation(int node) {
+        if (freeCell == NONE) {
+            cellSlot.ensureCapacity(cells + 1);
+            cellNext.ensureCapacity(cells + 1);
+            freeCell = cells;
+            cellNext.set(cells, NONE);
+            cells++;
+        }
+        int cell = freeCell;
+        freeCell = cellNext.get(cell);
+        cellSlot.set(cell, index.allocate());
+        cellNext.set(cell, locationHead.get(node));
+        locationHead.set(node, cell);
+        if (locationTail.get(node) == NONE) {
+            locationTail.set(node, cell);
+        }
+        ends.set(node, ends.get(node) + 1);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * creates a leaf whose label is element from start onwards, with a
+     * count of one
+     *
+     * @param element            element to take label from
+     * @param start              position in element label starts at
+     * @return int new node
+     */
+    private int newNode(StringRadixTreeElement element, int start) {
+        int length = element.length() - start;
+        labels.ensureCapacity(labelsUsed + length);
+        for (int i = 0; i < length; i++) {
+            labels.set(labelsUsed + i, (char) element.symbolAt(start + i));
+        }
+        int node = allocateNode();
+        labelStart.set(node, labelsUsed);
+        labelLength.set(node, length);
+        labelsUsed += length;
+        labelsLive += length;
+        count.set(node, 1);
+        return node;
+    }
+
+    /**
+     * Splits node after length symbols of its label. node keeps the start
+     * of its label and its count, and a new only child takes the rest of
+     * the label along with node's children and occurrences.
+     *
+     * @param node               node to split
+     * @param length             symbols of label node keeps
+     */
+    private void split(int node, int length) {
+        int child = allocateNode();
+        labelStart.set(child, labelStart.get(node) + length);
+        labelLength.set(child, labelLength.get(node) - length);
+        childStart.set(child, childStart.get(node));
+        childCount.set(child, childCount.get(node));
+        childCapacity.set(child, childCapacity.get(node));
+        locationHead.set(child, locationHead.get(node));
+        locationTail.set(child, locationTail.get(node));
+        ends.set(child, ends.get(node));
+        count.set(child, count.get(node));
+        labelLength.set(node, length);
+        childCount.set(node, 0);
+        childCapacity.set(node, 0);
+        locationHead.set(node, NONE);
+        locationTail.set(node, NONE);
+        ends.set(node, 0);
+        insertChild(node, child);
+    }
+
+    /**
+     * Merges node, which holds no occurrences, with its only child. The
+     * labels are joined in place when they are neighbours in the label
+     * buffer, and copied to its end otherwise.
+     *
+     * @param node               node to merge
+     */
+    private void mergeChild(int node) {
+        int child = childPool.get(childStart.get(node));
+        int length = labelLength.get(node) + labelLength.get(child);
+        if (labelStart.get(node) + labelLength.get(node)
+                != labelStart.get(child)) {
+            labels.ensureCapacity(labelsUsed + length);
+            labels.copy(labelStart.get(node), labels, labelsUsed,
+                    labelLength.get(node));
+            labels.copy(labelStart.get(child), labels,
+                    labelsUsed + labelLength.get(node), labelLength.get(child));
+            labelStart.set(node, labelsUsed);
+            labelsUsed += length;
+        }
+        labelLength.set(node, length);
+        labelLength.set(child, 0);
+        freeBlock(childStart.get(node), childCapacity.get(node));
+        childStart.set(node, childStart.get(child));
+        childCount.set(node, childCount.get(child));
+        childCapacity.set(node, childCapacity.get(child));
+        locationHead.set(node, locationHead.get(child));
+        locationTail.set(node, locationTail.get(child));
+        ends.set(node, ends.get(child));
+        childCount.set(child, 0);
+        childCapacity.set(child, 0);
+        freeNode(child);
+    }
+
+    /**
+     * adds child to the children of node, keeping them sorted
+     *
+     * @param node               parent
+     * @param child              new child
+     */
+    private void insertChild(int node, int child) {
+        int i = childIndex(node, labels.get(labelStart.get(child)));
+        if (childCount.get(node) == childCapacity.get(node)) {
+            int capacity = Math.max(2, childCapacity.get(node) * 2);
+            int block = allocateBlock(capacity);
+            childPool.copy(childStart.get(node), childPool, block,
+                    childCount.get(node));
+            freeBlock(childStart.get(node), childCapacity.get(node));
+            childStart.set(node, block);
+            childCapacity.set(node, capacity);
+        }
+        int start = childStart.get(node);
+        childPool.copy(start + i, childPool, start + i + 1,
+                childCount.get(node) - i);
+        childPool.set(start + i, child);
+        childCount.set(node, childCount.get(node) + 1);
+    }
+
+    /**
+     * removes child from the children of node
+     *
+     * @param node               parent
+     * @param child              child to remove
+     */
+    private void removeChild(int node, int child) {
+        int i = childIndex(node, labels.get(labelStart.get(child)));
+        int start = childStart.get(node);
+        childPool.copy(start + i + 1, childPool, start + i,
+                childCount.get(node) - i - 1);
+        childCount.set(node, childCount.get(node) - 1);
+    }
+
+    /**
+     * hands out a free node id, growing the node records if needed
+     *
+     * @return int node with no label, children or occurrences
+     */
+    private int allocateNode() {
+        int node = freeNode;
+        if (node != NONE) {
+            freeNode = childStart.get(node);
+        } else {
+            if (nodes == labelStart.capacity()) {
+                for (ArenaStore record : nodeRecords()) {
+                    record.ensureCapacity(nodes + 1);
+                }
+            }
+            node = nodes;
+            nodes++;
+        }
+        labelStart.set(node, 0);
+        labelLength.set(node, 0);
+        childStart.set(node, 0);
+        childCount.set(node, 0);
+        childCapacity.set(node, 0);
+        locationHead.set(node, NONE);
+        locationTail.set(node, NONE);
+        ends.set(node, 0);
+        count.set(node, 0);
+        return node;
+    }
+
+    /**
+     * releases a node with no children or occurrences, along with its
+     * label
+     *
+     * @param node               node to release
+     */
+    private void freeNode(int node) {
+        labelsLive -= labelLength.get(node);
+        freeBlock(childStart.get(node), childCapacity.get(node));
+        locationHead.set(node, NONE);
+        locationTail.set(node, NONE);
+        childStart.set(node, freeNode);
+        freeNode = node;
+    }
+
+    /**
+     * hands out a block of the child pool
+     *
+     * @param capacity           ids the block holds, a power of two
+     * @return int start of the block
+     */
+    private int allocateBlock(int capacity) {
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+        int block = freeBlocks[sizeClass];
+        if (block != NONE) {
+            freeBlocks[sizeClass] = childPool.get(block);
+            return block;
+        }
+        childPool.ensureCapacity(childPoolUsed + capacity);
+        block = childPoolUsed;
+        childPoolUsed += capacity;
+        return block;
+    }
+
+    /**
+     * returns a block of the child pool for reuse
+     *
+     * @param block              start of the block
+     * @param capacity           ids the block holds, 0 for no block
+     */
+    private void freeBlock(int block, int capacity) {
+        if (capacity > 0) {
+            int sizeClass = Integer.numberOfTrailingZeros(capacity);
+            childPool.set(block, freeBlocks[sizeClass]);
+            freeBlocks[sizeClass] = block;
+        }
+    }
+
+    /**
+     * renumbers every slot to its location, dropping released slots
+     */
+    private void compactLocations() {
+        for (int node = 0; node < nodes; node++) {
+            for (int cell = locationHead.get(node); cell != NONE;
+                    cell = cellNext.get(cell)) {
+                cellSlot.set(cell, index.rank(cellSlot.get(cell)));
+            }
+        }
+        index.reset(size);
+    }
+
+    /**
+     * copies every live label to the front of a new label buffer, dropping
+     * labels of released nodes and merges
+     */
+    private void compactLabelBuffer() {
+        ArenaStore newLabels = new ArenaStore(direct, false,
+                Math.max(INITIAL_CAPACITY, labelsLive * 2));
+        labelsUsed = 0;
+        compactLabelsHelper(ROOT, newLabels);
+        labels.free();
+        labels = newLabels;
+        labelsLive = labelsUsed;
+    }
+
+    /**
+     * Helper to compactLabelBuffer method, copying in depth first order so that
+     * a node's label is followed by its first child's
+     *
+     * @param node               current start node
+     * @param newLabels          new label buffer
+     */
+    private void compactLabelsHelper(int node, ArenaStore newLabels) {
+        labels.copy(labelStart.get(node), newLabels, labelsUsed,
+                labelLength.get(node));
+        labelStart.set(node, labelsUsed);
+        labelsUsed += labelLength.get(node);
+        for (int i = 0; i < childCount.get(node); i++) {
+            compactLabelsHelper(childPool.get(childStart.get(node) + i),
+                    newLabels);
+        }
+    }
+
+    /**
+     * Gives up the memory of every arena at once, leaving the tree empty.
+     * The arenas are allocated again by the next clear.
+     */
+    void release() {
+        if (labels != null) {
+            for (ArenaStore record : nodeRecords()) {
+                record.free();
+            }
+            labels.free();
+            childPool.free();
+            cellSlot.free();
+            cellNext.free();
+        }
+        labelStart = null;
+        labelLength = null;
+        childStart = null;
+        childCount = null;
+        childCapacity = null;
+        locationHead = null;
+        locationTail = null;
+        ends = null;
+        count = null;
+        labels = null;
+        childPool = null;
+        cellSlot = null;
+        cellNext = null;
+    }
+
+    /**
+     * if the arenas are held outside the heap, false once released
+     *
+     * @return boolean direct
+     */
+    boolean isDirect() {
+        return labels != null && labels.isDirect();
+    }
+
+    /**
+     * the arenas indexed by node id
+     *
+     * @return ArenaStore array of node records
+     */
+    private ArenaStore[] nodeRecords() {
+        return new ArenaStore[] {labelStart, labelLength, childStart,
+            childCount, childCapacity, locationHead, locationTail, ends,
+            count};
+    }
+
+    /**
+     * frees every arena, allocates empty ones and creates root
+     */
+    private void reset() {
+        release();
+        labelStart = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        labelLength = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        childStart = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        childCount = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        childCapacity = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        locationHead = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        locationTail = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        ends = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        count = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        nodes = 0;
+        freeNode = NONE;
+        labels = new ArenaStore(direct, false, INITIAL_CAPACITY);
+        labelsUsed = 0;
+        labelsLive = 0;
+        childPool = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        childPoolUsed = 0;
+        freeBlocks = new int[Integer.SIZE];
+        Arrays.fill(freeBlocks, NONE);
+        cellSlot = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        cellNext = new ArenaStore(direct, true, INITIAL_CAPACITY);
+        cells = 0;
+        freeCell = NONE;
+        path = new int[INITIAL_CAPACITY];
+        allocateNode(); //ROOT
+    }
+
+    /**
+     * Iterator over the tree in order of elements. Keeps the nodes from the
+     * start node down to the current one on a stack, along with the next
+     * child of each to visit and the chars of the element leading to it.
+     * Either every occurrence is returned, or each element once.
+     */
+    private class ArenaIterator implements Iterator<StringRadixTreeElement> {
+        private final boolean distinct;
+        private final StringRadixTreeElement prefix;
+        private final StringRadixTreeElement to;
+        private final boolean toInclusive;
+        private int[] stack;
+        private int[] nextChild;
+        private int[] keyLength;
+        private int depth;
+        private char[] key;
+        private StringRadixTreeElement next;
+        private int remaining; //occurrences of next still to return
+        private StringRadixTreeElement lastReturned;
+        private int expectedModCount;
+
+        /**
+         * ArenaIterator constructor, starting at the first element, or the
+         * first starting with prefix
+         *
+         * @param distinct if each element is returned once
+         * @param prefix start of every element returned, or null
+         * @param to highest element, or null to go to the last
+         * @param toInclusive if to itself may be returned
+         */
+        private ArenaIterator(boolean distinct,
+                StringRadixTreeElement prefix, StringRadixTreeElement to,
+                boolean toInclusive) {
+            this.distinct = distinct;
+            this.prefix = prefix;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            stack = new int[INITIAL_CAPACITY];
+            nextChild = new int[INITIAL_CAPACITY];
+            keyLength = new int[INITIAL_CAPACITY];
+            key = new char[INITIAL_CAPACITY];
+            expectedModCount = modCount;
+            int start = prefix == null ? ROOT : prefixHelper(prefix);
+            if (start != NONE && !isEmpty()) {
+                if (start != ROOT) {
+                    //key holds the whole element leading to start
+                    StringBuilder leading = new StringBuilder();
+                    int node = ROOT;
+                    while (node != start) {
+                        node = child(node, prefix.symbolAt(
+                                leading.length()));
+                        appendLabel(leading, node);
+                    }
+                    key = leading.toString().toCharArray();
+                    push(start, key.length, false);
+                } else {
+                    push(ROOT, 0, false);
+                }
+                if (ends.get(stack[0]) > 0) {
+                    found(stack[0]);
+                } else {
+                    advance();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StringRadixTreeElement next() {
+            checkForComodification();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            remaining--;
+            if (remaining == 0) {
+                next = null;
+                advance();
+            }
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            if (distinct) {
+                while (ArenaRadixTree.this.remove(lastReturned)) {
+                    continue;
+                }
+            } else {
+                ArenaRadixTree.this.remove(lastReturned);
+            }
+            expectedModCount = modCount;
+            int left = remaining;
+            if (next != null && left > 0 && next == lastReturned) {
+                //more occurrences of lastReturned to come
+                seekAscending(lastReturned, true);
+                remaining = left;
+            } else if (next != null) {
+                seekAscending(next, true);
+            }
+            lastReturned = null;
+        }
+
+        /**
+         * Positions the iterator at the first element after element, or at
+         * element itself if inclusive, descending from root once.
+         *
+         * @param element element to start at
+         * @param inclusive if element itself may be returned
+         */
+        private void seekAscending(StringRadixTreeElement element,
+                boolean inclusive) {
+            depth = 0;
+            next = null;
+            if (isEmpty()) {
+                return;
+            }
+            push(ROOT, 0, false);
+            int node = ROOT;
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                int symbol = element.symbolAt(start);
+                int i = childIndex(node, symbol);
+                nextChild[depth - 1] = i;
+                if (i == childCount.get(node)) {
+                    advance();
+                    return;
+                }
+                int child = childPool.get(childStart.get(node) + i);
+                int comparison = mismatch(child, element, start);
+                if (comparison < labelLength.get(child)) {
+                    if (start + comparison < element.length()
+                            && labels.get(labelStart.get(child) + comparison)
+                            < element.symbolAt(start + comparison)) {
+                        //all of child comes before element
+                        nextChild[depth - 1] = i + 1;
+                    }
+                    advance();
+                    return;
+                }
+                nextChild[depth - 1] = i + 1;
+                push(child, keyLength[depth - 1], true);
+                node = child;
+                start += comparison;
+            }
+            //node leads to element, its children all come after it
+            if (inclusive && ends.get(node) > 0) {
+                found(node);
+            } else {
+                advance();
+            }
+        }
+
+        /**
+         * moves down to the next node that has occurrences
+         */
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                int node = stack[depth - 1];
+                if (nextChild[depth - 1] < childCount.get(node)) {
+                    int child = childPool.get(childStart.get(node)
+                            + nextChild[depth - 1]);
+                    nextChild[depth - 1]++;
+                    push(child, keyLength[depth - 1], true);
+                    if (ends.get(child) > 0) {
+                        found(child);
+                        return;
+                    }
+                } else {
+                    depth--;
+                }
+            }
+        }
+
+        /**
+         * sets next to the element leading to node, or stops if it is past
+         * to or, after a seek from root, past the elements starting with
+         * prefix
+         *
+         * @param node node with occurrences at the top of the stack
+         */
+        private void found(int node) {
+            StringRadixTreeElement element = new StringRadixTreeElement(
+                    new String(key, 0, keyLength[depth - 1]));
+            if (prefix != null && (element.length() < prefix.length()
+                    || element.mismatch(prefix, 0) < prefix.length())) {
+                depth = 0;
+                return;
+            }
+            if (to != null) {
+                int comparison = element.compareTo(to);
+                if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+                    depth = 0;
+                    return;
+                }
+            }
+            next = element;
+            remaining = distinct ? 1 : ends.get(node);
+        }
+
+        /**
+         * pushes node onto the stack
+         *
+         * @param node node to push
+         * @param length length of the element leading to node's parent
+         * @param label if node's label is added to key
+         */
+        private void push(int node, int length, boolean label) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                nextChild = Arrays.copyOf(nextChild, depth * 2);
+                keyLength = Arrays.copyOf(keyLength, depth * 2);
+            }
+            if (label) {
+                if (length + labelLength.get(node) > key.length) {
+                    key = Arrays.copyOf(key, Math.max(length
+                            + labelLength.get(node), key.length * 2));
+                }
+                labels.copy(labelStart.get(node), key, length,
+                        labelLength.get(node));
+                length += labelLength.get(node);
+            }
+            stack[depth] = node;
+            nextChild[depth] = 0;
+            keyLength[depth] = length;
+            depth++;
+        }
+
+        /**
+         * makes sure the tree has not changed other than through this
+         * iterator
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Iterator over each element once in reverse order. Children are
+     * visited from the last down and a node's own element is returned after
+     * its children.
+     */
+    private class DescendingArenaIterator
+            implements Iterator<StringRadixTreeElement> {
+        private final StringRadixTreeElement to;
+        private final boolean toInclusive;
+        private int[] stack;
+        private int[] nextChild; //counts down, -1 once children are done
+        private int[] keyLength;
+        private int depth;
+        private char[] key;
+        private StringRadixTreeElement next;
+        private StringRadixTreeElement lastReturned;
+        private int expectedModCount;
+
+        /**
+         * DescendingArenaIterator constructor
+         *
+         * @param to lowest element, or null to go to the first
+         * @param toInclusive if to itself may be returned
+         */
+        private DescendingArenaIterator(StringRadixTreeElement to,
+                boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            stack = new int[INITIAL_CAPACITY];
+            nextChild = new int[INITIAL_CAPACITY];
+            keyLength = new int[INITIAL_CAPACITY];
+            key = new char[INITIAL_CAPACITY];
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StringRadixTreeElement next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            advance();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (ArenaRadixTree.this.remove(lastReturned)) {
+                continue;
+            }
+            expectedModCount = modCount;
+            if (next != null) {
+                seek(next, true);
+            }
+            lastReturned = null;
+        }
+
+        /**
+         * Positions the iterator at the last element before element, or at
+         * element itself if inclusive, descending from root once.
+         *
+         * @param element element to start at, or null for the last
+         * @param inclusive if element itself may be returned
+         */
+        private void seek(StringRadixTreeElement element,
+                boolean inclusive) {
+            depth = 0;
+            next = null;
+            if (isEmpty()) {
+                return;
+            }
+            push(ROOT, 0, false);
+            if (element == null) {
+                advance();
+                return;
+            }
+            int node = ROOT;
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                int symbol = element.symbolAt(start);
+                int i = childIndex(node, symbol);
+                nextChild[depth - 1] = i - 1;
+                if (i == childCount.get(node)) {
+                    advance();
+                    return;
+                }
+                int child = childPool.get(childStart.get(node) + i);
+                int comparison = mismatch(child, element, start);
+                if (comparison < labelLength.get(child)) {
+                    if (start + comparison < element.length()
+                            && labels.get(labelStart.get(child) + comparison)
+                            < element.symbolAt(start + comparison)) {
+                        //all of child comes before element
+                        nextChild[depth - 1] = i;
+                    }
+                    advance();
+                    return;
+                }
+                push(child, keyLength[depth - 1], true);
+                node = child;
+                start += comparison;
+            }
+            //node leads to element, its children all come after it
+            nextChild[depth - 1] = -1;
+            if (!inclusive) {
+                depth--;
+            }
+            advance();
+        }
+
+        /**
+         * moves on to the next node, in reverse order, that has
+         * occurrences, or stops if it is past to
+         */
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                int node = stack[depth - 1];
+                if (nextChild[depth - 1] >= 0) {
+                    int child = childPool.get(childStart.get(node)
+                            + nextChild[depth - 1]);
+                    nextChild[depth - 1]--;
+                    push(child, keyLength[depth - 1], true);
+                } else {
+                    depth--;
+                    if (ends.get(node) > 0) {
+                        StringRadixTreeElement element =
+                                new StringRadixTreeElement(new String(key, 0,
+                                keyLength[depth]));
+                        if (to != null) {
+                            int comparison = element.compareTo(to);
+                            if (comparison < 0
+                                    || (comparison == 0 && !toInclusive)) {
+                                depth = 0;
+                                return;
+                            }
+                        }
+                        next = element;
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * pushes node onto the stack, to visit its children from the last
+         *
+         * @param node node to push
+         * @param length length of the element leading to node's parent
+         * @param label if node's label is added to key
+         */
+        private void push(int node, int length, boolean label) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                nextChild = Arrays.copyOf(nextChild, depth * 2);
+                keyLength = Arrays.copyOf(keyLength, depth * 2);
+            }
+            if (label) {
+                if (length + labelLength.get(node) > key.length) {
+                    key = Arrays.copyOf(key, Math.max(length
+                            + labelLength.get(node), key.length * 2));
+                }
+                labels.copy(labelStart.get(node), key, length,
+                        labelLength.get(node));
+                length += labelLength.get(node);
+            }
+            stack[depth] = node;
+            nextChild[depth] = childCount.get(node) - 1;
+            keyLength[depth] = length;
+            depth++;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Runs the StringRadixTree tests on ArenaRadixTree
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ArenaRadixTreeTest extends StringRadixTreeTest {
+
+    @Override
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        return new ArenaRadixTree();
+    }
+}
@@ -0,0 +1,268 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Growable block of ints or chars for ArenaRadixTree, kept in a Java array
+ * or in a direct ByteBuffer outside the heap.
+ *
+ * A direct store is freed as soon as free is called, rather than whenever
+ * the garbage collector finds its buffer unreachable, and must not be used
+ * afterwards.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+final class ArenaStore {
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                    ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //direct buffers are then freed once unreachable
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * most values an int or char array may hold on common JVMs
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final boolean direct;
+    private final boolean wide;
+    private int[] ints;
+    private char[] chars;
+    private ByteBuffer buffer;
+    private int capacity;
+
+    /**
+     * ArenaStore constructor
+     *
+     * @param  direct       if the store is outside the heap
+     * @param  wide         if the store holds ints rather than chars
+     * @param  capacity     values the store holds at first
+     */
+    ArenaStore(boolean direct, boolean wide, int capacity) {
+        this.direct = direct;
+        this.wide = wide;
+        allocate(capacity);
+    }
+
+    /**
+     * returns the value at index
+     *
+     * @param  index     int position in store
+     *
+     * @return int value
+     */
+    int get(int index) {
+        if (buffer != null) {
+            return wide ? buffer.getInt(index << 2)
+                    : buffer.getChar(index << 1);
+        }
+        return wide ? ints[index] : chars[index];
+    }
+
+    /**
+     * replaces the value at index
+     *
+     * @param  index     int position in store
+     * @param  value     new value, cut to a char if the store holds chars
+     */
+    void set(int index, int value) {
+        if (buffer != null) {
+            if (wide) {
+                buffer.putInt(index << 2, value);
+            } else {
+                buffer.putChar(index << 1, (char) value);
+            }
+        } else if (wide) {
+            ints[index] = value;
+        } else {
+            chars[index] = (char) value;
+        }
+    }
+
+    /**
+     * number of values the store holds
+     *
+     * @return int capacity
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * if the values are held in a direct buffer
+     *
+     * @return boolean direct
+     */
+    boolean isDirect() {
+        return buffer != null && buffer.isDirect();
+    }
+
+    /**
+     * grows the store, keeping its values, to hold at least needed values
+     *
+     * @param  needed     values to make room for
+     *
+     * @throws IllegalStateException if needed values do not fit in one
+     *         array or buffer
+     */
+    void ensureCapacity(int needed) {
+        if (needed > capacity) {
+            int oldCapacity = capacity;
+            int[] oldInts = ints;
+            char[] oldChars = chars;
+            ByteBuffer oldBuffer = buffer;
+            long limit = direct ? Integer.MAX_VALUE >> (wide ? 2 : 1)
+                    : MAX_ARRAY_LENGTH;
+            allocate((int) Math.max(needed, Math.min(2L * capacity,
+                    limit)));
+            if (oldBuffer != null) {
+                ByteBuffer source = oldBuffer.duplicate();
+                source.clear();
+                source.limit(byteLength(oldCapacity));
+                buffer.put(source);
+                buffer.clear();
+                free(oldBuffer);
+            } else if (wide) {
+                System.arraycopy(oldInts, 0, ints, 0, oldCapacity);
+            } else {
+                System.arraycopy(oldChars, 0, chars, 0, oldCapacity);
+            }
+        }
+    }
+
+    /**
+     * Copies length values from this store at from to destination at to.
+     * Works when the two ranges of one store overlap.
+     *
+     * @param  from             position in this store to copy from
+     * @param  destination      store to copy to
+     * @param  to               position in destination to copy to
+     * @param  length           values to copy
+     */
+    void copy(int from, ArenaStore destination, int to, int length) {
+        if (buffer == null && destination.buffer == null
+                && wide == destination.wide) {
+            if (wide) {
+                System.arraycopy(ints, from, destination.ints, to, length);
+            } else {
+                System.arraycopy(chars, from, destination.chars, to, length);
+            }
+        } else if (destination == this && to > from) {
+            for (int i = length - 1; i >= 0; i--) {
+                set(to + i, get(from + i));
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                destination.set(to + i, get(from + i));
+            }
+        }
+    }
+
+    /**
+     * copies length values from this store at from into a char array
+     *
+     * @param  from             position in this store to copy from
+     * @param  destination      array to copy to
+     * @param  to               position in destination to copy to
+     * @param  length           values to copy
+     */
+    void copy(int from, char[] destination, int to, int length) {
+        if (chars != null) {
+            System.arraycopy(chars, from, destination, to, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                destination[to + i] = (char) get(from + i);
+            }
+        }
+    }
+
+    /**
+     * gives up the memory of the store, which holds nothing afterwards
+     */
+    void free() {
+        if (buffer != null) {
+            free(buffer);
+        }
+        ints = null;
+        chars = null;
+        buffer = null;
+        capacity = 0;
+    }
+
+    /**
+     * allocates empty memory for capacity values
+     *
+     * @param  capacity     values to hold
+     *
+     * @throws IllegalStateException if capacity values do not fit in one
+     *         array or buffer
+     */
+    private void allocate(int capacity) {
+        if (direct) {
+            buffer = ByteBuffer.allocateDirect(byteLength(capacity))
+                    .order(ByteOrder.nativeOrder());
+        } else if (capacity > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("ArenaStore: " + capacity
+                    + " values do not fit in an array");
+        } else if (wide) {
+            ints = new int[capacity];
+        } else {
+            chars = new char[capacity];
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * bytes a buffer needs for length values, which must fit in an int
+     *
+     * @param  length     values to hold
+     *
+     * @return int bytes
+     *
+     * @throws IllegalStateException if the bytes do not fit in an int
+     */
+    private int byteLength(int length) {
+        long bytes = (long) length << (wide ? 2 : 1);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("ArenaStore: " + length
+                    + " values need " + bytes
+                    + " bytes, more than one direct buffer holds");
+        }
+        return (int) bytes;
+    }
+
+    /**
+     * frees the native memory of a direct buffer now, if the JDK allows
+     *
+     * @param  directBuffer     buffer to free
+     */
+    static void free(ByteBuffer directBuffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, directBuffer);
+            } catch (ReflectiveOperationException e) {
+                //left for the garbage collector
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ByteArrayRadixTreeElement class extends AbstractRadixTreeElement for
+ * UTF-8 bytes
+ *
+ * Each symbol is one byte, read unsigned from 0 to 255, so elements sort
+ * as their code points do and a node with many children always indexes
+ * them in a table of 256. ASCII keys take one byte a symbol instead of the
+ * two of a char. Elements are views onto a range of a backing array,
+ * which must not change once an element is made from it; subSet and
+ * append of neighbouring ranges share the array instead of copying it.
+ *
+ * A subSet may end inside a multi-byte character, as edge labels do, so
+ * toString of one may not be whole characters.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ByteArrayRadixTreeElement extends AbstractRadixTreeElement {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[] source;
+    private final int start;
+    private final int end;
+    private int hash;
+
+    /**
+     * ByteArrayRadixTreeElement constructor
+     *
+     * @param  element     String to store as UTF-8
+     */
+    public ByteArrayRadixTreeElement(String element) {
+        this(element == null ? EMPTY
+                : element.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * ByteArrayRadixTreeElement constructor for a whole array
+     *
+     * @param  source      backing array
+     */
+    public ByteArrayRadixTreeElement(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    /**
+     * ByteArrayRadixTreeElement constructor for a view onto part of an
+     * array
+     *
+     * @param  source      backing array
+     * @param  start       int starting position in source
+     * @param  end         int ending position in source
+     */
+    public ByteArrayRadixTreeElement(byte[] source, int start, int end) {
+        if (start < 0 || end > source.length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end "
+                    + end + ", length " + source.length);
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * makes an element of the bytes from position to limit of buffer,
+     * leaving its position as it is. A buffer backed by an array, such as
+     * a slice of a wrapped array, is viewed without copying; the bytes of
+     * any other, such as a mapped file, are copied.
+     *
+     * @param  buffer      bytes of the element
+     *
+     * @return ByteArrayRadixTreeElement of the remaining bytes
+     */
+    public static ByteArrayRadixTreeElement of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return new ByteArrayRadixTreeElement(buffer.array(),
+                    offset + buffer.position(), offset + buffer.limit());
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new ByteArrayRadixTreeElement(bytes);
+    }
+
+    @Override
+    public AbstractRadixTreeElement append(AbstractRadixTreeElement other) {
+        if (other != null && other instanceof ByteArrayRadixTreeElement) {
+            ByteArrayRadixTreeElement otherBytes =
+                    (ByteArrayRadixTreeElement) other;
+            if (otherBytes.length() == 0) {
+                return this;
+            } else if (length() == 0) {
+                return otherBytes;
+            } else if (source == otherBytes.source
+                    && end == otherBytes.start) {
+                //neighbouring ranges of one array, no copy needed
+                return new ByteArrayRadixTreeElement(source, start,
+                        otherBytes.end);
+            }
+            byte[] bytes = Arrays.copyOfRange(source, start,
+                    end + otherBytes.length());
+            System.arraycopy(otherBytes.source, otherBytes.start, bytes,
+                    length(), otherBytes.length());
+            return new ByteArrayRadixTreeElement(bytes);
+        }
+        return null;
+    }
+
+    @Override
+    public AbstractRadixTreeElement compact() {
+        if (start == 0 && end == source.length) {
+            return this;
+        }
+        return new ByteArrayRadixTreeElement(getData());
+    }
+
+    @Override
+    protected int mismatch(AbstractRadixTreeElement other, int otherStart) {
+        if (other != null && other instanceof ByteArrayRadixTreeElement) {
+            ByteArrayRadixTreeElement otherBytes =
+                    (ByteArrayRadixTreeElement) other;
+            int offset = otherBytes.start + otherStart;
+            int length = Math.min(length(), otherBytes.end - offset);
+            if (length <= 0) {
+                return 0;
+            }
+            int result = Arrays.mismatch(source, start, start + length,
+                    otherBytes.source, offset, offset + length);
+            return result < 0 ? length : result;
+        }
+        return 0;
+    }
+
+    @Override
+    public int compareTo(Object o) {
+        if (o != null) {
+            if (o instanceof ByteArrayRadixTreeElement) {
+                ByteArrayRadixTreeElement other =
+                        (ByteArrayRadixTreeElement) o;
+                return Arrays.compareUnsigned(source, start, end,
+                        other.source, other.start, other.end);
+            } else {
+                throw new ClassCastException();
+            }
+        } else {
+            throw new NullPointerException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other != null && other instanceof ByteArrayRadixTreeElement) {
+            ByteArrayRadixTreeElement otherBytes =
+                    (ByteArrayRadixTreeElement) other;
+            return Arrays.equals(source, start, end, otherBytes.source,
+                    otherBytes.start, otherBytes.end);
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * returns the bytes of the element
+     *
+     * @return byte[] copy of the range, or the backing array if the
+     *         element is all of it
+     */
+    @Override
+    protected byte[] getData() {
+        if (start == 0 && end == source.length) {
+            return source;
+        }
+        return Arrays.copyOfRange(source, start, end);
+    }
+
+    /**
+     * returns the array the element is a view onto
+     *
+     * @return byte[] backing array
+     */
+    @Override
+    protected byte[] getSource() {
+        return source;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            //same value Arrays.hashCode gives for the range
+            result = 1;
+            for (int i = start; i < end; i++) {
+                result = 31 * result + source[i];
+            }
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public int symbolAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index
+                    + ", length " + length());
+        }
+        return source[start + index] & 0xFF;
+    }
+
+    @Override
+    public AbstractRadixTreeElement subSet(int start, int end) {
+        if (start <= end) {
+            if (start < 0 || end > length()) {
+                throw new IndexOutOfBoundsException("start " + start
+                        + ", end " + end + ", length " + length());
+            }
+            return new ByteArrayRadixTreeElement(source, this.start + start,
+                    this.start + end);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(source, start, length(), StandardCharsets.UTF_8);
+    }
+}
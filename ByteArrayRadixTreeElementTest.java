@@ -0,0 +1,147 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests ByteArrayRadixTreeElement on its own and in a RadixTree, against
+ * the same words as StringRadixTreeElements
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ByteArrayRadixTreeElementTest {
+    private static final int WORDS = 5000;
+
+    /**
+     * Bytes from 0x80 up are read unsigned, so UTF-8 keys sort as their
+     * code points do and each byte is one symbol.
+     */
+    @Test
+    public void testUnsignedOrder() {
+        ByteArrayRadixTreeElement ascii = new ByteArrayRadixTreeElement("z");
+        ByteArrayRadixTreeElement accent =
+                new ByteArrayRadixTreeElement("\u00e9");
+        assertEquals("testUnsignedOrder: length not in bytes", 2,
+                accent.length());
+        assertEquals("testUnsignedOrder: symbol not unsigned", 0xC3,
+                accent.symbolAt(0));
+        assertTrue("testUnsignedOrder: order not unsigned",
+                ascii.compareTo(accent) < 0);
+        assertEquals("testUnsignedOrder: mismatch not correct", 3,
+                new ByteArrayRadixTreeElement("caf\u00e9").mismatch(
+                new ByteArrayRadixTreeElement("cafe"), 0));
+        assertEquals("testUnsignedOrder: not equal to itself",
+                new ByteArrayRadixTreeElement("caf\u00e9"),
+                new ByteArrayRadixTreeElement("caf\u00e9".getBytes(
+                StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * An element made from a slice of a wrapped array views it, a direct
+     * buffer is copied, and the position of neither buffer moves.
+     */
+    @Test
+    public void testByteBuffer() {
+        byte[] bytes = "GET /index.html".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+        wrapped.position(4);
+        ByteBuffer slice = wrapped.slice();
+        slice.limit(6);
+        ByteArrayRadixTreeElement path = ByteArrayRadixTreeElement.of(slice);
+        assertEquals("testByteBuffer: slice not read", "/index",
+                path.toString());
+        assertEquals("testByteBuffer: position moved", 4,
+                wrapped.position());
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.flip();
+        direct.position(4);
+        assertEquals("testByteBuffer: direct buffer not read",
+                new ByteArrayRadixTreeElement("/index.html"),
+                ByteArrayRadixTreeElement.of(direct));
+        assertEquals("testByteBuffer: position moved", 4,
+                direct.position());
+        assertEquals("testByteBuffer: view hash differs",
+                new ByteArrayRadixTreeElement("/index").hashCode(),
+                path.hashCode());
+    }
+
+    /**
+     * subSet views the same array, neighbouring views append without a
+     * copy, and compact keeps only the bytes of the view.
+     */
+    @Test
+    public void testViews() {
+        ByteArrayRadixTreeElement word =
+                new ByteArrayRadixTreeElement("radixtree");
+        AbstractRadixTreeElement first = word.subSet(0, 5);
+        AbstractRadixTreeElement second = word.subSet(5, 9);
+        assertEquals("testViews: subSet not correct", "radix",
+                first.toString());
+        assertEquals("testViews: append not correct", word,
+                first.append(second));
+        assertEquals("testViews: append of others not correct",
+                new ByteArrayRadixTreeElement("treeradix"),
+                second.append(first));
+        assertEquals("testViews: compact not equal", second,
+                second.compact());
+        assertEquals("testViews: compact keeps other bytes", 4,
+                ((byte[]) second.compact().getData()).length);
+        assertNull("testViews: append of other type not null",
+                word.append(new StringRadixTreeElement("x")));
+    }
+
+    /**
+     * A RadixTree of random words as bytes, many sharing first symbols and
+     * some outside ASCII, holds and orders them as a tree of the same words
+     * as Strings does. No word has a character outside the BMP, so code
+     * point order and String order agree.
+     */
+    @Test
+    public void testAgainstStrings() {
+        RadixTree<ByteArrayRadixTreeElement> bytes = new RadixTree<>();
+        RadixTree<StringRadixTreeElement> strings = new RadixTree<>();
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                builder.append(random.nextInt(10) == 0
+                        ? (char) (0xE0 + random.nextInt(32))
+                        : (char) (' ' + random.nextInt(95)));
+            }
+            words.add(builder.toString());
+            bytes.add(new ByteArrayRadixTreeElement(builder.toString()));
+            strings.add(new StringRadixTreeElement(builder.toString()));
+        }
+        for (int i = 0; i < WORDS; i += 3) {
+            assertEquals("testAgainstStrings: remove differs",
+                    strings.remove(new StringRadixTreeElement(words.get(i))),
+                    bytes.remove(new ByteArrayRadixTreeElement(
+                    words.get(i))));
+        }
+        assertEquals("testAgainstStrings: size differs", strings.size(),
+                bytes.size());
+        Iterator<StringRadixTreeElement> expected = strings.iterator();
+        for (ByteArrayRadixTreeElement element : bytes) {
+            assertEquals("testAgainstStrings: order differs",
+                    expected.next().toString(), element.toString());
+        }
+        Collections.shuffle(words, random);
+        for (String word : words) {
+            assertEquals("testAgainstStrings: findAll differs: " + word,
+                    strings.findAll(new StringRadixTreeElement(word)),
+                    bytes.findAll(new ByteArrayRadixTreeElement(word)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Runs the StringRadixTree tests on a RadixTree with a small lookup cache,
+ * and checks that adds and removes that split and merge nodes never leave
+ * it answering with a node that no longer holds the element
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class CachedRadixTreeTest extends StringRadixTreeTest {
+    private static final int CACHE_SIZE = 4;
+    private static final int OPERATIONS = 20000;
+
+    @Override
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        RadixTree<StringRadixTreeElement> tree = new RadixTree<>();
+        tree.setCacheSize(CACHE_SIZE);
+        return tree;
+    }
+
+    /**
+     * Adds, removes and looks up random short words over a small alphabet,
+     * so most adds split a node and many removes merge one, and compares
+     * every lookup with a tree without a cache.
+     */
+    @Test
+    public void testAgainstUncached() {
+        RadixTree<StringRadixTreeElement> cached = new RadixTree<>();
+        cached.setCacheSize(4 * CACHE_SIZE);
+        RadixTree<StringRadixTreeElement> model = new RadixTree<>();
+        Random random = new Random(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            StringRadixTreeElement word = new StringRadixTreeElement(
+                    Integer.toString(random.nextInt(64), 3));
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                cached.add(word);
+                model.add(word);
+            } else if (operation == 1) {
+                assertEquals("testAgainstUncached: remove differs at " + i,
+                        model.remove(word), cached.remove(word));
+            } else if (operation == 2) {
+                assertEquals("testAgainstUncached: find differs at " + i,
+                        model.find(word), cached.find(word));
+            } else {
+                assertEquals("testAgainstUncached: findAll differs at " + i,
+                        model.findAll(word), cached.findAll(word));
+            }
+            if (i % 200 == 199) {
+                //start again, as most splits come while the tree is small
+                cached.clear();
+                model.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Thread-safe RadixTree whose readers never lock or wait.
+ *
+ * The tree is a chain of PersistentRadixTree versions. A writer builds
+ * the next version by copying only the nodes on the path it changes,
+ * sharing every other node with the version before, and publishes it with
+ * one volatile write. A reader reads the current version once and answers
+ * from it, so find, contains, findAll and the prefix and rank queries are
+ * wait-free and see the tree as it was between two writes. Iterators run
+ * over the version current when they are created and never throw
+ * ConcurrentModificationException; removing through one removes from the
+ * tree as it is now. snapshot returns the current version itself in O(1),
+ * and it stays readable however the tree changes after.
+ *
+ * Writers take one lock between them. Every write publishes a new root,
+ * so locks on the nodes of the path would not let two writers finish
+ * apart.
+ *
+ * @param <V> generic that is instance of AbstractRadixTreeElement
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ConcurrentRadixTree<V extends AbstractRadixTreeElement>
+        extends AbstractRadixTree<V> {
+    private final Object writeLock;
+    private volatile PersistentRadixTree<V> current;
+
+    /**
+     * empty ConcurrentRadixTree constructor
+     */
+    public ConcurrentRadixTree() {
+        writeLock = new Object();
+        current = new PersistentRadixTree<>();
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new RemovingIterator(current.iterator(), false);
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    /**
+     * the tree as it is now, unchanged by later writes
+     *
+     * @return PersistentRadixTree current version
+     */
+    public PersistentRadixTree<V> snapshot() {
+        return current;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return current.toArray();
+    }
+
+    @Override
+    public boolean add(V newElement) {
+        if (newElement == null) {
+            return false;
+        }
+        synchronized (writeLock) {
+            current = current.plus(newElement);
+        }
+        return true;
+    }
+
+    /**
+     * removes last occurance of element in tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o != null && o instanceof AbstractRadixTreeElement) {
+            synchronized (writeLock) {
+                PersistentRadixTree<V> version = current.minus(o);
+                if (version != current) {
+                    current = version;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every element of c, publishing them together so that readers
+     * see all of them or none.
+     */
+    @Override
+    public boolean addAll(Collection<? extends V> c) {
+        boolean result = false;
+        if (c != null) {
+            synchronized (writeLock) {
+                PersistentRadixTree<V> version = current.plusAll(c);
+                result = version != current;
+                current = version;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            current = new PersistentRadixTree<>();
+        }
+    }
+
+    @Override
+    public int find(V element) {
+        return current.find(element);
+    }
+
+    @Override
+    public List<Integer> findAll(V element) {
+        return current.findAll(element);
+    }
+
+    @Override
+    Iterator<V> keyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new RemovingIterator(current.keyIterator(from, fromInclusive,
+                to, toInclusive), true);
+    }
+
+    @Override
+    Iterator<V> descendingKeyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new RemovingIterator(current.descendingKeyIterator(from,
+                fromInclusive, to, toInclusive), true);
+    }
+
+    @Override
+    public Iterator<V> prefixIterator(V prefix) {
+        return new RemovingIterator(current.prefixIterator(prefix), false);
+    }
+
+    @Override
+    public int countWithPrefix(V prefix) {
+        return current.countWithPrefix(prefix);
+    }
+
+    @Override
+    public int rank(V element) {
+        return current.rank(element);
+    }
+
+    @Override
+    public V select(int position) {
+        return current.select(position);
+    }
+
+    @Override
+    public List<Integer> findAllWithPrefix(V prefix) {
+        return current.findAllWithPrefix(prefix);
+    }
+
+    /**
+     * Iterator over a version that removes from the tree as it is now.
+     * Removing through a distinct iterator removes every occurrence.
+     */
+    private class RemovingIterator implements Iterator<V> {
+        private final Iterator<V> elements;
+        private final boolean distinct;
+        private V lastReturned;
+
+        /**
+         * RemovingIterator constructor
+         *
+         * @param elements iterator over a version
+         * @param distinct if each element is returned once
+         */
+        private RemovingIterator(Iterator<V> elements, boolean distinct) {
+            this.elements = elements;
+            this.distinct = distinct;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return elements.hasNext();
+        }
+
+        @Override
+        public V next() {
+            lastReturned = elements.next();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentRadixTree.this.remove(lastReturned);
+            while (distinct && ConcurrentRadixTree.this.remove(lastReturned)) {
+                //removes the remaining occurrences
+            }
+            lastReturned = null;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the StringRadixTree tests on ConcurrentRadixTree, and checks it
+ * against a sequential RadixTree while threads read and write it at once
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ConcurrentRadixTreeTest extends StringRadixTreeTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WORDS = 2000;
+    private static final int SNAPSHOTS = 50;
+
+    @Override
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        return new ConcurrentRadixTree<>();
+    }
+
+    /**
+     * Each writer adds its own words in order while readers look for them
+     * from last to first. A reader that has seen a word must then see
+     * every word its writer added before it, or the reads are not
+     * linearizable. Writers then remove their words while readers check
+     * every iteration is in order. Readers keep snapshots all along, and
+     * each must hold exactly the words of some point in the history of
+     * writes, in the order they were added.
+     */
+    @Test
+    public void testConcurrentReadersAndWriters() throws InterruptedException {
+        final ConcurrentRadixTree<StringRadixTreeElement> tree =
+                new ConcurrentRadixTree<>();
+        final String[][] words = new String[WRITERS][WORDS];
+        RadixTree<StringRadixTreeElement> model = new RadixTree<>();
+        for (int i = 0; i < WRITERS; i++) {
+            for (int j = 0; j < WORDS; j++) {
+                words[i][j] = Integer.toString(j * WRITERS + i, 7);
+                model.add(new StringRadixTreeElement(words[i][j]));
+            }
+        }
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final AtomicBoolean removing = new AtomicBoolean();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<PersistentRadixTree<StringRadixTreeElement>> added =
+                Collections.synchronizedList(new ArrayList<
+                PersistentRadixTree<StringRadixTreeElement>>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            final String[] own = words[i];
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (String word : own) {
+                        tree.add(new StringRadixTreeElement(word));
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < READERS; i++) {
+            final String[] watched = words[i % WRITERS];
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    await(start);
+                    int kept = -1;
+                    while (!removing.get() && failure.get() == null) {
+                        int size = tree.size();
+                        boolean seen = false;
+                        for (int j = watched.length - 1; j >= 0; j--) {
+                            kept = keep(tree.snapshot(), kept, added);
+                            StringRadixTreeElement element =
+                                    new StringRadixTreeElement(watched[j]);
+                            int location = tree.find(element);
+                            if (seen && location < 0) {
+                                failure.compareAndSet(null, watched[j]
+                                        + " missing after a later word");
+                            } else if (location > 0 && !seen) {
+                                seen = true;
+                                if (location > tree.size()) {
+                                    failure.compareAndSet(null, "location "
+                                            + location + " past size");
+                                }
+                            }
+                        }
+                        if (tree.size() < size) {
+                            failure.compareAndSet(null, "size went down");
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (int i = 0; i < WRITERS; i++) {
+            threads.get(i).join();
+        }
+        removing.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull("testConcurrentReadersAndWriters: " + failure.get(),
+                failure.get());
+        assertEquals("testConcurrentReadersAndWriters: size not correct",
+                model.size(), tree.size());
+        //the order the writes took, by the location each word was given
+        String[] history = new String[tree.size()];
+        for (String[] own : words) {
+            for (String word : own) {
+                int location = tree.find(new StringRadixTreeElement(word));
+                assertNull("testConcurrentReadersAndWriters: location "
+                        + location + " given twice", history[location - 1]);
+                history[location - 1] = word;
+            }
+        }
+        assertEquals("testConcurrentReadersAndWriters: keys differ",
+                new ArrayList<>(model.keySet()),
+                new ArrayList<>(tree.keySet()));
+        for (PersistentRadixTree<StringRadixTreeElement> snapshot : added) {
+            assertEquals("testConcurrentReadersAndWriters: snapshot of "
+                    + snapshot.size() + " words not a prefix of the adds",
+                    Arrays.asList(history).subList(0, snapshot.size()),
+                    strings(snapshot));
+        }
+
+        threads.clear();
+        final CountDownLatch removeStart = new CountDownLatch(1);
+        final List<PersistentRadixTree<StringRadixTreeElement>> removed =
+                Collections.synchronizedList(new ArrayList<
+                PersistentRadixTree<StringRadixTreeElement>>());
+        for (int i = 0; i < WRITERS; i++) {
+            final String[] own = words[i];
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    await(removeStart);
+                    for (String word : own) {
+                        tree.remove(new StringRadixTreeElement(word));
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < READERS; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    await(removeStart);
+                    int kept = -1;
+                    while (!tree.isEmpty() && failure.get() == null) {
+                        Iterator<StringRadixTreeElement> elements =
+                                tree.iterator();
+                        StringRadixTreeElement last = null;
+                        while (elements.hasNext()) {
+                            kept = keep(tree.snapshot(), kept, removed);
+                            StringRadixTreeElement element = elements.next();
+                            if (last != null && last.compareTo(element) >= 0) {
+                                failure.compareAndSet(null, last
+                                        + " iterated before " + element);
+                            }
+                            last = element;
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        removeStart.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull("testConcurrentReadersAndWriters: " + failure.get(),
+                failure.get());
+        assertEquals("testConcurrentReadersAndWriters: not empty", 0,
+                tree.size());
+        for (PersistentRadixTree<StringRadixTreeElement> snapshot : removed) {
+            //each writer removes its words in order, so the words left
+            //of a writer are those from its first word still there on
+            int[] firstLeft = new int[WRITERS];
+            Arrays.fill(firstLeft, WORDS);
+            for (String word : strings(snapshot)) {
+                int number = Integer.parseInt(word, 7);
+                firstLeft[number % WRITERS] = Math.min(
+                        firstLeft[number % WRITERS], number / WRITERS);
+            }
+            List<String> left = new ArrayList<>();
+            for (String word : history) {
+                int number = Integer.parseInt(word, 7);
+                if (number / WRITERS >= firstLeft[number % WRITERS]) {
+                    left.add(word);
+                }
+            }
+            assertEquals("testConcurrentReadersAndWriters: snapshot of "
+                    + snapshot.size() + " words not left by the removes",
+                    left, strings(snapshot));
+        }
+    }
+
+    /**
+     * adds snapshot to kept if it differs enough in size from the last one
+     * a reader kept, so each reader keeps about SNAPSHOTS of them
+     *
+     * @param snapshot version the reader just took
+     * @param last size of the last version the reader kept, -1 if none
+     * @param kept versions kept by every reader
+     * @return int size of the last version the reader has kept
+     */
+    private static int keep(PersistentRadixTree<StringRadixTreeElement>
+            snapshot, int last,
+            List<PersistentRadixTree<StringRadixTreeElement>> kept) {
+        if (last >= 0 && Math.abs(snapshot.size() - last)
+                < WRITERS * WORDS / SNAPSHOTS) {
+            return last;
+        }
+        kept.add(snapshot);
+        return snapshot.size();
+    }
+
+    /**
+     * elements of tree in order of occurance as strings
+     *
+     * @param tree tree to list
+     * @return list of strings
+     */
+    private static List<String> strings(
+            PersistentRadixTree<StringRadixTreeElement> tree) {
+        List<String> result = new ArrayList<>();
+        for (Object element : tree.toArray()) {
+            result.add(element.toString());
+        }
+        return result;
+    }
+
+    /**
+     * waits for latch, ending the thread if it is interrupted
+     *
+     * @param latch latch to wait for
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Fenwick tree over insertion slots that turns slots into locations.
+ *
+ * Every occurrence added to a tree is given the next slot. A slot never
+ * changes while the occurrence lives, so removing an occurrence only
+ * releases its slot instead of renumbering every later location; the
+ * location of a slot is the number of live slots up to and including it.
+ * allocate, release, rank and select are all O(log n).
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class LocationIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] tree;
+    private int slots;
+    private int size;
+
+    /**
+     * empty LocationIndex constructor
+     */
+    public LocationIndex() {
+        tree = new int[INITIAL_CAPACITY + 1];
+        slots = 0;
+        size = 0;
+    }
+
+    /**
+     * hands out the next slot, whose location is size() afterwards
+     *
+     * @return int new slot
+     */
+    public int allocate() {
+        if (slots + 1 == tree.length) {
+            grow();
+        }
+        slots++;
+        size++;
+        update(slots, 1);
+        return slots;
+    }
+
+    /**
+     * hands out the next count slots at once, in O(count + log n) rather
+     * than O(count log n)
+     *
+     * @param  count    number of slots, at least 1
+     *
+     * @return int first new slot, the others following it
+     */
+    public int allocate(int count) {
+        while (slots + count >= tree.length) {
+            grow();
+        }
+        int last = slots + count;
+        //node i covers slots (i - lowbit(i), i], and only the nodes up to
+        //last and those covering last cover any of the new slots
+        for (int i = slots + 1; i <= last; i++) {
+            tree[i] += i - Math.max(i - (i & -i), slots);
+        }
+        for (int i = last + (last & -last); i < tree.length; i += i & -i) {
+            tree[i] += last - Math.max(i - (i & -i), slots);
+        }
+        int first = slots + 1;
+        slots = last;
+        size += count;
+        return first;
+    }
+
+    /**
+     * releases a live slot, moving every later location down by one
+     *
+     * @param  slot     slot to release
+     */
+    public void release(int slot) {
+        size--;
+        update(slot, -1);
+    }
+
+    /**
+     * finds the location of a live slot
+     *
+     * @param  slot     live slot
+     *
+     * @return int location starting at 1
+     */
+    public int rank(int slot) {
+        int result = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            result += tree[i];
+        }
+        return result;
+    }
+
+    /**
+     * finds the live slot at a location
+     *
+     * @param  location     location starting at 1
+     *
+     * @return int slot, or -1 if location is out of range
+     */
+    public int select(int location) {
+        if (location < 1 || location > size) {
+            return -1;
+        }
+        int slot = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0;
+                step >>= 1) {
+            if (slot + step < tree.length && tree[slot + step] < location) {
+                slot += step;
+                location -= tree[slot];
+            }
+        }
+        return slot + 1;
+    }
+
+    /**
+     * number of live slots
+     *
+     * @return int live slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * number of slots handed out, live or released
+     *
+     * @return int slots handed out
+     */
+    public int slots() {
+        return slots;
+    }
+
+    /**
+     * releases every slot and starts again from slot 1
+     */
+    public void clear() {
+        tree = new int[INITIAL_CAPACITY + 1];
+        slots = 0;
+        size = 0;
+    }
+
+    /**
+     * forgets released slots so that slots 1 to live are all live, for use
+     * once every live slot s has been renumbered to rank(s)
+     *
+     * @param  live     number of live slots
+     */
+    public void reset(int live) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < live) {
+            capacity *= 2;
+        }
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            //node i covers slots (i - lowbit(i), i]
+            int low = i - (i & -i);
+            tree[i] = Math.max(0, Math.min(i, live) - low);
+        }
+        slots = live;
+        size = live;
+    }
+
+    /**
+     * adds delta to slot
+     *
+     * @param  slot     slot to update
+     * @param  delta    change in count
+     */
+    private void update(int slot, int delta) {
+        for (int i = slot; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * doubles the number of slots. Capacity is a power of two, so every new
+     * node covers only new, empty slots except the last, which covers all
+     */
+    private void grow() {
+        int capacity = tree.length - 1;
+        int[] newTree = new int[capacity * 2 + 1];
+        System.arraycopy(tree, 0, newTree, 0, tree.length);
+        newTree[capacity * 2] = tree[capacity];
+        tree = newTree;
+    }
+}
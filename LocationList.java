@@ -0,0 +1,192 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Growable list of int locations backed by an int array.
+ *
+ * Nodes of a RadixTree keep the slots of their occurrences in one, which
+ * costs four bytes per occurrence instead of a boxed Integer and a linked
+ * list node. The primitive methods getInt, addInt, setInt and
+ * removeLastInt never box; the List methods box on the way in and out.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class LocationList extends AbstractList<Integer>
+        implements RandomAccess {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements;
+    private int size;
+
+    /**
+     * empty LocationList constructor, allocating nothing until the first
+     * location is added
+     */
+    public LocationList() {
+        elements = EMPTY;
+        size = 0;
+    }
+
+    /**
+     * LocationList constructor with room for capacity locations
+     *
+     * @param  capacity     locations to make room for
+     */
+    public LocationList(int capacity) {
+        elements = capacity > 0 ? new int[capacity] : EMPTY;
+        size = 0;
+    }
+
+    /**
+     * returns the location at index
+     *
+     * @param  index     int position in list
+     *
+     * @return int location
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size "
+                    + size);
+        }
+        return elements[index];
+    }
+
+    /**
+     * adds location to the end of the list
+     *
+     * @param  location     location to add
+     */
+    public void addInt(int location) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size] = location;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * adds every location of other to the end of the list
+     *
+     * @param  other     locations to add
+     */
+    public void addAll(LocationList other) {
+        if (size + other.size > elements.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+        modCount++;
+    }
+
+    /**
+     * replaces the location at index
+     *
+     * @param  index        int position in list
+     * @param  location     new location
+     *
+     * @return int location replaced
+     */
+    public int setInt(int index, int location) {
+        int result = getInt(index);
+        elements[index] = location;
+        return result;
+    }
+
+    /**
+     * removes the last location
+     *
+     * @return int location removed
+     */
+    public int removeLastInt() {
+        int result = getInt(size - 1);
+        size--;
+        modCount++;
+        return result;
+    }
+
+    /**
+     * sorts the locations into ascending order
+     */
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer location) {
+        return setInt(index, location);
+    }
+
+    @Override
+    public void add(int index, Integer location) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size "
+                    + size);
+        }
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = location;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        int result = getInt(index);
+        System.arraycopy(elements, index + 1, elements, index,
+                size - index - 1);
+        size--;
+        modCount++;
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * returns the number of locations the array holds before it must grow
+     *
+     * @return int length of the array
+     */
+    public int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * removes every location and gives up the array holding them
+     */
+    @Override
+    public void clear() {
+        elements = EMPTY;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * grows the array to hold at least capacity locations. Most nodes hold
+     * one location, so the first array holds exactly what is needed.
+     *
+     * @param  capacity     locations to make room for
+     */
+    private void grow(int capacity) {
+        int newCapacity = Math.max(capacity, elements.length * 2);
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+}
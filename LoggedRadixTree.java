@@ -0,0 +1,536 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * RadixTree of StringRadixTreeElements kept in a directory so that it
+ * survives a restart without rebuilding it from its source.
+ *
+ * Every add, remove and clear is appended to a log as a record of its
+ * length, a CRC32 and the operation, and the log is forced to disk once
+ * every syncBatch records, so changes since the last sync may be lost in a
+ * crash but the log never holds a partial change that is replayed. Once
+ * the log holds more records than both snapshotInterval and the tree's
+ * size, the whole tree is written as a MappedRadixTree snapshot and a new
+ * log is started, so the log costs no more than the snapshot to replay.
+ *
+ * Generation n of the directory is snapshot-n.rdx, absent for generation
+ * 0, and the log log-n of the changes after it. A snapshot only appears
+ * under its name once it is whole, so recovery loads the latest one,
+ * replays its log up to the first torn record and deletes every older
+ * generation.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class LoggedRadixTree extends RadixTree<StringRadixTreeElement>
+        implements Closeable {
+    /**
+     * records written between forcing the log to disk
+     */
+    public static final int DEFAULT_SYNC_BATCH = 64;
+
+    /**
+     * records logged, at the least, before a snapshot is taken
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1 << 16;
+
+    private static final int LOG_MAGIC = 0x5244584c; //"RDXL"
+    private static final int LOG_VERSION = 1;
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    //operations of log records
+    private static final int ADD = 1;
+    private static final int REMOVE = 2;
+    private static final int CLEAR = 3;
+
+    private final File directory;
+    private final int syncBatch;
+    private final int snapshotInterval;
+    private final ByteArrayOutputStream record;
+    private final DataOutputStream recordOut;
+    private final CRC32 checksum;
+    private long generation;
+    private FileChannel channel;
+    private DataOutputStream out;
+    private int pending; //records written since the last sync
+    private int logged; //records in the log
+    private boolean logging; //false while replaying
+
+    /**
+     * Opens the tree kept in directory with the default sync batch and
+     * snapshot interval, creating an empty one if there is none
+     *
+     * @param directory directory of snapshots and logs
+     * @throws IOException if the tree cannot be read or the log opened
+     */
+    public LoggedRadixTree(File directory) throws IOException {
+        this(directory, DEFAULT_SYNC_BATCH, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the tree kept in directory, creating an empty one if there is
+     * none, by loading the latest snapshot and replaying its log
+     *
+     * @param directory directory of snapshots and logs
+     * @param syncBatch records written between forcing the log to disk
+     * @param snapshotInterval records logged, at the least, before a
+     *                         snapshot is taken
+     * @throws IOException if the tree cannot be read or the log opened
+     */
+    public LoggedRadixTree(File directory, int syncBatch,
+            int snapshotInterval) throws IOException {
+        if (directory == null) {
+            throw new NullPointerException();
+        }
+        if (syncBatch < 1) {
+            throw new IllegalArgumentException("syncBatch: " + syncBatch);
+        }
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("snapshotInterval: "
+                    + snapshotInterval);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(directory + " cannot be created");
+        }
+        this.directory = directory;
+        this.syncBatch = syncBatch;
+        this.snapshotInterval = snapshotInterval;
+        record = new ByteArrayOutputStream();
+        recordOut = new DataOutputStream(record);
+        checksum = new CRC32();
+        logging = false;
+        generation = latestSnapshot();
+        if (generation > 0) {
+            loadSnapshot(snapshotFile(generation));
+        }
+        openLog(replay(logFile(generation)));
+        logging = true;
+        deleteOldGenerations();
+    }
+
+    @Override
+    public boolean add(StringRadixTreeElement newElement) {
+        boolean result = super.add(newElement);
+        if (result) {
+            log(ADD, newElement);
+            snapshotIfDue();
+        }
+        return result;
+    }
+
+    /**
+     * removes last occurance of element in tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        boolean result = super.remove(o);
+        if (result) {
+            log(REMOVE, (AbstractRadixTreeElement) o);
+            snapshotIfDue();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends StringRadixTreeElement> c) {
+        boolean wasLogging = logging;
+        boolean result;
+        logging = false; //an empty tree loads c without calling add
+        try {
+            result = super.addAll(c);
+        } finally {
+            logging = wasLogging;
+        }
+        logAdded(result, c);
+        return result;
+    }
+
+    @Override
+    public boolean addBatch(Collection<? extends StringRadixTreeElement>
+            batch) {
+        boolean result = super.addBatch(batch);
+        logAdded(result, batch);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        log(CLEAR, null);
+        snapshotIfDue();
+    }
+
+    @Override
+    public boolean merge(RadixTree<StringRadixTreeElement> other) {
+        Object[] added = other == null ? null : other.toArray();
+        boolean result = super.merge(other);
+        if (result) {
+            for (Object element : added) {
+                log(ADD, (StringRadixTreeElement) element);
+            }
+            snapshotIfDue();
+        }
+        return result;
+    }
+
+    /**
+     * forces every record written so far to disk
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+        pending = 0;
+    }
+
+    /**
+     * Writes the whole tree as the snapshot of a new generation and starts
+     * its log, then deletes the old generation
+     *
+     * @throws IOException if the snapshot or the new log cannot be written
+     */
+    public void snapshot() throws IOException {
+        long next = generation + 1;
+        File temporary = new File(directory, "snapshot-" + next + ".tmp");
+        MappedRadixTree.write(this, temporary);
+        Files.move(temporary.toPath(), snapshotFile(next).toPath(),
+                StandardCopyOption.ATOMIC_MOVE);
+        //everything in the old log is in the snapshot
+        out.close();
+        generation = next;
+        openLog(0);
+        syncDirectory();
+        deleteOldGenerations();
+    }
+
+    /**
+     * forces the log to disk and closes it. The tree must not be changed
+     * afterwards.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            sync();
+            out.close();
+            out = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * logs each element of a collection added without calling add
+     *
+     * @param added              if the tree added any of them
+     * @param c                  elements added
+     */
+    private void logAdded(boolean added,
+            Collection<? extends StringRadixTreeElement> c) {
+        if (added) {
+            for (StringRadixTreeElement element : c) {
+                if (element != null) {
+                    log(ADD, element);
+                }
+            }
+            snapshotIfDue();
+        }
+    }
+
+    /**
+     * appends a record of a change the tree has made to the log, syncing
+     * when it is due
+     *
+     * @param operation          ADD, REMOVE or CLEAR
+     * @param element            element changed, or null for CLEAR
+     */
+    private void log(int operation, AbstractRadixTreeElement element) {
+        if (!logging) {
+            return;
+        }
+        if (out == null) {
+            throw new IllegalStateException("log is closed");
+        }
+        try {
+            record.reset();
+            recordOut.writeByte(operation);
+            if (element != null) {
+                recordOut.writeChars(element.toString());
+            }
+            checksum.reset();
+            checksum.update(record.toByteArray());
+            out.writeInt(record.size());
+            out.writeInt((int) checksum.getValue());
+            record.writeTo(out);
+            pending++;
+            logged++;
+            if (pending >= syncBatch) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * takes a snapshot once the log is longer than snapshotInterval and
+     * the tree, called after the records of a whole change are logged
+     */
+    private void snapshotIfDue() {
+        if (logging && logged >= snapshotInterval && logged >= size()) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Replays the records of a log up to the first that is torn or
+     * corrupt, which were never synced whole
+     *
+     * @param logFile            log to replay
+     * @return long length of the log up to its last whole record, 0 if it
+     *         has no whole header
+     * @throws IOException if the file is not a log or cannot be read
+     */
+    private long replay(File logFile) throws IOException {
+        if (!logFile.isFile()) {
+            return 0;
+        }
+        long length = logFile.length();
+        long valid = LOG_HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(logFile)))) {
+            if (length < LOG_HEADER_SIZE) {
+                return 0;
+            } else if (in.readInt() != LOG_MAGIC
+                    || in.readInt() != LOG_VERSION) {
+                throw new IOException(logFile + " is not a radix tree log");
+            }
+            while (valid + RECORD_HEADER_SIZE <= length) {
+                int size = in.readInt();
+                int expected = in.readInt();
+                if (size < 1 || size % 2 != 1 || valid + RECORD_HEADER_SIZE
+                        + size > length) {
+                    break;
+                }
+                byte[] payload = new byte[size];
+                in.readFully(payload);
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected
+                        || !apply(payload)) {
+                    break;
+                }
+                valid += RECORD_HEADER_SIZE + size;
+            }
+        } catch (EOFException e) {
+            //torn record, valid ends before it
+            return valid;
+        }
+        return valid;
+    }
+
+    /**
+     * carries out the change of a log record
+     *
+     * @param payload            operation followed by element's chars
+     * @return boolean if the operation is known
+     */
+    private boolean apply(byte[] payload) {
+        char[] chars = new char[(payload.length - 1) / 2];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ((payload[2 * i + 1] & 0xff) << 8
+                    | (payload[2 * i + 2] & 0xff));
+        }
+        StringRadixTreeElement element = new StringRadixTreeElement(
+                new String(chars));
+        switch (payload[0]) {
+        case ADD:
+            add(element);
+            return true;
+        case REMOVE:
+            remove(element);
+            return true;
+        case CLEAR:
+            clear();
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * opens the log of the current generation for appending, cutting it
+     * at valid or writing its header if it has none
+     *
+     * @param valid              length of the log to keep
+     * @throws IOException if the log cannot be opened
+     */
+    private void openLog(long valid) throws IOException {
+        channel = FileChannel.open(logFile(generation).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        if (valid < LOG_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+            header.putInt(LOG_MAGIC).putInt(LOG_VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        channel.force(true);
+        channel.position(channel.size());
+        out = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(channel)));
+        pending = 0;
+        logged = 0;
+    }
+
+    /**
+     * forces the names of the files in directory to disk, so the new
+     * generation is found after a crash before the old one is deleted
+     */
+    private void syncDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(
+                directory.toPath(), StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            //not every platform can open a directory, then the move is
+            //as durable as the platform makes it
+            return;
+        }
+    }
+
+    /**
+     * fills the empty tree from a snapshot, keeping its locations
+     *
+     * @param snapshotFile       snapshot to load
+     * @throws IOException if the snapshot cannot be read or is corrupt
+     */
+    private void loadSnapshot(File snapshotFile) throws IOException {
+        try (MappedRadixTree snapshot = new MappedRadixTree(snapshotFile)) {
+            if (!snapshot.verify()) {
+                throw new IOException(snapshotFile + " is corrupt");
+            }
+            List<StringRadixTreeElement> elements = new ArrayList<>(
+                    snapshot.size());
+            for (Object element : snapshot.toArray()) {
+                elements.add((StringRadixTreeElement) element);
+            }
+            addAll(elements);
+        }
+    }
+
+    /**
+     * finds the newest generation with a snapshot
+     *
+     * @return long generation, 0 if there is no snapshot
+     */
+    private long latestSnapshot() {
+        long result = 0;
+        for (File file : files()) {
+            long fileGeneration = generationOf(file.getName(), "snapshot-",
+                    ".rdx");
+            result = Math.max(result, fileGeneration);
+        }
+        return result;
+    }
+
+    /**
+     * deletes the snapshots, logs and unfinished snapshots of every other
+     * generation
+     */
+    private void deleteOldGenerations() {
+        for (File file : files()) {
+            String name = file.getName();
+            long fileGeneration = Math.max(Math.max(
+                    generationOf(name, "snapshot-", ".rdx"),
+                    generationOf(name, "snapshot-", ".tmp")),
+                    generationOf(name, "log-", ""));
+            if (fileGeneration >= 0 && (fileGeneration != generation
+                    || name.endsWith(".tmp"))) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * lists the files of directory
+     *
+     * @return File array, empty if directory cannot be listed
+     */
+    private File[] files() {
+        File[] result = directory.listFiles();
+        return result == null ? new File[0] : result;
+    }
+
+    /**
+     * reads the generation from a file name of the form prefix, number,
+     * suffix
+     *
+     * @param name               file name
+     * @param prefix             start of name
+     * @param suffix             end of name
+     * @return long generation, -1 if name is not of the form
+     */
+    private static long generationOf(String name, String prefix,
+            String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)
+                || name.length() == prefix.length() + suffix.length()) {
+            return -1;
+        }
+        String number = name.substring(prefix.length(),
+                name.length() - suffix.length());
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return number.length() > 18 ? -1 : Long.parseLong(number);
+    }
+
+    /**
+     * snapshot file of a generation
+     *
+     * @param snapshotGeneration generation of snapshot
+     * @return File of snapshot
+     */
+    private File snapshotFile(long snapshotGeneration) {
+        return new File(directory, "snapshot-" + snapshotGeneration + ".rdx");
+    }
+
+    /**
+     * log file of a generation
+     *
+     * @param logGeneration      generation of log
+     * @return File of log
+     */
+    private File logFile(long logGeneration) {
+        return new File(directory, "log-" + logGeneration);
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a UTF-8 file into whitespace separated words without a Scanner.
+ * The file is memory mapped a window at a time, each window ending at a
+ * whitespace byte, and decoded into one String per window. Words are found
+ * by scanning the bytes and are StringRadixTreeElement views onto the
+ * window, so no String is created per word.
+ *
+ * Words are separated by the same characters as Character.isWhitespace
+ * finds, so a tokenizer splits text as a Scanner does. Each is decoded
+ * from the bytes where it starts; the bytes of a multi-byte UTF-8
+ * character are never taken for ASCII whitespace, so a window or word
+ * never ends inside one.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class MappedFileTokenizer implements Closeable {
+    /**
+     * bytes mapped at a time, unless a word is longer
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private final CharsetDecoder decoder;
+    private long position;
+
+    /**
+     * tokenizer with the default window size
+     *
+     * @param file file to read
+     * @throws IOException if file cannot be opened
+     */
+    public MappedFileTokenizer(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * MappedFileTokenizer constructor
+     *
+     * @param file file to read
+     * @param windowSize bytes to map at a time
+     * @throws IOException if file cannot be opened
+     */
+    public MappedFileTokenizer(File file, int windowSize) throws IOException {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize: " + windowSize);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fileSize = channel.size();
+        this.windowSize = windowSize;
+        decoder = StandardCharsets.UTF_8.newDecoder();
+        position = 0;
+    }
+
+    /**
+     * Builds a tree of the words of file, reading it once. Each window is
+     * built on its own, its labels are compacted so the window's text can
+     * be collected, and it is merged after the windows before it.
+     *
+     * @param file file to read
+     * @return new RadixTree, word i of the file at location i
+     * @throws IOException if file cannot be read or is not UTF-8
+     */
+    public static RadixTree<StringRadixTreeElement> build(File file)
+            throws IOException {
+        RadixTree<StringRadixTreeElement> result = new RadixTree<>();
+        try (MappedFileTokenizer words = new MappedFileTokenizer(file)) {
+            List<StringRadixTreeElement> window = words.nextWords();
+            while (window != null) {
+                RadixTree<StringRadixTreeElement> windowTree =
+                        RadixTree.build(window);
+                windowTree.compactLabels();
+                result.merge(windowTree);
+                window = words.nextWords();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * decodes the next window of the file
+     *
+     * @return String text of the window, or null at the end of the file
+     * @throws IOException if file cannot be read or is not UTF-8
+     */
+    public String nextWindow() throws IOException {
+        ByteBuffer bytes = nextBytes();
+        if (bytes == null) {
+            return null;
+        }
+        return decoder.decode(bytes).toString();
+    }
+
+    /**
+     * splits the next window of the file into words
+     *
+     * @return List of words of the window in order, or null at the end of
+     *         the file
+     * @throws IOException if file cannot be read or is not UTF-8
+     */
+    public List<StringRadixTreeElement> nextWords() throws IOException {
+        ByteBuffer bytes = nextBytes();
+        if (bytes == null) {
+            return null;
+        }
+        String text = decoder.decode(bytes.duplicate()).toString();
+        List<StringRadixTreeElement> result = new ArrayList<>();
+        int chars = 0; //chars of text before the current byte
+        int wordStart = -1;
+        for (int i = 0; i < bytes.limit(); i++) {
+            int symbol = bytes.get(i) & 0xff;
+            int space = spaceLength(bytes, i);
+            if (space > 0) {
+                if (wordStart >= 0) {
+                    result.add(new StringRadixTreeElement(text, wordStart,
+                            chars));
+                    wordStart = -1;
+                }
+                //whitespace is never a surrogate pair
+                chars++;
+                i += space - 1;
+            } else {
+                if (wordStart < 0) {
+                    wordStart = chars;
+                }
+                if ((symbol & 0xc0) != 0x80) {
+                    //first byte of a character, four bytes decode to a
+                    //surrogate pair
+                    chars += symbol >= 0xf0 ? 2 : 1;
+                }
+            }
+        }
+        if (wordStart >= 0) {
+            result.add(new StringRadixTreeElement(text, wordStart, chars));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Maps the next window, which ends after its last whitespace character
+     * or at the end of the file. A window with no whitespace is doubled
+     * until it has some.
+     *
+     * @return ByteBuffer of the window, or null at the end of the file
+     * @throws IOException if file cannot be read
+     */
+    private ByteBuffer nextBytes() throws IOException {
+        if (position >= fileSize) {
+            return null;
+        }
+        long length = Math.min(windowSize, fileSize - position);
+        while (true) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, length);
+            int end = (int) length;
+            if (position + length < fileSize) {
+                end = 0;
+                for (int i = (int) length - 1; i >= 0 && end == 0; i--) {
+                    int space = spaceLength(bytes, i);
+                    if (space > 0) {
+                        end = i + space;
+                    }
+                }
+                if (end == 0) {
+                    if (length == Integer.MAX_VALUE) {
+                        throw new IOException("word at byte " + position
+                                + " is too long to map");
+                    }
+                    length = Math.min(Math.min(2 * length,
+                            Integer.MAX_VALUE), fileSize - position);
+                    continue;
+                }
+            }
+            bytes.limit(end);
+            position += end;
+            return bytes;
+        }
+    }
+
+    /**
+     * Bytes of the whitespace character that starts at index of bytes, as
+     * Character.isWhitespace finds it. A character cut off by the limit of
+     * bytes is not whitespace.
+     *
+     * @param bytes UTF-8 bytes
+     * @param index index of the byte to decode from
+     * @return int length of the character in bytes, 0 if it is not
+     *         whitespace or index is not the first byte of a character
+     */
+    private static int spaceLength(ByteBuffer bytes, int index) {
+        int symbol = bytes.get(index) & 0xff;
+        int length;
+        int codePoint;
+        if (symbol < 0x80) {
+            return Character.isWhitespace(symbol) ? 1 : 0;
+        } else if (symbol >= 0xc0 && symbol < 0xe0) {
+            length = 2;
+            codePoint = symbol & 0x1f;
+        } else if (symbol >= 0xe0 && symbol < 0xf0) {
+            length = 3;
+            codePoint = symbol & 0x0f;
+        } else {
+            //a continuation byte, or a supplementary character, none of
+            //which are whitespace
+            return 0;
+        }
+        if (index + length > bytes.limit()) {
+            return 0;
+        }
+        for (int i = 1; i < length; i++) {
+            codePoint = codePoint << 6 | (bytes.get(index + i) & 0x3f);
+        }
+        return Character.isWhitespace(codePoint) ? length : 0;
+    }
+}
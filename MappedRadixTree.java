@@ -0,0 +1,833 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Read-only RadixTree of StringRadixTreeElements that answers queries
+ * straight from a memory-mapped index file written by write, without
+ * creating a node object.
+ *
+ * The file starts with a header of eight ints: magic, version, size, node
+ * count, label chars, postings bytes, CRC32 of everything after the header
+ * and CRC32 of the header before it. Four sections follow:
+ *   nodes      one record of nine ints per node in depth first order,
+ *              children in order of their first char: label start, label
+ *              length, parent, nodes in its subtree, occurrences of its
+ *              element, occurrences in the nodes before it, start of its
+ *              postings, start of its children and number of children
+ *   children   the ids of the children of each node in order of their
+ *              first char, so a child is found by binary search; every
+ *              node but root is listed once
+ *   labels     the label of every node as chars, in node order
+ *   postings   the sorted locations of each node's element, each a varint
+ *              of its difference from the one before
+ *
+ * In depth first order a node's subtree follows it and nodes are in order
+ * of their elements, so a range of elements is a range of node ids.
+ * Opening reads only the header, so it takes the same time for a file of
+ * any size; verify checks the rest.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class MappedRadixTree extends AbstractRadixTree<StringRadixTreeElement>
+        implements Closeable {
+    /**
+     * first int of every index file, "RDXT"
+     */
+    public static final int MAGIC = 0x52445854;
+
+    /**
+     * version of the layout written by write
+     */
+    public static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int HEADER_CHECKED = 28;
+    private static final int RECORD_FIELDS = 9;
+    private static final int RECORD_SIZE = RECORD_FIELDS * 4;
+
+    //offsets of the fields of a node record
+    private static final int LABEL_START = 0;
+    private static final int LABEL_LENGTH = 4;
+    private static final int PARENT = 8;
+    private static final int SUBTREE = 12;
+    private static final int ENDS = 16;
+    private static final int BEFORE = 20;
+    private static final int POSTINGS = 24;
+    private static final int CHILDREN = 28;
+    private static final int CHILD_COUNT = 32;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private MappedByteBuffer buffer;
+    private final int size;
+    private final int nodes;
+    private final int childrenOffset;
+    private final int labelsOffset;
+    private final int postingsOffset;
+    private final int bodyChecksum;
+
+    /**
+     * Maps an index file written by write. Only the header is read.
+     *
+     * @param file index file
+     * @throws IOException if file cannot be read or is not a whole index
+     */
+    public MappedRadixTree(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a radix tree index");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a radix tree index");
+        } else if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unknown version "
+                    + buffer.getInt(4));
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.position(0).limit(HEADER_CHECKED);
+        CRC32 checksum = new CRC32();
+        checksum.update(header);
+        if ((int) checksum.getValue() != buffer.getInt(HEADER_CHECKED)) {
+            throw new IOException(file + " has a corrupt header");
+        }
+        size = buffer.getInt(8);
+        nodes = buffer.getInt(12);
+        int labelChars = buffer.getInt(16);
+        int postingsLength = buffer.getInt(20);
+        bodyChecksum = buffer.getInt(24);
+        if (nodes < 1 || labelChars < 0 || postingsLength < 0
+                || HEADER_SIZE + (long) nodes * RECORD_SIZE
+                + 4L * (nodes - 1) + 2L * labelChars + postingsLength
+                != buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+        childrenOffset = HEADER_SIZE + nodes * RECORD_SIZE;
+        labelsOffset = childrenOffset + 4 * (nodes - 1);
+        postingsOffset = labelsOffset + 2 * labelChars;
+    }
+
+    /**
+     * Writes tree to file as an index that MappedRadixTree can open. The
+     * locations written are those tree reports, starting at 1. The index
+     * is written and forced to a temporary file beside file, then moved
+     * over it, so file is never left half written.
+     *
+     * @param tree tree to write
+     * @param file file to create or replace
+     * @throws IOException if file cannot be written
+     */
+    public static void write(AbstractRadixTree<StringRadixTreeElement> tree,
+            File file) throws IOException {
+        IndexWriter writer = new IndexWriter(tree);
+        writer.writeNode(0, writer.keys.size(), 0, 0, NONE);
+        File temporary = File.createTempFile(file.getName(), ".tmp",
+                file.getAbsoluteFile().getParentFile());
+        try {
+            writeIndex(tree, writer, temporary);
+            Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Helper for write, writes the laid out index to file and forces it
+     * to disk
+     *
+     * @param tree tree laid out
+     * @param writer layout of tree
+     * @param file file to write
+     * @throws IOException if file cannot be written
+     */
+    private static void writeIndex(
+            AbstractRadixTree<StringRadixTreeElement> tree,
+            IndexWriter writer, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CRC32 checksum = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel)), checksum));
+            for (int i = 0; i < writer.records.size(); i++) {
+                out.writeInt(writer.records.getInt(i));
+            }
+            for (int i = 0; i < writer.children.size(); i++) {
+                out.writeInt(writer.children.getInt(i));
+            }
+            out.writeChars(writer.labels.toString());
+            writer.postings.writeTo(out);
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(tree.size())
+                    .putInt(writer.records.size() / RECORD_FIELDS)
+                    .putInt(writer.labels.length())
+                    .putInt(writer.postings.size())
+                    .putInt((int) checksum.getValue());
+            CRC32 headerChecksum = new CRC32();
+            headerChecksum.update(header.array(), 0, HEADER_CHECKED);
+            header.putInt((int) headerChecksum.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * checks every section of the file against the checksum in its header
+     *
+     * @return boolean if the sections are as written
+     */
+    public boolean verify() {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        return (int) checksum.getValue() == bodyChecksum;
+    }
+
+    /**
+     * unmaps the file now rather than when the garbage collector gets to
+     * it. The tree must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            ArenaStore.free(buffer);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public Iterator<StringRadixTreeElement> iterator() {
+        return new MappedIterator(0, nodes, false, false);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && o instanceof StringRadixTreeElement
+                && find((StringRadixTreeElement) o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        for (int node = 0; node < nodes; node++) {
+            if (record(node, ENDS) > 0) {
+                StringRadixTreeElement element = element(node);
+                int position = postingsOffset + record(node, POSTINGS);
+                int location = 0;
+                for (int i = 0; i < record(node, ENDS); i++) {
+                    int delta = varint(position);
+                    position += varintSize(delta);
+                    location += delta;
+                    result[location - 1] = element;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int find(StringRadixTreeElement element) {
+        int node = findHelper(element);
+        if (node == NONE) {
+            return -1;
+        }
+        return varint(postingsOffset + record(node, POSTINGS));
+    }
+
+    @Override
+    public List<Integer> findAll(StringRadixTreeElement element) {
+        int node = findHelper(element);
+        if (node == NONE) {
+            return null;
+        }
+        LocationList result = new LocationList(record(node, ENDS));
+        readPostings(node, result);
+        return result;
+    }
+
+    @Override
+    Iterator<StringRadixTreeElement> keyIterator(StringRadixTreeElement from,
+            boolean fromInclusive, StringRadixTreeElement to,
+            boolean toInclusive) {
+        int low = from == null ? 0 : lowerBound(from, fromInclusive);
+        int high = to == null ? nodes : lowerBound(to, !toInclusive);
+        return new MappedIterator(low, high, true, false);
+    }
+
+    @Override
+    Iterator<StringRadixTreeElement> descendingKeyIterator(
+            StringRadixTreeElement from, boolean fromInclusive,
+            StringRadixTreeElement to, boolean toInclusive) {
+        int low = to == null ? 0 : lowerBound(to, toInclusive);
+        int high = from == null ? nodes : lowerBound(from, !fromInclusive);
+        return new MappedIterator(low, high, true, true);
+    }
+
+    @Override
+    public Iterator<StringRadixTreeElement> prefixIterator(
+            StringRadixTreeElement prefix) {
+        int node = prefixHelper(prefix);
+        if (node == NONE) {
+            return Collections.emptyIterator();
+        }
+        return new MappedIterator(node, node + record(node, SUBTREE), false,
+                false);
+    }
+
+    @Override
+    public int countWithPrefix(StringRadixTreeElement prefix) {
+        int node = prefixHelper(prefix);
+        if (node == NONE) {
+            return 0;
+        }
+        return before(node + record(node, SUBTREE)) - before(node);
+    }
+
+    @Override
+    public int rank(StringRadixTreeElement element) {
+        if (element == null) {
+            return 0;
+        }
+        return before(lowerBound(element, true));
+    }
+
+    @Override
+    public StringRadixTreeElement select(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        //last node with fewer occurrences before it than position + 1
+        int low = 0;
+        int high = nodes - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (before(middle) <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return element(low);
+    }
+
+    @Override
+    public List<Integer> findAllWithPrefix(StringRadixTreeElement prefix) {
+        int node = prefixHelper(prefix);
+        if (node == NONE || countWithPrefix(prefix) == 0) {
+            return null;
+        }
+        LocationList result = new LocationList(countWithPrefix(prefix));
+        for (int i = node; i < node + record(node, SUBTREE); i++) {
+            readPostings(i, result);
+        }
+        result.sort();
+        return result;
+    }
+
+    /**
+     * finds the node holding element
+     *
+     * @param element element to find
+     * @return int node, or NONE if element is not in tree
+     */
+    private int findHelper(StringRadixTreeElement element) {
+        if (element == null) {
+            return NONE;
+        }
+        int node = ROOT;
+        int start = 0; //element before start is already matched
+        while (start < element.length()) {
+            node = child(node, element.symbolAt(start));
+            if (node == NONE || mismatch(node, element, start)
+                    < record(node, LABEL_LENGTH)) {
+                return NONE;
+            }
+            start += record(node, LABEL_LENGTH);
+        }
+        return record(node, ENDS) > 0 ? node : NONE;
+    }
+
+    /**
+     * Helper for prefix methods, finds the highest node whose elements all
+     * start with prefix
+     *
+     * @param prefix start of elements
+     * @return int node found, NONE if no element starts with prefix
+     */
+    private int prefixHelper(StringRadixTreeElement prefix) {
+        if (prefix == null) {
+            return NONE;
+        }
+        int node = ROOT;
+        int start = 0; //prefix before start is already matched
+        while (start < prefix.length()) {
+            node = child(node, prefix.symbolAt(start));
+            if (node == NONE) {
+                return NONE;
+            }
+            int comparison = mismatch(node, prefix, start);
+            if (start + comparison == prefix.length()) {
+                //prefix ends inside or at the end of node
+                return node;
+            } else if (comparison < record(node, LABEL_LENGTH)) {
+                return NONE;
+            }
+            start += comparison;
+        }
+        return node;
+    }
+
+    /**
+     * Finds the first node in order whose element is greater than element,
+     * or equal to it if inclusive. Every node before it has a lesser
+     * element.
+     *
+     * @param element element to compare to
+     * @param inclusive if a node holding element itself is returned
+     * @return int node, or the node count if there is none
+     */
+    private int lowerBound(StringRadixTreeElement element, boolean inclusive) {
+        int node = ROOT;
+        int start = 0; //element before start is already matched
+        while (start < element.length()) {
+            int symbol = element.symbolAt(start);
+            int index = childIndex(node, symbol);
+            if (index == record(node, CHILD_COUNT)) {
+                //all of node's subtree comes before element
+                return node + record(node, SUBTREE);
+            }
+            int child = childAt(node, index);
+            if (label(child, 0) > symbol) {
+                return child;
+            }
+            int comparison = mismatch(child, element, start);
+            if (comparison < record(child, LABEL_LENGTH)) {
+                if (start + comparison == element.length()
+                        || label(child, comparison)
+                        > element.symbolAt(start + comparison)) {
+                    return child;
+                }
+                return child + record(child, SUBTREE);
+            }
+            start += comparison;
+            node = child;
+        }
+        return inclusive ? node : node + 1;
+    }
+
+    /**
+     * finds the child of node whose label starts with symbol
+     *
+     * @param node               node to search
+     * @param symbol             first symbol of label
+     * @return int child, or NONE if there is none
+     */
+    private int child(int node, int symbol) {
+        int index = childIndex(node, symbol);
+        if (index < record(node, CHILD_COUNT)) {
+            int child = childAt(node, index);
+            if (label(child, 0) == symbol) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * binary searches the children of node for the first whose label
+     * starts with symbol or a greater one
+     *
+     * @param node               node to search
+     * @param symbol             first symbol of label
+     * @return int position among the children, or the number of children
+     *         if every label starts with a lesser symbol
+     */
+    private int childIndex(int node, int symbol) {
+        int low = 0;
+        int high = record(node, CHILD_COUNT);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (label(childAt(node, middle), 0) < symbol) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * reads the id of a child of node
+     *
+     * @param node               node id
+     * @param index              position among the children of node
+     * @return int child
+     */
+    private int childAt(int node, int index) {
+        return buffer.getInt(childrenOffset
+                + 4 * (record(node, CHILDREN) + index));
+    }
+
+    /**
+     * counts the leading symbols of the label of node equal to element from
+     * start onwards
+     *
+     * @param node               node whose label is compared
+     * @param element            element to compare to
+     * @param start              position in element to start at
+     * @return int number of equal symbols
+     */
+    private int mismatch(int node, StringRadixTreeElement element,
+            int start) {
+        int length = Math.min(record(node, LABEL_LENGTH),
+                element.length() - start);
+        int result = 0;
+        while (result < length && label(node, result)
+                == element.symbolAt(start + result)) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * builds the element leading to node from the labels of its ancestors
+     *
+     * @param node               node to build element of
+     * @return StringRadixTreeElement of node
+     */
+    private StringRadixTreeElement element(int node) {
+        int length = 0;
+        for (int i = node; i != NONE; i = record(i, PARENT)) {
+            length += record(i, LABEL_LENGTH);
+        }
+        char[] key = new char[length];
+        for (int i = node; i != NONE; i = record(i, PARENT)) {
+            for (int j = record(i, LABEL_LENGTH) - 1; j >= 0; j--) {
+                length--;
+                key[length] = (char) label(i, j);
+            }
+        }
+        return new StringRadixTreeElement(new String(key));
+    }
+
+    /**
+     * adds the locations of node to result
+     *
+     * @param node               node to read
+     * @param result             list to add locations to
+     */
+    private void readPostings(int node, LocationList result) {
+        int position = postingsOffset + record(node, POSTINGS);
+        int location = 0;
+        for (int i = 0; i < record(node, ENDS); i++) {
+            int delta = varint(position);
+            position += varintSize(delta);
+            location += delta;
+            result.addInt(location);
+        }
+    }
+
+    /**
+     * reads a field of a node record
+     *
+     * @param node               node id
+     * @param field              offset of field in record
+     * @return int value of field
+     */
+    private int record(int node, int field) {
+        return buffer.getInt(HEADER_SIZE + node * RECORD_SIZE + field);
+    }
+
+    /**
+     * reads a symbol of the label of node
+     *
+     * @param node               node id
+     * @param index              position in label
+     * @return int symbol
+     */
+    private int label(int node, int index) {
+        return buffer.getChar(labelsOffset
+                + 2 * (record(node, LABEL_START) + index));
+    }
+
+    /**
+     * counts occurrences in the nodes before node
+     *
+     * @param node               node id, or the node count for all
+     * @return int occurrences before node
+     */
+    private int before(int node) {
+        return node == nodes ? size : record(node, BEFORE);
+    }
+
+    /**
+     * reads the varint at position
+     *
+     * @param position           position in file
+     * @return int value
+     */
+    private int varint(int position) {
+        int result = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = buffer.get(position);
+            result |= (next & 0x7f) << shift;
+            shift += 7;
+            position++;
+        } while (next < 0);
+        return result;
+    }
+
+    /**
+     * bytes taken by value as a varint
+     *
+     * @param value              non-negative value
+     * @return int bytes
+     */
+    private static int varintSize(int value) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(value | 1) + 6)
+                / 7;
+    }
+
+    /**
+     * Iterator over a range of node ids, in either direction, returning the
+     * element of each node with occurrences once or once per occurrence.
+     * The tree is read-only, so remove is not supported.
+     */
+    private class MappedIterator implements Iterator<StringRadixTreeElement> {
+        private final int low;
+        private final int high;
+        private final boolean distinct;
+        private final boolean descending;
+        private int node; //next node to look at
+        private StringRadixTreeElement element;
+        private int remaining; //times element is still returned
+
+        /**
+         * MappedIterator constructor
+         *
+         * @param low first node in range
+         * @param high node after the last in range
+         * @param distinct if each element is returned once
+         * @param descending if nodes are read from high to low
+         */
+        private MappedIterator(int low, int high, boolean distinct,
+                boolean descending) {
+            this.low = low;
+            this.high = high;
+            this.distinct = distinct;
+            this.descending = descending;
+            node = descending ? high - 1 : low;
+            seek();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 || inRange();
+        }
+
+        @Override
+        public StringRadixTreeElement next() {
+            if (remaining == 0) {
+                if (!inRange()) {
+                    throw new NoSuchElementException();
+                }
+                element = element(node);
+                remaining = distinct ? 1 : record(node, ENDS);
+                step();
+                seek();
+            }
+            remaining--;
+            return element;
+        }
+
+        /**
+         * moves node to the next node with occurrences, or out of range
+         */
+        private void seek() {
+            while (inRange() && record(node, ENDS) == 0) {
+                step();
+            }
+        }
+
+        /**
+         * moves node one place in the direction of iteration
+         */
+        private void step() {
+            node += descending ? -1 : 1;
+        }
+
+        /**
+         * checks node is in range
+         *
+         * @return boolean if node is in range
+         */
+        private boolean inRange() {
+            return node >= low && node < high;
+        }
+    }
+
+    /**
+     * Lays out a tree in depth first order, built from its distinct
+     * elements in order, grouping elements by their symbol after the
+     * shared prefix of each node.
+     */
+    private static class IndexWriter {
+        private final AbstractRadixTree<StringRadixTreeElement> tree;
+        private final List<StringRadixTreeElement> keys;
+        private final LocationList records;
+        private final LocationList children;
+        private final StringBuilder labels;
+        private final ByteArrayOutputStream postings;
+        private int before;
+
+        /**
+         * IndexWriter constructor
+         *
+         * @param tree tree to write
+         */
+        private IndexWriter(AbstractRadixTree<StringRadixTreeElement> tree) {
+            this.tree = tree;
+            keys = new ArrayList<>(tree.keySet());
+            records = new LocationList();
+            children = new LocationList();
+            labels = new StringBuilder();
+            postings = new ByteArrayOutputStream();
+            before = 0;
+        }
+
+        /**
+         * Writes the node whose elements are keys low to high and the nodes
+         * below it. Every key in range shares its first depth symbols.
+         *
+         * @param low first key of node
+         * @param high key after the last of node
+         * @param from length of the parent's element
+         * @param depth length of node's element
+         * @param parent parent node, or NONE for root
+         */
+        private void writeNode(int low, int high, int from, int depth,
+                int parent) {
+            int node = records.size() / RECORD_FIELDS;
+            StringRadixTreeElement first = low < high ? keys.get(low) : null;
+            records.addInt(labels.length());
+            records.addInt(depth - from);
+            records.addInt(parent);
+            records.addInt(0); //subtree, known once children are written
+            for (int i = from; i < depth; i++) {
+                labels.append((char) first.symbolAt(i));
+            }
+            int ends = 0;
+            int postingsStart = postings.size();
+            if (first != null && first.length() == depth) {
+                List<Integer> found = tree.findAll(first);
+                int[] locations = new int[found.size()];
+                for (int i = 0; i < locations.length; i++) {
+                    locations[i] = found.get(i);
+                }
+                Arrays.sort(locations);
+                int location = 0;
+                for (int next : locations) {
+                    writeVarint(next - location);
+                    location = next;
+                }
+                ends = locations.length;
+                low++;
+            }
+            records.addInt(ends);
+            records.addInt(before);
+            records.addInt(postingsStart);
+            before += ends;
+            //keys of each child, which are runs of the same next symbol
+            LocationList groups = new LocationList();
+            for (int i = low; i < high; i++) {
+                if (i == low || keys.get(i).symbolAt(depth)
+                        != keys.get(i - 1).symbolAt(depth)) {
+                    groups.addInt(i);
+                }
+            }
+            int childrenStart = children.size();
+            records.addInt(childrenStart);
+            records.addInt(groups.size());
+            for (int k = 0; k < groups.size(); k++) {
+                children.addInt(NONE); //id, known once the child is reached
+            }
+            for (int k = 0; k < groups.size(); k++) {
+                int i = groups.getInt(k);
+                int j = k + 1 < groups.size() ? groups.getInt(k + 1) : high;
+                children.setInt(childrenStart + k,
+                        records.size() / RECORD_FIELDS);
+                //keys are in order, so the first and last share the most
+                StringRadixTreeElement last = keys.get(j - 1);
+                int childDepth = depth + 1;
+                while (childDepth < keys.get(i).length()
+                        && childDepth < last.length()
+                        && keys.get(i).symbolAt(childDepth)
+                        == last.symbolAt(childDepth)) {
+                    childDepth++;
+                }
+                writeNode(i, j, depth, childDepth, node);
+            }
+            records.setInt(node * RECORD_FIELDS + SUBTREE / 4,
+                    records.size() / RECORD_FIELDS - node);
+        }
+
+        /**
+         * appends value to the postings as a varint
+         *
+         * @param value non-negative value
+         */
+        private void writeVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                postings.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            postings.write(value);
+        }
+    }
+}
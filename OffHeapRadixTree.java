@@ -0,0 +1,33 @@
+import java.io.Closeable;
+
+/**
+ * ArenaRadixTree whose node records, labels, child lists and occurrence
+ * cells live in direct memory outside the Java heap, so a large tree adds
+ * next to nothing to what the garbage collector traces.
+ *
+ * The memory is freed as soon as the tree is cleared or closed rather than
+ * when the garbage collector gets to it. A closed tree reads as empty and
+ * throws IllegalStateException on add until clear allocates its memory
+ * again. The LocationIndex numbering occurrences is still kept on the heap.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class OffHeapRadixTree extends ArenaRadixTree implements Closeable {
+
+    /**
+     * empty OffHeapRadixTree constructor
+     */
+    public OffHeapRadixTree() {
+        super(true);
+    }
+
+    /**
+     * empties the tree and frees all of its direct memory
+     */
+    @Override
+    public void close() {
+        clear();
+        release();
+    }
+}
@@ -0,0 +1,80 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Runs the StringRadixTree tests on OffHeapRadixTree
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class OffHeapRadixTreeTest extends StringRadixTreeTest {
+
+    @Override
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        return new OffHeapRadixTree();
+    }
+
+    /**
+     * Tests the tree is kept in direct memory until closed, reads as empty
+     * once closed, and refuses adds until cleared
+     */
+    @Test
+    public void testClose() {
+        OffHeapRadixTree tree = new OffHeapRadixTree();
+        assertTrue("testClose: arenas not direct", tree.isDirect());
+        tree.add(new StringRadixTreeElement("test"));
+        tree.add(new StringRadixTreeElement("team"));
+        tree.close();
+        assertFalse("testClose: arenas not freed", tree.isDirect());
+        assertTrue("testClose: closed tree not isEmpty()", tree.isEmpty());
+        assertFalse("testClose: closed tree contains element",
+                tree.contains(new StringRadixTreeElement("test")));
+        assertEquals("testClose: closed tree found element", -1,
+                tree.find(new StringRadixTreeElement("team")));
+        assertFalse("testClose: closed tree iterates",
+                tree.iterator().hasNext());
+        try {
+            tree.add(new StringRadixTreeElement("test"));
+            assertTrue("testClose: closed tree added", false);
+        } catch (IllegalStateException e) {
+            assertEquals("tree is closed", e.getMessage());
+        }
+        tree.close();
+        tree.clear();
+        assertTrue("testClose: cleared arenas not direct", tree.isDirect());
+        assertTrue("testClose: add after clear failed",
+                tree.add(new StringRadixTreeElement("test")));
+        assertEquals("testClose: size not correct after clear", 1,
+                tree.size());
+        tree.close();
+    }
+
+    /**
+     * Tests a direct store refuses to grow past what one buffer can hold
+     * instead of overflowing its size in bytes
+     */
+    @Test
+    public void testStoreLimit() {
+        ArenaStore store = new ArenaStore(true, true, 16);
+        assertTrue("testStoreLimit: store not direct", store.isDirect());
+        try {
+            store.ensureCapacity(Integer.MAX_VALUE / 2);
+            assertTrue("testStoreLimit: oversized store grown", false);
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("direct buffer"));
+        }
+        assertEquals("testStoreLimit: capacity changed", 16,
+                store.capacity());
+        store.set(15, 7);
+        assertEquals("testStoreLimit: value lost", 7, store.get(15));
+        store.free();
+        try {
+            new ArenaStore(true, false, Integer.MAX_VALUE);
+            assertTrue("testStoreLimit: oversized store allocated", false);
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("direct buffer"));
+        }
+    }
+}
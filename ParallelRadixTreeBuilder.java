@@ -0,0 +1,160 @@
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds a RadixTree of the whitespace separated words of a text on a
+ * ForkJoinPool. The text is split at whitespace into chunks, each chunk is
+ * built into its own tree, and the trees are merged in order of the chunks,
+ * which gives the same tree as adding every word in turn.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ParallelRadixTreeBuilder {
+    /**
+     * characters of text below which a chunk is built without splitting it
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * builder on the common pool with the default chunk size
+     */
+    public ParallelRadixTreeBuilder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * ParallelRadixTreeBuilder constructor
+     *
+     * @param pool pool to build on
+     * @param chunkSize characters of text below which a chunk is not split
+     */
+    public ParallelRadixTreeBuilder(ForkJoinPool pool, int chunkSize) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Builds a tree of the words of a UTF-8 file, reading it once through a
+     * MappedFileTokenizer. Each window of the file is built in parallel,
+     * its labels are compacted so the window's text can be collected, and
+     * it is merged after the windows before it.
+     *
+     * @param file file to read
+     * @return new RadixTree, word i of the file at location i
+     * @throws IOException if file cannot be read or is not UTF-8
+     */
+    public RadixTree<StringRadixTreeElement> build(File file)
+            throws IOException {
+        RadixTree<StringRadixTreeElement> result = new RadixTree<>();
+        try (MappedFileTokenizer windows = new MappedFileTokenizer(file)) {
+            String window = windows.nextWindow();
+            while (window != null) {
+                RadixTree<StringRadixTreeElement> windowTree = build(window);
+                windowTree.compactLabels();
+                result.merge(windowTree);
+                window = windows.nextWindow();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a tree of the words of text. Every word is a
+     * StringRadixTreeElement over text rather than a copy of it.
+     *
+     * @param text text to split into words
+     * @return new RadixTree, word i of text at location i
+     */
+    public RadixTree<StringRadixTreeElement> build(String text) {
+        if (text == null) {
+            return new RadixTree<>();
+        }
+        return pool.invoke(new BuildTask(text, 0, text.length()));
+    }
+
+    /**
+     * task building the tree of the words between start and end of text,
+     * where start and end are never inside a word
+     */
+    private class BuildTask
+            extends RecursiveTask<RadixTree<StringRadixTreeElement>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int start;
+        private final int end;
+
+        /**
+         * BuildTask constructor
+         *
+         * @param text whole text
+         * @param start index of text to start at
+         * @param end index of text after the last to read
+         */
+        private BuildTask(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected RadixTree<StringRadixTreeElement> compute() {
+            if (end - start > chunkSize) {
+                int middle = start + (end - start) / 2;
+                while (middle < end
+                        && !Character.isWhitespace(text.charAt(middle))) {
+                    middle++;
+                }
+                if (middle < end) {
+                    BuildTask first = new BuildTask(text, start, middle);
+                    BuildTask second = new BuildTask(text, middle, end);
+                    first.fork();
+                    RadixTree<StringRadixTreeElement> result = second.compute();
+                    RadixTree<StringRadixTreeElement> before = first.join();
+                    //words of second follow those of first
+                    before.merge(result);
+                    return before;
+                }
+            }
+            return RadixTree.build(words());
+        }
+
+        /**
+         * splits the chunk into words
+         *
+         * @return words of the chunk in order
+         */
+        private List<StringRadixTreeElement> words() {
+            List<StringRadixTreeElement> result = new ArrayList<>();
+            int i = start;
+            while (i < end) {
+                while (i < end && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                int wordStart = i;
+                while (i < end && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i > wordStart) {
+                    result.add(new StringRadixTreeElement(text, wordStart, i));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,1105 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable RadixTree. plus and minus return a new tree that copies only
+ * the nodes on the path they change, splits and merges included, and
+ * shares every other node and most of the slot index with this one, so
+ * each costs O(length of element + log n) however often element already
+ * occurs. A tree never changes once built: any number of threads may
+ * read it without locking, and keeping a version is just keeping a
+ * reference to it. The Collection methods that would change the tree
+ * throw UnsupportedOperationException.
+ *
+ * @param <V> generic that is instance of AbstractRadixTreeElement
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class PersistentRadixTree<V extends AbstractRadixTreeElement>
+        extends AbstractRadixTree<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * released slots tolerated beyond twice the live ones before they
+     * are compacted
+     */
+    private static final int COMPACT_SLACK = 64;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+    private final SlotTree slots;
+    private final int capacity; //slots the slot index can hold
+    private final int used; //last slot handed out
+    private final int size;
+
+    /**
+     * empty PersistentRadixTree constructor
+     */
+    public PersistentRadixTree() {
+        this(new Node(null, NO_CHILDREN, null, 0), null,
+                INITIAL_CAPACITY, 0, 0);
+    }
+
+    /**
+     * PersistentRadixTree constructor
+     *
+     * @param root root node
+     * @param slots live slots
+     * @param capacity slots the slot index can hold
+     * @param used last slot handed out
+     * @param size occurrences in the tree
+     */
+    private PersistentRadixTree(Node root, SlotTree slots, int capacity,
+            int used, int size) {
+        this.root = root;
+        this.slots = slots;
+        this.capacity = capacity;
+        this.used = used;
+        this.size = size;
+    }
+
+    /**
+     * tree with a new occurrence of newElement at location size + 1
+     *
+     * @param newElement element to add
+     * @return PersistentRadixTree with newElement added, this if it is
+     *         null
+     */
+    public PersistentRadixTree<V> plus(V newElement) {
+        if (newElement == null) {
+            return this;
+        }
+        int slot = used + 1;
+        SlotTree newSlots = slots;
+        int newCapacity = capacity;
+        if (slot == newCapacity) {
+            //the old slots become the lower half
+            newSlots = newSlots == null ? null : new SlotTree(
+                    newSlots.count, newSlots, null);
+            newCapacity *= 2;
+        }
+        newSlots = SlotTree.update(newSlots, 0, newCapacity, slot, 1);
+        Node start = root;
+        if (start.data == null) {
+            start = new Node(newElement.subSet(0, 0), start.children,
+                    start.slots, start.count);
+        }
+        return new PersistentRadixTree<>(addHelper(start, newElement, 0,
+                slot), newSlots, newCapacity, slot, size + 1);
+    }
+
+    /**
+     * tree with every element of c added in order
+     *
+     * @param c elements to add
+     * @return PersistentRadixTree with the elements added
+     */
+    public PersistentRadixTree<V> plusAll(Collection<? extends V> c) {
+        PersistentRadixTree<V> result = this;
+        if (c != null) {
+            for (V newElement : c) {
+                result = result.plus(newElement);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * tree without the last occurance of o
+     *
+     * @param o element to remove
+     * @return PersistentRadixTree with o removed, this if o is not in it
+     */
+    public PersistentRadixTree<V> minus(Object o) {
+        if (size == 0 || o == null
+                || !(o instanceof AbstractRadixTreeElement)) {
+            return this;
+        }
+        int[] removed = new int[1];
+        Node newRoot = removeHelper(root, (AbstractRadixTreeElement) o, 0,
+                removed, true);
+        if (newRoot == root) {
+            return this;
+        }
+        PersistentRadixTree<V> result = new PersistentRadixTree<>(newRoot,
+                SlotTree.update(slots, 0, capacity, removed[0], -1),
+                capacity, used, size - 1);
+        if (used > 2 * result.size + COMPACT_SLACK) {
+            result = result.compact();
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * finds first location of element
+     *
+     * @param element element to be found
+     * @return int location of first occurance, -1 if not in tree
+     */
+    @Override
+    public int find(V element) {
+        Node node = findHelper(element);
+        if (node == null) {
+            return -1;
+        }
+        return SlotTree.rank(slots, 0, capacity, node.slots.first);
+    }
+
+    /**
+     * finds all locations of element
+     *
+     * @param element element to be found
+     * @return list of int locations or null if not in tree
+     */
+    @Override
+    public List<Integer> findAll(V element) {
+        Node node = findHelper(element);
+        if (node == null) {
+            return null;
+        }
+        LocationList result = new LocationList(node.slots.length);
+        for (int slot : Slots.toArray(node.slots)) {
+            result.addInt(SlotTree.rank(slots, 0, capacity, slot));
+        }
+        return result;
+    }
+
+    /**
+     * elements in order of occurance
+     *
+     * @return Object array of elements
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        if (size > 0) {
+            toArrayHelper(result, root, root.data);
+        }
+        return result;
+    }
+
+    /**
+     * iterates over every occurrence in order of elements
+     *
+     * @return Iterator over elements
+     */
+    @Override
+    public Iterator<V> iterator() {
+        AscendingIterator result = new AscendingIterator(false, null,
+                false);
+        if (size > 0) {
+            result.push(root, root.data, -1);
+        }
+        result.advance();
+        return result;
+    }
+
+    /**
+     * iterates over distinct elements in order
+     *
+     * @param from lowest element, or null to start at the first
+     * @param fromInclusive if from itself may be returned
+     * @param to highest element, or null to go to the last
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
+     */
+    @Override
+    Iterator<V> keyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        AscendingIterator result = new AscendingIterator(true, to,
+                toInclusive);
+        if (size > 0 && from == null) {
+            result.push(root, root.data, -1);
+        } else if (size > 0) {
+            result.seek(from, fromInclusive);
+        }
+        result.advance();
+        return result;
+    }
+
+    /**
+     * iterates over distinct elements in reverse order
+     *
+     * @param from highest element, or null to start at the last
+     * @param fromInclusive if from itself may be returned
+     * @param to lowest element, or null to go to the first
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
+     */
+    @Override
+    Iterator<V> descendingKeyIterator(V from,
+            boolean fromInclusive, V to, boolean toInclusive) {
+        DescendingIterator result = new DescendingIterator(to,
+                toInclusive);
+        if (size > 0 && from == null) {
+            result.push(root, root.data, root.children.length - 1, true);
+        } else if (size > 0) {
+            result.seek(from, fromInclusive);
+        }
+        result.advance();
+        return result;
+    }
+
+    /**
+     * iterates over every occurrence of elements starting with prefix
+     *
+     * @param prefix start of elements
+     * @return Iterator over elements starting with prefix
+     */
+    @Override
+    public Iterator<V> prefixIterator(V prefix) {
+        AbstractRadixTreeElement[] key = new AbstractRadixTreeElement[1];
+        Node node = prefixHelper(prefix, key);
+        if (node == null) {
+            return Collections.emptyIterator();
+        }
+        AscendingIterator result = new AscendingIterator(false, null,
+                false);
+        result.push(node, key[0], -1);
+        result.advance();
+        return result;
+    }
+
+    /**
+     * counts occurrences of elements starting with prefix
+     *
+     * @param prefix start of elements
+     * @return int number of occurrences
+     */
+    @Override
+    public int countWithPrefix(V prefix) {
+        Node node = prefixHelper(prefix, new AbstractRadixTreeElement[1]);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * counts occurrences of elements less than element
+     *
+     * @param element element to count up to
+     * @return int number of occurrences less than element
+     */
+    @Override
+    public int rank(V element) {
+        int result = 0;
+        if (element == null || size == 0) {
+            return result;
+        }
+        Node node = root;
+        int start = 0; //element before start is already matched
+        while (start < element.length()) {
+            //node is a prefix of element
+            result += Slots.length(node.slots);
+            int i = childIndex(node, element.symbolAt(start));
+            int lesser = i < 0 ? -i - 1 : i;
+            for (int j = 0; j < lesser; j++) {
+                result += node.children[j].count;
+            }
+            if (i < 0) {
+                return result;
+            }
+            Node child = node.children[i];
+            int comparison = child.data.mismatch(element, start);
+            if (comparison < child.data.length()) {
+                if (start + comparison < element.length()
+                        && child.data.symbolAt(comparison)
+                        < element.symbolAt(start + comparison)) {
+                    result += child.count;
+                }
+                return result;
+            }
+            start += comparison;
+            node = child;
+        }
+        return result;
+    }
+
+    /**
+     * finds the element at a position in order of elements
+     *
+     * @param position int index starting at 0
+     * @return element at position or null if out of range
+     */
+    @Override
+    public V select(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        Node node = root;
+        AbstractRadixTreeElement key = root.data;
+        while (position >= Slots.length(node.slots)) {
+            position -= Slots.length(node.slots);
+            for (Node child : node.children) {
+                if (position < child.count) {
+                    key = key.append(child.data);
+                    node = child;
+                    break;
+                }
+                position -= child.count;
+            }
+        }
+        return asElement(key);
+    }
+
+    /**
+     * Gives a key put back together from labels the element type. Every
+     * label was cut from an added V by subSet, and appending them gives
+     * the same kind of element again.
+     *
+     * @param key element leading to a node
+     * @return V key
+     */
+    @SuppressWarnings("unchecked")
+    private V asElement(AbstractRadixTreeElement key) {
+        return (V) key;
+    }
+
+    /**
+     * finds all locations of elements starting with prefix
+     *
+     * @param prefix start of elements
+     * @return sorted list of int locations or null if there are none
+     */
+    @Override
+    public List<Integer> findAllWithPrefix(V prefix) {
+        Node node = prefixHelper(prefix, new AbstractRadixTreeElement[1]);
+        if (node == null || node.count == 0) {
+            return null;
+        }
+        LocationList result = new LocationList(node.count);
+        findAllHelper(node, result);
+        result.sort();
+        return result;
+    }
+
+    /**
+     * finds the node holding element
+     *
+     * @param element element to find
+     * @return Node holding element, or null if element is not in tree
+     */
+    private Node findHelper(V element) {
+        if (element == null || size == 0) {
+            return null;
+        }
+        Node node = root;
+        int start = 0; //element before start is already matched
+        while (start < element.length()) {
+            int i = childIndex(node, element.symbolAt(start));
+            if (i < 0) {
+                return null;
+            }
+            node = node.children[i];
+            if (node.data.mismatch(element, start)
+                    < node.data.length()) {
+                return null;
+            }
+            start += node.data.length();
+        }
+        return node.slots != null ? node : null;
+    }
+
+    /**
+     * Helper for prefix methods, finds the highest node whose elements
+     * all start with prefix
+     *
+     * @param prefix start of elements
+     * @param key set to the element leading to the node found
+     * @return Node found, null if no element starts with prefix
+     */
+    private Node prefixHelper(V prefix, AbstractRadixTreeElement[] key) {
+        if (prefix == null || size == 0) {
+            return null;
+        }
+        Node node = root;
+        int start = 0; //prefix before start is already matched
+        while (start < prefix.length()) {
+            int i = childIndex(node, prefix.symbolAt(start));
+            if (i < 0) {
+                return null;
+            }
+            Node child = node.children[i];
+            int comparison = child.data.mismatch(prefix, start);
+            if (start + comparison == prefix.length()) {
+                //prefix ends inside or at the end of child
+                key[0] = prefix.subSet(0, start).append(child.data);
+                return child;
+            } else if (comparison < child.data.length()) {
+                return null;
+            }
+            start += comparison;
+            node = child;
+        }
+        key[0] = root.data;
+        return node;
+    }
+
+    /**
+     * Helper for add, returns a copy of node with a new occurrence of
+     * element, whose symbols before start lead to node
+     *
+     * @param node               node to add below
+     * @param element            element to add
+     * @param start              position in element node ends at
+     * @param slot               slot of the new occurrence
+     * @return Node copied
+     */
+    private static Node addHelper(Node node, AbstractRadixTreeElement
+            element, int start, int slot) {
+        if (start == element.length()) {
+            return new Node(node.data, node.children, new Slots(slot,
+                    node.slots), node.count + 1);
+        }
+        int i = childIndex(node, element.symbolAt(start));
+        if (i < 0) {
+            //CASE1: NO MATCH, new leaf
+            Node leaf = new Node(element.subSet(start, element.length()),
+                    NO_CHILDREN, new Slots(slot, null), 1);
+            return new Node(node.data, insert(node.children, -i - 1,
+                    leaf), node.slots, node.count + 1);
+        }
+        Node child = node.children[i];
+        int comparison = child.data.mismatch(element, start);
+        if (comparison < child.data.length()) {
+            //CASE2: PART OF CHILD IN ELEMENT, split child
+            Node lower = new Node(child.data.subSet(comparison,
+                    child.data.length()), child.children, child.slots,
+                    child.count);
+            child = new Node(child.data.subSet(0, comparison),
+                    new Node[] {lower}, null, child.count);
+        }
+        Node[] children = node.children.clone();
+        children[i] = addHelper(child, element, start + comparison,
+                slot);
+        return new Node(node.data, children, node.slots,
+                node.count + 1);
+    }
+
+    /**
+     * Helper for remove, returns a copy of node without the last
+     * occurrence of element, merging a node left with one child and no
+     * occurrences into the child
+     *
+     * @param node               node to remove below
+     * @param element            element to remove
+     * @param start              position in element node ends at
+     * @param removed            set to the slot removed
+     * @param isRoot             if node is root, which is kept
+     * @return Node copied, node itself if element is not below it, null
+     *         if the node is left empty
+     */
+    private static Node removeHelper(Node node, AbstractRadixTreeElement
+            element, int start, int[] removed, boolean isRoot) {
+        Node result;
+        if (start == element.length()) {
+            if (node.slots == null) {
+                return node;
+            }
+            removed[0] = node.slots.slot;
+            result = new Node(node.data, node.children, node.slots.previous,
+                    node.count - 1);
+        } else {
+            int i = childIndex(node, element.symbolAt(start));
+            if (i < 0) {
+                return node;
+            }
+            Node child = node.children[i];
+            int comparison = child.data.mismatch(element, start);
+            if (comparison < child.data.length()) {
+                return node;
+            }
+            Node newChild = removeHelper(child, element,
+                    start + comparison, removed, false);
+            if (newChild == child) {
+                return node;
+            }
+            Node[] children;
+            if (newChild == null) {
+                children = new Node[node.children.length - 1];
+                System.arraycopy(node.children, 0, children, 0, i);
+                System.arraycopy(node.children, i + 1, children, i,
+                        children.length - i);
+            } else {
+                children = node.children.clone();
+                children[i] = newChild;
+            }
+            result = new Node(node.data, children, node.slots,
+                    node.count - 1);
+        }
+        if (!isRoot && result.slots == null) {
+            if (result.children.length == 0) {
+                //node must be removed
+                return null;
+            } else if (result.children.length == 1) {
+                //append only child
+                Node only = result.children[0];
+                return new Node(result.data.append(only.data),
+                        only.children, only.slots, only.count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * renumbers every slot to its location, dropping released slots
+     *
+     * @return PersistentRadixTree with slots 1 to size
+     */
+    private PersistentRadixTree<V> compact() {
+        int newCapacity = INITIAL_CAPACITY;
+        while (newCapacity <= size) {
+            newCapacity *= 2;
+        }
+        SlotTree newSlots = null;
+        for (int slot = 1; slot <= size; slot++) {
+            newSlots = SlotTree.update(newSlots, 0, newCapacity, slot, 1);
+        }
+        return new PersistentRadixTree<>(compactHelper(root), newSlots,
+                newCapacity, size, size);
+    }
+
+    /**
+     * Helper for compact, copies node with slots turned into locations
+     *
+     * @param node               node to copy
+     * @return Node copied
+     */
+    private Node compactHelper(Node node) {
+        Slots newSlots = null;
+        for (int slot : Slots.toArray(node.slots)) {
+            newSlots = new Slots(SlotTree.rank(slots, 0, capacity, slot),
+                    newSlots);
+        }
+        Node[] children = new Node[node.children.length];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = compactHelper(node.children[i]);
+        }
+        return new Node(node.data, children.length == 0 ? NO_CHILDREN
+                : children, newSlots, node.count);
+    }
+
+    /**
+     * Helper for toArray method
+     *
+     * @param array              array to fill
+     * @param node               current node
+     * @param key                element leading to node
+     */
+    private void toArrayHelper(Object[] array, Node node,
+            AbstractRadixTreeElement key) {
+        for (int slot : Slots.toArray(node.slots)) {
+            array[SlotTree.rank(slots, 0, capacity, slot) - 1] = key;
+        }
+        for (Node child : node.children) {
+            toArrayHelper(array, child, key.append(child.data));
+        }
+    }
+
+    /**
+     * Helper for findAllWithPrefix method
+     *
+     * @param node               current node
+     * @param result             list to add locations to
+     */
+    private void findAllHelper(Node node, LocationList result) {
+        for (int slot : Slots.toArray(node.slots)) {
+            result.addInt(SlotTree.rank(slots, 0, capacity, slot));
+        }
+        for (Node child : node.children) {
+            findAllHelper(child, result);
+        }
+    }
+
+    /**
+     * finds the child of node whose label starts with symbol
+     *
+     * @param node               node to search
+     * @param symbol             first symbol of label
+     * @return int index of child, or -(insertion point) - 1 if there is
+     *         none
+     */
+    private static int childIndex(Node node, int symbol) {
+        int low = 0;
+        int high = node.children.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int first = node.children[middle].data.symbolAt(0);
+            if (first < symbol) {
+                low = middle + 1;
+            } else if (first > symbol) {
+                high = middle;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * copy of children with child inserted at i
+     *
+     * @param children           children to copy
+     * @param i                  index of new child
+     * @param child              new child
+     * @return Node array
+     */
+    private static Node[] insert(Node[] children, int i, Node child) {
+        Node[] result = new Node[children.length + 1];
+        System.arraycopy(children, 0, result, 0, i);
+        result[i] = child;
+        System.arraycopy(children, i, result, i + 1, children.length - i);
+        return result;
+    }
+
+    /**
+     * Iterator over the tree in order of elements, keeping the nodes
+     * from the start node down to the current one on a stack with the
+     * next child of each to visit
+     */
+    private class AscendingIterator implements Iterator<V> {
+        private final boolean distinct;
+        private final V to;
+        private final boolean toInclusive;
+        private Node[] nodes;
+        private AbstractRadixTreeElement[] keys;
+        private int[] nextChild; //-1 while the node itself is next
+        private int depth;
+        private V next;
+        private int remaining;
+
+        /**
+         * AscendingIterator constructor, with nothing on the stack
+         *
+         * @param distinct if each element is returned once
+         * @param to highest element, or null to go to the last
+         * @param toInclusive if to itself may be returned
+         */
+        private AscendingIterator(boolean distinct, V to,
+                boolean toInclusive) {
+            this.distinct = distinct;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            nodes = new Node[INITIAL_CAPACITY];
+            keys = new AbstractRadixTreeElement[INITIAL_CAPACITY];
+            nextChild = new int[INITIAL_CAPACITY];
+            depth = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V result = next;
+            remaining--;
+            if (remaining == 0) {
+                advance();
+            }
+            return result;
+        }
+
+        /**
+         * finds the next element with occurrences, or sets next to
+         * null if there is none
+         */
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int child = nextChild[depth];
+                if (child < 0) {
+                    nextChild[depth] = 0;
+                    if (node.slots != null) {
+                        V element = asElement(keys[depth]);
+                        if (to != null && (toInclusive
+                                ? element.compareTo(to) > 0
+                                : element.compareTo(to) >= 0)) {
+                            depth = -1;
+                            return;
+                        }
+                        next = element;
+                        remaining = distinct ? 1 : node.slots.length;
+                        return;
+                    }
+                } else if (child < node.children.length) {
+                    nextChild[depth] = child + 1;
+                    Node childNode = node.children[child];
+                    push(childNode, keys[depth].append(childNode.data),
+                            -1);
+                } else {
+                    depth--;
+                }
+            }
+        }
+
+        /**
+         * puts the stack where the first element greater than from, or
+         * equal if inclusive, is next
+         *
+         * @param from element to start at
+         * @param inclusive if from itself may be returned
+         */
+        private void seek(V from, boolean inclusive) {
+            Node node = root;
+            AbstractRadixTreeElement key = root.data;
+            int start = 0; //from before start is already matched
+            while (start < from.length()) {
+                //node is a prefix of from, so it is less
+                int i = childIndex(node, from.symbolAt(start));
+                if (i < 0) {
+                    push(node, key, -i - 1);
+                    return;
+                }
+                Node child = node.children[i];
+                int comparison = child.data.mismatch(from, start);
+                if (comparison < child.data.length()) {
+                    boolean greater = start + comparison == from.length()
+                            || child.data.symbolAt(comparison)
+                            > from.symbolAt(start + comparison);
+                    push(node, key, greater ? i : i + 1);
+                    return;
+                }
+                push(node, key, i + 1);
+                key = key.append(child.data);
+                node = child;
+                start += comparison;
+            }
+            push(node, key, inclusive ? -1 : 0);
+        }
+
+        /**
+         * pushes node onto the stack
+         *
+         * @param node node to push
+         * @param key element leading to node
+         * @param child next child of node to visit, -1 for node itself
+         */
+        private void push(Node node, AbstractRadixTreeElement key,
+                int child) {
+            depth++;
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                keys = Arrays.copyOf(keys, depth * 2);
+                nextChild = Arrays.copyOf(nextChild, depth * 2);
+            }
+            nodes[depth] = node;
+            keys[depth] = key;
+            nextChild[depth] = child;
+        }
+    }
+
+    /**
+     * Iterator over the distinct elements of the tree from highest
+     * to lowest. A node comes after its children, so each node on the
+     * stack keeps the next child to visit, counting down, and if the
+     * node itself is still to be returned.
+     */
+    private class DescendingIterator implements Iterator<V> {
+        private final V to;
+        private final boolean toInclusive;
+        private Node[] nodes;
+        private AbstractRadixTreeElement[] keys;
+        private int[] nextChild; //-1 once every child is visited
+        private boolean[] self;
+        private int depth;
+        private V next;
+
+        /**
+         * DescendingIterator constructor, with nothing on the stack
+         *
+         * @param to lowest element, or null to go to the first
+         * @param toInclusive if to itself may be returned
+         */
+        private DescendingIterator(V to, boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            nodes = new Node[INITIAL_CAPACITY];
+            keys = new AbstractRadixTreeElement[INITIAL_CAPACITY];
+            nextChild = new int[INITIAL_CAPACITY];
+            self = new boolean[INITIAL_CAPACITY];
+            depth = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V result = next;
+            advance();
+            return result;
+        }
+
+        /**
+         * finds the next element with occurrences, or sets next to
+         * null if there is none
+         */
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int child = nextChild[depth];
+                if (child >= 0) {
+                    nextChild[depth] = child - 1;
+                    Node childNode = node.children[child];
+                    push(childNode, keys[depth].append(childNode.data),
+                            childNode.children.length - 1, true);
+                } else {
+                    boolean found = self[depth] && node.slots != null;
+                    V element = asElement(keys[depth]);
+                    depth--;
+                    if (found) {
+                        if (to != null && (toInclusive
+                                ? element.compareTo(to) < 0
+                                : element.compareTo(to) <= 0)) {
+                            depth = -1;
+                            return;
+                        }
+                        next = element;
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * puts the stack where the last element less than from, or
+         * equal if inclusive, is next
+         *
+         * @param from element to start at
+         * @param inclusive if from itself may be returned
+         */
+        private void seek(V from, boolean inclusive) {
+            Node node = root;
+            AbstractRadixTreeElement key = root.data;
+            int start = 0; //from before start is already matched
+            while (start < from.length()) {
+                //node is a prefix of from, so it is less
+                int i = childIndex(node, from.symbolAt(start));
+                if (i < 0) {
+                    push(node, key, -i - 2, true);
+                    return;
+                }
+                Node child = node.children[i];
+                int comparison = child.data.mismatch(from, start);
+                if (comparison < child.data.length()) {
+                    boolean greater = start + comparison == from.length()
+                            || child.data.symbolAt(comparison)
+                            > from.symbolAt(start + comparison);
+                    push(node, key, greater ? i - 1 : i, true);
+                    return;
+                }
+                push(node, key, i - 1, true);
+                key = key.append(child.data);
+                node = child;
+                start += comparison;
+            }
+            push(node, key, -1, inclusive);
+        }
+
+        /**
+         * pushes node onto the stack
+         *
+         * @param node node to push
+         * @param key element leading to node
+         * @param child last child of node still to visit, or -1
+         * @param returnNode if node itself is still to be returned
+         */
+        private void push(Node node, AbstractRadixTreeElement key,
+                int child, boolean returnNode) {
+            depth++;
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                keys = Arrays.copyOf(keys, depth * 2);
+                nextChild = Arrays.copyOf(nextChild, depth * 2);
+                self = Arrays.copyOf(self, depth * 2);
+            }
+            nodes[depth] = node;
+            keys[depth] = key;
+            nextChild[depth] = child;
+            self[depth] = returnNode;
+        }
+    }
+
+    /**
+     * Immutable node. Its children are sorted by the first symbol of their
+     * labels and its slots are in order of occurance. A node other than
+     * root holds occurrences or has at least two children.
+     */
+    private static final class Node {
+        private final AbstractRadixTreeElement data;
+        private final Node[] children;
+        private final Slots slots; //null if no occurrence ends here
+        private final int count; //occurrences in this node and all below it
+
+        /**
+         * Node constructor
+         *
+         * @param data label of node
+         * @param children children sorted by first symbol
+         * @param slots slots of occurrences ending at node, or null
+         * @param count occurrences in node and all below it
+         */
+        private Node(AbstractRadixTreeElement data, Node[] children,
+                Slots slots, int count) {
+            this.data = data;
+            this.children = children;
+            this.slots = slots;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Immutable list of the slots of a node in order of occurance, kept as
+     * a chain of cells from the last slot back to the first. Adding or
+     * removing the last slot makes or drops one cell and shares the rest
+     * with the version before, so a word that already occurs k times costs
+     * O(1) to add again instead of a copy of all k slots. Each cell also
+     * knows the first slot and the length of the list, so find needs no
+     * walk. An empty list is null.
+     */
+    private static final class Slots {
+        private final int slot;
+        private final Slots previous;
+        private final int first;
+        private final int length;
+
+        /**
+         * Slots constructor
+         *
+         * @param slot last slot
+         * @param previous slots before it, or null
+         */
+        private Slots(int slot, Slots previous) {
+            this.slot = slot;
+            this.previous = previous;
+            first = previous == null ? slot : previous.first;
+            length = previous == null ? 1 : previous.length + 1;
+        }
+
+        /**
+         * number of slots in a list
+         *
+         * @param slots list, may be null
+         * @return int number of slots
+         */
+        private static int length(Slots slots) {
+            return slots == null ? 0 : slots.length;
+        }
+
+        /**
+         * slots of a list in order of occurance
+         *
+         * @param slots list, may be null
+         * @return int array of slots
+         */
+        private static int[] toArray(Slots slots) {
+            int[] result = new int[length(slots)];
+            for (Slots cell = slots; cell != null; cell = cell.previous) {
+                result[cell.length - 1] = cell.slot;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Immutable segment tree counting the live slots of a range, changed by
+     * copying the path to one slot. A null tree counts nothing.
+     */
+    private static final class SlotTree {
+        private final int count;
+        private final SlotTree left;
+        private final SlotTree right;
+
+        /**
+         * SlotTree constructor
+         *
+         * @param count live slots in range
+         * @param left lower half of range
+         * @param right upper half of range
+         */
+        private SlotTree(int count, SlotTree left, SlotTree right) {
+            this.count = count;
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * copy of tree over low to high with delta added to slot
+         *
+         * @param tree tree to copy, may be null
+         * @param low first slot of range
+         * @param high slot after the last of range
+         * @param slot slot to change
+         * @param delta 1 to make slot live, -1 to release it
+         * @return SlotTree copied, null if it counts nothing
+         */
+        private static SlotTree update(SlotTree tree, int low, int high,
+                int slot, int delta) {
+            int count = (tree == null ? 0 : tree.count) + delta;
+            if (count == 0) {
+                return null;
+            } else if (high - low == 1) {
+                return new SlotTree(count, null, null);
+            }
+            int middle = (low + high) >>> 1;
+            SlotTree left = tree == null ? null : tree.left;
+            SlotTree right = tree == null ? null : tree.right;
+            if (slot < middle) {
+                left = update(left, low, middle, slot, delta);
+            } else {
+                right = update(right, middle, high, slot, delta);
+            }
+            return new SlotTree(count, left, right);
+        }
+
+        /**
+         * counts live slots up to and including slot, which is its location
+         *
+         * @param tree tree over low to high
+         * @param low first slot of range
+         * @param high slot after the last of range
+         * @param slot slot to count up to
+         * @return int live slots up to slot
+         */
+        private static int rank(SlotTree tree, int low, int high, int slot) {
+            int result = 0;
+            while (tree != null && high - low > 1) {
+                int middle = (low + high) >>> 1;
+                if (slot < middle) {
+                    tree = tree.left;
+                    high = middle;
+                } else {
+                    result += tree.left == null ? 0 : tree.left.count;
+                    tree = tree.right;
+                    low = middle;
+                }
+            }
+            return result + (tree == null ? 0 : tree.count);
+        }
+    }
+}
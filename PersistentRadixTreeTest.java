@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for PersistentRadixTree, checking that every version keeps
+ * answering as it did when it was built
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class PersistentRadixTreeTest {
+    private static final int VERSIONS = 400;
+
+    /**
+     * Tests that plus and minus leave the tree they are called on as it
+     * was, through splits of an edge and merges after a remove
+     */
+    @Test
+    public void testOldVersionsUnchanged() {
+        PersistentRadixTree<StringRadixTreeElement> empty =
+                new PersistentRadixTree<>();
+        PersistentRadixTree<StringRadixTreeElement> one =
+                empty.plus(new StringRadixTreeElement("test"));
+        //splits "test" at "te"
+        PersistentRadixTree<StringRadixTreeElement> two =
+                one.plus(new StringRadixTreeElement("team"));
+        //merges "te" and "st" back together
+        PersistentRadixTree<StringRadixTreeElement> three =
+                two.minus(new StringRadixTreeElement("team"));
+        assertEquals("testOldVersionsUnchanged: empty changed", 0,
+                empty.size());
+        assertEquals("testOldVersionsUnchanged: one changed",
+                Arrays.asList("test"), strings(one));
+        assertEquals("testOldVersionsUnchanged: two changed",
+                Arrays.asList("team", "test"), strings(two));
+        assertEquals("testOldVersionsUnchanged: three not correct",
+                Arrays.asList("test"), strings(three));
+        assertEquals("testOldVersionsUnchanged: location not kept", 2,
+                two.find(new StringRadixTreeElement("team")));
+        assertEquals("testOldVersionsUnchanged: location not kept", -1,
+                three.find(new StringRadixTreeElement("team")));
+        assertSame("testOldVersionsUnchanged: missing element removed",
+                three, three.minus(new StringRadixTreeElement("team")));
+    }
+
+    /**
+     * Tests many versions built one from another against RadixTrees
+     * built alongside them
+     */
+    @Test
+    public void testVersionsMatchRadixTree() {
+        Random random = new Random(18);
+        List<PersistentRadixTree<StringRadixTreeElement>> versions =
+                new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        RadixTree<StringRadixTreeElement> model = new RadixTree<>();
+        PersistentRadixTree<StringRadixTreeElement> tree =
+                new PersistentRadixTree<>();
+        for (int i = 0; i < VERSIONS; i++) {
+            StringRadixTreeElement element = new StringRadixTreeElement(
+                    Integer.toString(random.nextInt(200), 3));
+            if (random.nextInt(3) == 0) {
+                tree = tree.minus(element);
+                model.remove(element);
+            } else {
+                tree = tree.plus(element);
+                model.add(element);
+            }
+            versions.add(tree);
+            expected.add(strings(model));
+        }
+        for (int i = 0; i < VERSIONS; i++) {
+            assertEquals("testVersionsMatchRadixTree: version " + i
+                    + " changed", expected.get(i), strings(versions.get(i)));
+        }
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals("testVersionsMatchRadixTree: select not correct",
+                    model.select(i), tree.select(i));
+        }
+        for (StringRadixTreeElement element : model.keySet()) {
+            assertEquals("testVersionsMatchRadixTree: findAll not correct",
+                    model.findAll(element), tree.findAll(element));
+        }
+    }
+
+    /**
+     * Tests that a snapshot of a ConcurrentRadixTree is not changed by
+     * writes after it
+     */
+    @Test
+    public void testSnapshot() {
+        ConcurrentRadixTree<StringRadixTreeElement> tree =
+                new ConcurrentRadixTree<>();
+        tree.add(new StringRadixTreeElement("four"));
+        tree.add(new StringRadixTreeElement("score"));
+        PersistentRadixTree<StringRadixTreeElement> snapshot =
+                tree.snapshot();
+        tree.add(new StringRadixTreeElement("seven"));
+        tree.remove(new StringRadixTreeElement("four"));
+        assertEquals("testSnapshot: snapshot changed",
+                Arrays.asList("four", "score"), strings(snapshot));
+        assertEquals("testSnapshot: tree not correct",
+                Arrays.asList("score", "seven"), strings(tree));
+        assertTrue("testSnapshot: snapshot lost element",
+                snapshot.contains(new StringRadixTreeElement("four")));
+    }
+
+    /**
+     * Tests that the Collection methods that would change the tree are
+     * not supported
+     */
+    @Test
+    public void testUnsupported() {
+        PersistentRadixTree<StringRadixTreeElement> tree =
+                new PersistentRadixTree<StringRadixTreeElement>()
+                .plus(new StringRadixTreeElement("ago"));
+        try {
+            tree.add(new StringRadixTreeElement("years"));
+            assertTrue("testUnsupported: add allowed", false);
+        } catch (UnsupportedOperationException e) {
+            assertFalse("testUnsupported: add changed tree",
+                    tree.contains(new StringRadixTreeElement("years")));
+        }
+        try {
+            tree.remove(new StringRadixTreeElement("ago"));
+            assertTrue("testUnsupported: remove allowed", false);
+        } catch (UnsupportedOperationException e) {
+            assertEquals("testUnsupported: remove changed tree", 1,
+                    tree.size());
+        }
+    }
+
+    /**
+     * Tests adding and removing one word many times, between other words,
+     * against the locations each version should hold
+     */
+    @Test
+    public void testRepeatedWord() {
+        StringRadixTreeElement the = new StringRadixTreeElement("the");
+        StringRadixTreeElement of = new StringRadixTreeElement("of");
+        List<PersistentRadixTree<StringRadixTreeElement>> versions =
+                new ArrayList<>();
+        List<List<Integer>> expected = new ArrayList<>();
+        PersistentRadixTree<StringRadixTreeElement> tree =
+                new PersistentRadixTree<>();
+        List<Integer> locations = new ArrayList<>();
+        for (int i = 1; i <= 20000; i++) {
+            if (i % 3 == 0) {
+                tree = tree.plus(of);
+            } else {
+                tree = tree.plus(the);
+                locations.add(i);
+            }
+            if (i % 1000 == 0) {
+                versions.add(tree);
+                expected.add(new ArrayList<>(locations));
+            }
+        }
+        for (int i = 0; i < 10000; i++) {
+            tree = tree.minus(the);
+            locations.remove(locations.size() - 1);
+            if (i % 1000 == 999) {
+                versions.add(tree);
+                expected.add(new ArrayList<>(locations));
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals("testRepeatedWord: findAll not correct",
+                    expected.get(i), versions.get(i).findAll(the));
+            assertEquals("testRepeatedWord: find not correct", 1,
+                    versions.get(i).find(the));
+            assertEquals("testRepeatedWord: count not correct",
+                    expected.get(i).size(),
+                    versions.get(i).size() - versions.get(i).findAll(of)
+                    .size());
+        }
+    }
+
+    /**
+     * elements of tree in order as strings
+     *
+     * @param tree tree to list
+     * @return list of strings
+     */
+    private static List<String> strings(
+            AbstractRadixTree<StringRadixTreeElement> tree) {
+        List<String> result = new ArrayList<>();
+        for (StringRadixTreeElement element : tree) {
+            result.add(element.toString());
+        }
+        return result;
+    }
+}
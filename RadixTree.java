@@ -1,8 +1,17 @@
-import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * class for Radix Trees of generic type that extends AbstractRadixTreeElement
@@ -12,21 +21,123 @@ import java.util.List;
  * @version 1.0
  */
 public class RadixTree<V extends AbstractRadixTreeElement>
-        extends AbstractCollection<V> {
-    private final RadixTreeNode<V> root;
+        extends AbstractRadixTree<V> {
+    /**
+     * most children a node keeps in sorted arrays before it switches to a
+     * table indexed by symbol
+     */
+    private static final int SORTED_LIMIT = 16;
+
+    /**
+     * size of the table indexed by symbol, one slot per byte value
+     */
+    private static final int DIRECT_SIZE = 256;
+
+    /**
+     * released slots tolerated beyond the live ones before locations are
+     * renumbered
+     */
+    private static final int COMPACT_SLACK = 64;
+
+    /**
+     * estimated bytes of a node, its children and its LocationList, of
+     * the element labelling it without its source, and of a String without
+     * its array, on a 64-bit JVM with compressed references
+     */
+    private static final int NODE_BYTES = 32;
+    private static final int CHILDREN_BYTES = 40;
+    private static final int LOCATION_LIST_BYTES = 24;
+    private static final int LABEL_BYTES = 32;
+    private static final int STRING_BYTES = 24;
+
+    /**
+     * estimated bytes of an array header
+     */
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final RadixTreeNode root;
+    private final LocationIndex index;
     private int size;
+    private int modCount;
+    private RadixTreeListener listener;
+    private Map<V, RadixTreeNode> cache; //holders of elements looked up
 
     /**
      * emtry RadixTree constructor
      */
     public RadixTree() {
         root = new RadixTreeNode(null);
+        index = new LocationIndex();
         size = 0;
     }
 
+    /**
+     * Builds a tree holding elements at locations 1 to elements.size() in
+     * the order given, the same tree adding each in turn would build. The
+     * elements are sorted, which costs O(n) if they are already in order,
+     * and the tree is then laid out in one pass over them.
+     *
+     * @param <V> generic that is instance of AbstractRadixTreeElement
+     * @param elements elements in order of occurance
+     * @return new RadixTree
+     */
+    public static <V extends AbstractRadixTreeElement> RadixTree<V> build(
+            Collection<? extends V> elements) {
+        RadixTree<V> result = new RadixTree<>();
+        if (elements != null) {
+            result.bulkLoad(elements);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the listener told of the work each find, add, remove and
+     * compaction of locations does. Listeners are only called when the
+     * JVM is started with -Dradixtree.metrics=true, and otherwise the
+     * counting is compiled away.
+     *
+     * @param listener listener to tell, or null for none
+     */
+    public void setListener(RadixTreeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Keeps the node holding the locations of the last capacity elements
+     * looked up by find, findAll and contains, so looking one up again
+     * skips the descent from root. The least recently used element is
+     * dropped when the cache is full, and an element is dropped as soon as
+     * an add or remove moves its locations to another node. Lookups then
+     * change the cache, so a tree with one must not be read by several
+     * threads at once.
+     *
+     * @param capacity elements to keep, or 0 for no cache
+     */
+    public void setCacheSize(final int capacity) {
+        if (capacity > 0) {
+            cache = new LinkedHashMap<V, RadixTreeNode>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<V, RadixTreeNode> eldest) {
+                    return size() > capacity;
+                }
+            };
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in sorted order, each as many
+     * times as it occurs. Before the iterator was made lazy it returned
+     * them in the order they were added, as toArray still does, so callers
+     * that relied on that order should use toArray instead.
+     *
+     * @return Iterator over the elements in sorted order
+     */
     @Override
     public Iterator<V> iterator() {
-        return new RadixTreeIterator<V>();
+        return new RadixTreeIterator();
     }
 
     @Override
@@ -39,155 +150,212 @@ public class RadixTree<V extends AbstractRadixTreeElement>
         return size == 0;
     }
 
-    @Override
-    public boolean contains(Object o) {
-        if (o != null && o instanceof AbstractRadixTreeElement) {
-            return find((V) o) >= 0;
-        }
-        return false;
-    }
-
-
     @Override
     public Object[] toArray() {
         Object[] result = new Object[size];
         if (!isEmpty()) {
-            toArrayHelper(result, (V) root.children.peek().data.subSet(0, 0),
+            toArrayHelper(result, root.children.peek().data.subSet(0, 0),
                     root);
         }
         return result;
     }
 
-    /**
-     * Returns array of elements in order of occurance.
-    */
     @Override
-    public <T> T[] toArray(T[] a) {
-        if (a != null) {
-            if (a.length < size) {
-                int i = 0;
-                for (Object element : toArray()) {
-                    a[i] = (T) element;
-                    i++;
-                }
-                if (a.length > size) {
-                    for (int j = size; j < a.length; j++) {
-                        a[j] = null;
-                    }
+    public boolean add(V newElement) {
+        if (newElement != null) {
+            addHelper(newElement, nextSlot(), null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the elements of batch at the next locations, in the order
+     * given, as looping add would. Equal elements are gathered first, so
+     * each distinct element goes down the tree once with all of its
+     * occurrences, and the slots of the whole batch are handed out at
+     * once. Batches of words that repeat, as words of text do, take far
+     * fewer descents than adding each word. An empty tree is laid out as
+     * build lays it out.
+     *
+     * @param batch elements to add in order of occurance
+     * @return boolean if any element was added
+     */
+    public boolean addBatch(Collection<? extends V> batch) {
+        if (batch == null) {
+            return false;
+        }
+        if (isEmpty() && batch.size() > 1) {
+            return bulkLoad(batch);
+        }
+        Map<V, LocationList> groups = new HashMap<>(
+                batch.size() * 4 / 3 + 1);
+        int added = 0;
+        for (V newElement : batch) {
+            if (newElement != null) {
+                LocationList slots = groups.get(newElement);
+                if (slots == null) {
+                    slots = new LocationList(1);
+                    groups.put(newElement, slots);
                 }
-            } else {
-                a = (T[]) toArray();
+                //slots are handed out below, index of the batch for now
+                slots.addInt(added++);
+            }
+        }
+        if (added == 0) {
+            return false;
+        }
+        int first = index.allocate(added);
+        size += added;
+        modCount++;
+        for (Map.Entry<V, LocationList> group : groups.entrySet()) {
+            LocationList slots = group.getValue();
+            for (int i = 0; i < slots.size(); i++) {
+                slots.setInt(i, first + slots.getInt(i));
             }
-            return a;
+            addHelper(group.getKey(), 0, slots);
         }
-        return null;
+        return true;
     }
 
-    @Override
-    public boolean add(V newElement) {
-        boolean added = false;
-        if (newElement != null) {
-            if (size == 0) {
-                RadixTreeNode newNode = new RadixTreeNode(newElement);
-                root.children.add(newNode);
-                newNode.locations.add(++size);
-                return true;
-            } else {
-                RadixTreeNode parent = root;
-                while (!added) {
-                    boolean found = false;
-                    for (RadixTreeNode current
-                            : (LinkedList<RadixTreeNode>) parent.children) {
-                        int comparison = current.data.comparePrefix(newElement);
-                        if (comparison > 0) {
-                            found = true;
-                            if ((comparison) == current.data.length()) {
-                                if (current.data.length()
-                                        == newElement.length()) {
-                                    //CASE1: WHOLE NEWELEMENT FOUND
-                                    if (current.locations.isEmpty()
-                                            && current.children.size() == 2) {
-                                        for (RadixTreeNode node
-                                                : (LinkedList<RadixTreeNode>)
-                                                current.children) {
-                                            if (node.data.equals(
-                                                    node.data.subSet(0, 0))) {
-                                                //CASE1.2 CURRENT IS EMPTY
-                                                //SUBSET NODE
-                                                //this occurs when one element
-                                                //has only one addional child,
-                                                //but is also an end, thus it is
-                                                //not an end but instead
-                                                //contains an empty string child
-                                                //in accordance with the no only
-                                                //child rule
-                                                current = node;
-                                            }
-                                        }
-                                    }
-                                    current.locations.add(++size);
-                                    return true;
-                                } else {
-                                    //CASE2: ALL OF CURRENT IN NEWELEMENT
-                                    newElement = (V) newElement.subSet(
-                                            comparison, newElement.length());
-                                    parent = current;
-                                    break;
-                                }
-                            } else {
-                                //CASE3: PART OF CURRENT IN NEWELEMENT
-                                RadixTreeNode newNode = new RadixTreeNode(
-                                        newElement.subSet(comparison,
-                                        newElement.length()));
-                                RadixTreeNode newChild = new RadixTreeNode(
-                                        current.data.subSet(
-                                        comparison, current.data.length()));
-                                current.data = current.data.subSet(0,
-                                        comparison);
-                                newChild.mergeChildren(current.children);
-                                current.children.clear();
-                                current.children.add(newChild);
-                                current.children.add(newNode);
-                                newChild.mergeLocations(current.locations);
-                                current.locations.clear();
-                                newNode.locations.add(++size);
-                                return true;
+    /**
+     * Helper for add and addBatch, adds occurrences of newElement with
+     * slot, or with slots if there are several
+     *
+     * @param newElement         element to add
+     * @param slot               slot of the one new occurrence
+     * @param slots              slots of the new occurrences in order, or
+     *                           null if there is one
+     */
+    private void addHelper(V newElement, int slot, LocationList slots) {
+        int nodes = 0; //nodes whose data was compared
+        int symbols = 0; //symbols of newElement matched by them
+        boolean split = false;
+        int occurrences = slots == null ? 1 : slots.size();
+        root.count += occurrences;
+        if (root.count == occurrences) {
+            //first occurrence in the tree
+            RadixTreeNode newNode = new RadixTreeNode(newElement);
+            newNode.addSlots(slot, slots);
+            newNode.count = occurrences;
+            root.children.add(newNode);
+        } else if (newElement.length() == 0
+                && root.children.getEmpty() != null) {
+            //the empty element is always kept in the empty subset node
+            //of root
+            RadixTreeNode empty = root.children.getEmpty();
+            empty.addSlots(slot, slots);
+            empty.count += occurrences;
+        } else {
+            RadixTreeNode parent = root;
+            int start = 0; //newElement before start is already matched
+            while (true) {
+                RadixTreeNode current = null;
+                if (start < newElement.length()) {
+                    current = parent.children.get(
+                            newElement.symbolAt(start));
+                }
+                if (current != null) {
+                    int comparison = current.data.mismatch(newElement,
+                            start);
+                    nodes++;
+                    symbols += comparison;
+                    if ((comparison) == current.data.length()) {
+                        if (start + comparison == newElement.length()) {
+                            //CASE1: WHOLE NEWELEMENT FOUND
+                            if (current.locations.isEmpty()
+                                    && current.children.size() == 2
+                                    && current.children.getEmpty()
+                                    != null) {
+                                //CASE1.2 CURRENT IS EMPTY SUBSET NODE
+                                //this occurs when one element has only
+                                //one addional child, but is also an end,
+                                //thus it is not an end but instead
+                                //contains an empty string child in
+                                //accordance with the no only child rule
+                                current.count += occurrences;
+                                parent.children.update(current);
+                                parent = current;
+                                current = current.children.getEmpty();
                             }
+                            current.addSlots(slot, slots);
+                            current.count += occurrences;
+                            parent.children.update(current);
+                            break;
+                        } else {
+                            //CASE2: ALL OF CURRENT IN NEWELEMENT
+                            current.count += occurrences;
+                            parent.children.update(current);
+                            start += comparison;
+                            parent = current;
+                        }
+                    } else {
+                        //CASE3: PART OF CURRENT IN NEWELEMENT
+                        if (cache != null && !current.locations.isEmpty()) {
+                            //the locations of current move to newChild
+                            cache.remove(newElement.subSet(0, start)
+                                    .append(current.data));
                         }
-                    }
-                    if (!found) {
-                        //CASE4: NO MATCH STILL
                         RadixTreeNode newNode = new RadixTreeNode(
-                                newElement);
-                        if (parent.children.isEmpty()) {
-                            //CASE4.1: NO CHILDREN, parent must be end
-                            //creates empty subset node
-                            newEmpty(parent);
-                        } else if (parent.locations.isEmpty()
-                                && parent.children.size() == 2) {
-                            for (RadixTreeNode node
-                                    : (LinkedList<RadixTreeNode>)
-                                    parent.children) {
-                                if (node.data.equals(node.data.subSet(0, 0))) {
-                                    //CASE4.2 EMPTY SUBSET NODE PRESENT
-                                    //this occurs when one element has only one
-                                    //addional child, but is also an end, thus
-                                    //it is not an end but instead contains an
-                                    //empty string child in accordance with the
-                                    //no only child -rule- policy
-                                    parent.children.remove(node);
-                                    parent.mergeLocations(node.locations);
-                                }
-                            }
+                                newElement.subSet(start + comparison,
+                                newElement.length()));
+                        RadixTreeNode newChild = new RadixTreeNode(
+                                current.data.subSet(
+                                comparison, current.data.length()));
+                        current.data = current.data.subSet(0,
+                                comparison);
+                        newChild.mergeChildren(current.children);
+                        newChild.mergeLocations(current);
+                        newChild.count = current.count;
+                        newNode.addSlots(slot, slots);
+                        newNode.count = occurrences;
+                        current.children.clear();
+                        current.children.add(newChild);
+                        current.children.add(newNode);
+                        current.count += occurrences;
+                        parent.children.update(current);
+                        split = true;
+                        break;
+                    }
+                } else {
+                    //CASE4: NO MATCH STILL
+                    RadixTreeNode newNode = new RadixTreeNode(
+                            newElement.subSet(start,
+                            newElement.length()));
+                    if (parent.children.isEmpty()) {
+                        //CASE4.1: NO CHILDREN, parent must be end
+                        //creates empty subset node
+                        if (cache != null) {
+                            cache.remove(newElement.subSet(0, start));
+                        }
+                        newEmpty(parent);
+                    } else if (parent != root
+                            && parent.locations.isEmpty()
+                            && parent.children.size() == 2
+                            && parent.children.getEmpty() != null) {
+                        //CASE4.2 EMPTY SUBSET NODE PRESENT
+                        //this occurs when one element has only one
+                        //addional child, but is also an end, thus
+                        //it is not an end but instead contains an
+                        //empty string child in accordance with the
+                        //no only child -rule- policy
+                        if (cache != null) {
+                            cache.remove(newElement.subSet(0, start));
                         }
-                        parent.children.add(newNode);
-                        newNode.locations.add(++size);
-                        return true;
+                        RadixTreeNode node = parent.children.getEmpty();
+                        parent.children.remove(node);
+                        parent.mergeLocations(node);
                     }
+                    newNode.addSlots(slot, slots);
+                    newNode.count = occurrences;
+                    parent.children.add(newNode);
+                    break;
                 }
             }
         }
-        return false;
+        if (RadixTreeMetrics.ENABLED && listener != null) {
+            listener.added(nodes, symbols, split);
+        }
     }
 
     /**
@@ -196,39 +364,48 @@ public class RadixTree<V extends AbstractRadixTreeElement>
     @Override
     public boolean remove(Object o) {
         if (o != null && o instanceof AbstractRadixTreeElement && !isEmpty()) {
-            RadixTreeNode[] nodes = findHelper((V) o);
+            AbstractRadixTreeElement element = (AbstractRadixTreeElement) o;
+            RadixTreeNode[] nodes = findHelper(element);
             if (nodes != null && !nodes[1].locations.isEmpty()) {
-                shiftElements((Integer) nodes[1].locations.removeLast());
+                uncountPath(element, nodes[1]);
+                index.release(nodes[1].locations.removeLastInt());
                 size--;
+                modCount++;
+                boolean merged = false;
+                if (cache != null && nodes[1].locations.isEmpty()) {
+                    cache.remove(o);
+                }
                 if (nodes[1].locations.size() == 0
                         && nodes[1].children.isEmpty()) { //node must be removed
                     nodes[0].children.remove(nodes[1]);
                     if (nodes[0] != root && nodes[0].children.size() == 1) {
                         if (!nodes[0].locations.isEmpty()) {
+                            if (cache != null) {
+                                cache.remove(leadingTo(element, nodes[1]));
+                            }
                             newEmpty(nodes[0]); //new empty subset node
                         } else { //append child node
                             RadixTreeNode oldNode =
-                                    (RadixTreeNode)
                                     nodes[0].children.removeFirst();
-                            nodes[0].mergeLocations(oldNode.locations);
+                            if (cache != null
+                                    && !oldNode.locations.isEmpty()) {
+                                cache.remove(leadingTo(element, nodes[1])
+                                        .append(oldNode.data));
+                            }
+                            nodes[0].mergeLocations(oldNode);
                             nodes[0].data = nodes[0].data.append(oldNode.data);
                             nodes[0].mergeChildren(oldNode.children);
+                            merged = true;
                         }
                     }
                 }
-                return true;
-            }
-        }
-        return false;
-    }
-
-    @Override
-    public boolean containsAll(Collection<?> c) {
-        if (c != null) {
-            for (Object o : c) {
-                if (!contains(o)) {
-                    return false;
+                if (RadixTreeMetrics.ENABLED && listener != null) {
+                    listener.removed(merged);
                 }
+                if (index.slots() > 2 * size + COMPACT_SLACK) {
+                    compactLocations();
+                }
+                return true;
             }
         }
         return false;
@@ -237,7 +414,9 @@ public class RadixTree<V extends AbstractRadixTreeElement>
     @Override
     public boolean addAll(Collection<? extends V> c) {
         boolean result = false;
-        if (c != null) {
+        if (c != null && isEmpty() && c.size() > 1) {
+            return bulkLoad(c);
+        } else if (c != null) {
             for (V newElement : c) {
                 if (!result) {
                     result = add(newElement);
@@ -249,62 +428,29 @@ public class RadixTree<V extends AbstractRadixTreeElement>
         return result;
     }
 
-    @Override
-    public boolean removeAll(Collection<?> c) {
-        boolean result = false;
-        if (c != null) {
-            for (Object element : c) {
-                if (!result) {
-                    result = remove(element);
-                } else {
-                    remove(element);
-                }
-            }
-        }
-        return result;
-    }
-
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        if (c != null) {
-            for (V element : this) {
-                if (!c.contains(element)) {
-                    remove(element);
-                }
-            }
-        }
-        return false;
-    }
-
     @Override
     public void clear() {
         root.children.clear();
+        root.count = 0;
+        index.clear();
         size = 0;
-    }
-
-    @Override
-    public String toString() {
-        String result = "";
-        for (Object element : toArray()) {
-            result += "[" + String.valueOf(element) + "], ";
+        modCount++;
+        if (cache != null) {
+            cache.clear();
         }
-        return result.substring(0, result.length() - 2) + "\n";
     }
 
-
-
-
-
     /**
      * finds first location of element in tree
      *
      * @param element element to be found in tree
      * @return int location of first occurance of element in tree
      */
+    @Override
     public int find(V element) {
-        RadixTreeNode[] nodes = findHelper(element);
-        if (nodes != null && !nodes[1].locations.isEmpty()) {
-            return (int) nodes[1].locations.getFirst();
+        RadixTreeNode holder = holderOf(element);
+        if (holder != null) {
+            return index.rank(holder.locations.getInt(0));
         } else {
             return -1;
         }
@@ -312,252 +458,1545 @@ public class RadixTree<V extends AbstractRadixTreeElement>
 
     /**
      * Finds all occurances of element in tree with locations starting at 1.
+     * The locations are returned in a LocationList, which holds them as
+     * ints rather than boxed Integers.
      *
      * @param element element to be found in tree
      * @return set of int locations of element in tree or null if not in tree
      */
+    @Override
     public List<Integer> findAll(V element) {
-        RadixTreeNode[] nodes = findHelper(element);
-        if (nodes != null && !nodes[1].locations.isEmpty()) {
-            return nodes[1].locations;
+        RadixTreeNode holder = holderOf(element);
+        if (holder != null) {
+            LocationList slots = holder.locations;
+            LocationList result = new LocationList(slots.size());
+            for (int i = 0; i < slots.size(); i++) {
+                result.addInt(index.rank(slots.getInt(i)));
+            }
+            return result;
         } else {
             return null;
         }
     }
 
     /**
-     * Helper for find method
+     * Moves every occurrence in other to the end of this tree, as if the
+     * elements of other had been added in order after those of this tree,
+     * so other's location i becomes size() + i. The two tries are merged
+     * node by node and subtrees found only in other are moved over whole,
+     * giving the same tree as adding each element in turn. other is left
+     * empty.
      *
-     * @param newElement element to find
+     * @param other tree whose occurrences follow this tree's
+     * @return boolean if any occurrence was moved
      */
-    private RadixTreeNode[] findHelper(V newElement) {
-        if (newElement != null && !isEmpty()) {
-            boolean keepLooking = true;
-            RadixTreeNode parent = root;
-            while (keepLooking) {
-                keepLooking = false;
-                for (RadixTreeNode current
-                        : (LinkedList<RadixTreeNode>) parent.children) {
-                    int comparison = current.data.comparePrefix(newElement);
-                    if (comparison > 0) {
-                        if (comparison <= current.data.length()) {
-                            if (current.data.length() == newElement.length()) {
-                                //CASE1: WHOLE ELEMENT FOUND
-                                if (!current.locations.isEmpty()) {
-                                    //CASE1.1: CURRENT IS END
-                                    RadixTreeNode[] result = {parent, current};
-                                    return result;
-                                } else if (current.children.size() == 2) {
-                                    for (RadixTreeNode node
-                                            : (LinkedList<RadixTreeNode>)
-                                            current.children) {
-                                        if (node.data.equals(
-                                                node.data.subSet(0, 0))) {
-                                            //CASE1.2 CURRENT HAS EMPTY SUBSET
-                                            //this occurs when one element has
-                                            //only one addional child, but is
-                                            //also an end, thus it is not an end
-                                            //but instead contains an empty
-                                            //string child in accordance with
-                                            //the no only child rule
-                                            RadixTreeNode[] result = {current,
-                                                node};
-                                            return result;
-                                        }
-                                    }
-                                }
-                            } else {
-                                //CASE2: ALL OF PARENT IN CHILD
-                                keepLooking = true;
-                                newElement = (V) newElement.subSet(comparison,
-                                        newElement.length());
-                                parent = current;
-                            }
-                        }
-                        break;
-                    }
-                }
-            }
+    public boolean merge(RadixTree<V> other) {
+        if (other == null || other == this || other.isEmpty()) {
+            return false;
+        }
+        int[] slots = new int[other.index.slots() + 1];
+        int base = index.slots();
+        for (int slot = 1; slot < slots.length; slot++) {
+            slots[slot] = base + other.index.rank(slot);
+        }
+        index.allocate(other.size);
+        mergeHelper(root, other.root, slots);
+        size += other.size;
+        modCount++;
+        if (cache != null) {
+            //nodes were split and joined all over the tree
+            cache.clear();
         }
-        return null;
+        other.clear();
+        return true;
     }
 
     /**
-     * shifts all elements in tree after start by minus one
-     *
-     * @param  start         first location to start
+     * Replaces the data of every node with a compact copy, so the tree no
+     * longer keeps the larger elements it was built from reachable, such as
+     * the text that elements of a tokenizer are views onto.
      */
-    private void shiftElements(int start) {
-        if (start < size) {
-            shiftElementsHelper(start, root);
-        }
+    public void compactLabels() {
+        compactLabelsHelper(root);
     }
 
     /**
-     * Helpert to shiftElements method
+     * Reports the shape of the tree: nodes, label symbols, depths, fan-out,
+     * locations per node, empty subset placeholders and an estimate of the
+     * heap retained, all counted in one traversal.
      *
-     * @param start                     location to start
-     * @param node                     current start node
+     * @return RadixTreeStats of the tree as it is now
      */
-    private void shiftElementsHelper(int start, RadixTreeNode node) {
-        for (RadixTreeNode current : (LinkedList<RadixTreeNode>) node.children)
-        {
-            shiftElementsHelper(start, current);
-        }
-        if (!node.locations.isEmpty()) {
-            int first = (Integer) node.locations.removeFirst();
-            if (first > start) {
-                first--;
-            }
-            node.locations.add(first);
-            while (first != (Integer) node.locations.getFirst()) {
-                int current = (Integer) node.locations.removeFirst();
-                if (current > start) {
-                    current--;
-                }
-                node.locations.add(current);
-            }
-        }
+    public RadixTreeStats stats() {
+        RadixTreeStats result = new RadixTreeStats();
+        statsHelper(root, 0, result, Collections.newSetFromMap(
+                new IdentityHashMap<Object, Boolean>()));
+        return result;
     }
 
     /**
-     * Helper for toArray
+     * Iterates over distinct elements in order, for RadixTreeKeySet
      *
-     * @param array               array to populate
-     * @param element             current element to append data
-     * @param node               current start node
+     * @param from lowest element, or null to start at the first
+     * @param fromInclusive if from itself may be returned
+     * @param to highest element, or null to go to the last
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
      */
-    private void toArrayHelper(Object[] array, V element, RadixTreeNode node) {
-        for (RadixTreeNode current : (LinkedList<RadixTreeNode>) node.children)
-        {
-            toArrayHelper(array, (V) element.append(current.data), current);
-        }
-        if (!node.locations.isEmpty()) {
-            for (Integer index : (LinkedList<Integer>) node.locations) {
-                array[index - 1] = element;
-            }
-        }
+    @Override
+    Iterator<V> keyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new RadixTreeIterator(from, fromInclusive, to, toInclusive);
     }
 
     /**
-     * Provides new empty node for add method
+     * Iterates over distinct elements in reverse order, for RadixTreeKeySet
      *
-     * @param  parent   parent to add empty node to
+     * @param from highest element, or null to start at the last
+     * @param fromInclusive if from itself may be returned
+     * @param to lowest element, or null to go to the first
+     * @param toInclusive if to itself may be returned
+     * @return Iterator over distinct elements
      */
-    private void newEmpty(RadixTreeNode parent) {
-        RadixTreeNode newEmpty = new RadixTreeNode(parent.data.subSet(0, 0));
-        newEmpty.mergeLocations(parent.locations);
-        parent.locations.clear();
-        parent.children.add(newEmpty);
+    @Override
+    Iterator<V> descendingKeyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new DescendingIterator(from, fromInclusive, to, toInclusive);
     }
 
-
-
-
-
-
-
-
-
     /**
-     * inner node class for RadixTree with generic of AbstractRadixTreeElement
+     * Iterates over every occurrence of elements starting with prefix, in
+     * order of elements.
+     *
+     * @param prefix start of elements to iterate over
+     * @return Iterator over elements starting with prefix
      */
-    private class RadixTreeNode<V extends AbstractRadixTreeElement> implements
-            Comparable {
-        private V data;
-        private LinkedList<RadixTreeNode> children;
-        private LinkedList<Integer> locations;
+    @Override
+    public Iterator<V> prefixIterator(V prefix) {
+        if (prefix == null) {
+            return Collections.emptyIterator();
+        } else if (prefix.length() == 0) {
+            return iterator();
+        }
+        return new RadixTreeIterator(prefix);
+    }
 
-        /**
-         * RadixTreeNode constructor
-         *
-         * @param element data for node
-         */
-        private RadixTreeNode(V element) {
-            data = element;
-            children = new LinkedList<>();
-            locations = new LinkedList<>();
+    /**
+     * Counts occurrences of elements starting with prefix.
+     *
+     * @param prefix start of elements to count
+     * @return int number of occurrences
+     */
+    @Override
+    public int countWithPrefix(V prefix) {
+        RadixTreeNode[] nodes = new RadixTreeNode[1];
+        if (prefixHelper(prefix, nodes) < 0) {
+            return 0;
         }
+        return nodes[0].count;
+    }
 
-        @Override
-        public int hashCode() {
-            if (data != null) {
-                return data.hashCode();
-            } else {
-                return -1;
+    /**
+     * Counts occurrences of elements that come before element, which is
+     * also the index element would have in iteration order. Goes down
+     * one node per level of the tree and at each takes the counts of the
+     * children before element from their sums, so takes O(depth * log
+     * fan-out).
+     *
+     * @param element element to count up to
+     * @return int number of occurrences less than element
+     */
+    @Override
+    public int rank(V element) {
+        int result = 0;
+        if (element != null && !isEmpty()) {
+            RadixTreeNode parent = root;
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                //parent and its empty subset node are a prefix of element
+                result += parent.locations.size();
+                RadixTreeNode empty = parent.children.getEmpty();
+                if (empty != null) {
+                    result += empty.count;
+                }
+                int symbol = element.symbolAt(start);
+                result += parent.children.countBefore(symbol);
+                RadixTreeNode current = parent.children.get(symbol);
+                if (current == null) {
+                    return result;
+                }
+                int comparison = current.data.mismatch(element, start);
+                if (comparison < current.data.length()) {
+                    if (start + comparison < element.length()
+                            && current.data.symbolAt(comparison)
+                            < element.symbolAt(start + comparison)) {
+                        //all of current comes before element
+                        result += current.count;
+                    }
+                    return result;
+                }
+                start += comparison;
+                parent = current;
             }
         }
+        return result;
+    }
 
-        @Override
-        public boolean equals(Object other) {
-            return other != null && other instanceof RadixTreeNode
-                    && data.equals(((RadixTreeNode) other).data);
+    /**
+     * Finds the element at a position in iteration order, counting every
+     * occurrence. Goes down one node per level of the tree and at each
+     * finds the child position falls in from the sums of the counts of
+     * the children, so takes O(depth * log fan-out).
+     *
+     * @param position int index starting at 0
+     * @return element at position or null if position is out of range
+     */
+    @Override
+    public V select(int position) {
+        if (position < 0 || position >= size) {
+            return null;
         }
-
-        @Override
-        public int compareTo(Object o) {
-            if (o != null) {
-                if (o instanceof RadixTreeNode) {
-                    return this.data.compareTo(((RadixTreeNode) o).data);
-                } else {
-                    throw new ClassCastException();
+        RadixTreeNode parent = root;
+        AbstractRadixTreeElement result = root.children.peek().data.subSet(0,
+                0);
+        while (position >= parent.locations.size()) {
+            position -= parent.locations.size();
+            RadixTreeNode current = parent.children.getEmpty();
+            if (current == null || position >= current.count) {
+                if (current != null) {
+                    position -= current.count;
                 }
-            } else {
-                throw new NullPointerException();
+                current = parent.children.childAt(position);
+                position -= parent.children.countBefore(
+                        current.data.symbolAt(0));
             }
+            result = result.append(current.data);
+            parent = current;
         }
+        return typed(result);
+    }
 
-        /**
-         * adds new locations to locations LinkedList
-         *
-         * @param  newLocations locations to be added
-         */
-        private void mergeLocations(LinkedList<Integer> newLocations) {
-            for (Integer newLocation : newLocations) {
-                locations.add(newLocation);
-            }
+    /**
+     * Finds all occurances of elements starting with prefix with locations
+     * starting at 1.
+     *
+     * @param prefix start of elements to be found in tree
+     * @return sorted list of int locations or null if none are in tree
+     */
+    @Override
+    public List<Integer> findAllWithPrefix(V prefix) {
+        RadixTreeNode[] nodes = new RadixTreeNode[1];
+        if (prefixHelper(prefix, nodes) < 0) {
+            return null;
+        }
+        LocationList result = new LocationList(nodes[0].count);
+        findAllHelper(nodes[0], result);
+        if (result.isEmpty()) {
+            return null;
         }
+        result.sort();
+        return result;
+    }
 
-        /**
-         * adds new Children to children LinkedList
-         *
-         * @param  newChildren Children to be added
-         */
-        private void mergeChildren(LinkedList<RadixTreeNode> newChildren) {
-            for (RadixTreeNode newChild : newChildren) {
-                children.add(newChild);
+    /**
+     * Helper for prefix methods, finds the highest node whose elements all
+     * start with prefix
+     *
+     * @param prefix start of elements
+     * @param result array whose first entry is set to the node found
+     * @return int length of the element leading to the node, -1 if no
+     *         element starts with prefix
+     */
+    private int prefixHelper(V prefix, RadixTreeNode[] result) {
+        if (prefix != null && !isEmpty()) {
+            RadixTreeNode parent = root;
+            int start = 0; //prefix before start is already matched
+            while (start < prefix.length()) {
+                RadixTreeNode current = parent.children.get(
+                        prefix.symbolAt(start));
+                if (current == null) {
+                    return -1;
+                }
+                int comparison = current.data.mismatch(prefix, start);
+                if (start + comparison == prefix.length()) {
+                    //prefix ends inside or at the end of current
+                    result[0] = current;
+                    return start;
+                } else if (comparison < current.data.length()) {
+                    return -1;
+                }
+                start += comparison;
+                parent = current;
             }
+            result[0] = root;
+            return 0;
         }
+        return -1;
     }
 
     /**
-     * Inner node class for Iterator
+     * Helper for findAllWithPrefix method
+     *
+     * @param node               current start node
+     * @param result             list to add locations to
      */
-    private class RadixTreeIterator<V extends AbstractRadixTreeElement>
-            implements Iterator<V> {
-        private int i;
-        private Object[] array;
-
-        /**
-         * RadixTreeIterator constructor
-         */
-        public RadixTreeIterator() {
-            i = 0;
-            array = toArray();
+    private void findAllHelper(RadixTreeNode node, LocationList result) {
+        for (int i = 0; i < node.locations.size(); i++) {
+            result.addInt(index.rank(node.locations.getInt(i)));
+        }
+        for (RadixTreeNode current : node.children) {
+            findAllHelper(current, result);
         }
+    }
 
-        /**
-         * If has next
-         *
-         * @return hasNext() boolean
-         */
-        public boolean hasNext() {
-            if (array != null && i < array.length) {
+    /**
+     * Helper for remove, the element leading to the parent of node
+     *
+     * @param element element ending at node
+     * @param node node below the parent
+     * @return AbstractRadixTreeElement start of element
+     */
+    private AbstractRadixTreeElement leadingTo(
+            AbstractRadixTreeElement element, RadixTreeNode node) {
+        return element.subSet(0, element.length() - node.data.length());
+    }
+
+    /**
+     * returns an element built from labels as the type of the tree's
+     * elements. Labels are subsets of elements added, and an element's
+     * subSet and append return its own type, so the cast holds.
+     *
+     * @param element element built from labels
+     * @return V element
+     */
+    @SuppressWarnings("unchecked")
+    private V typed(AbstractRadixTreeElement element) {
+        return (V) element;
+    }
+
+    /**
+     * Helper for find and findAll, finds the node holding the locations of
+     * element, from the cache if there is one and it holds element
+     *
+     * @param element element to find
+     * @return RadixTreeNode holding its locations, or null if there are none
+     */
+    private RadixTreeNode holderOf(V element) {
+        if (cache != null && element != null) {
+            RadixTreeNode holder = cache.get(element);
+            if (RadixTreeMetrics.ENABLED && listener != null) {
+                listener.cached(holder != null);
+            }
+            if (holder != null) {
+                return holder;
+            }
+        }
+        RadixTreeNode[] nodes = findHelper(element);
+        if (nodes == null || nodes[1].locations.isEmpty()) {
+            return null;
+        }
+        if (cache != null) {
+            cache.put(element, nodes[1]);
+        }
+        return nodes[1];
+    }
+
+    /**
+     * Helper for find method
+     *
+     * @param newElement element to find
+     */
+    private RadixTreeNode[] findHelper(AbstractRadixTreeElement newElement) {
+        RadixTreeNode[] result = null;
+        int nodes = 0; //nodes whose data was compared
+        int symbols = 0; //symbols of newElement matched by them
+        if (newElement != null && !isEmpty()) {
+            if (newElement.length() == 0) {
+                if (root.children.getEmpty() != null) {
+                    result = new RadixTreeNode[] {root,
+                        root.children.getEmpty()};
+                }
+            }
+            RadixTreeNode parent = root;
+            int start = 0; //newElement before start is already matched
+            while (start < newElement.length()) {
+                RadixTreeNode current = parent.children.get(
+                        newElement.symbolAt(start));
+                if (current == null) {
+                    break;
+                }
+                int comparison = current.data.mismatch(newElement, start);
+                nodes++;
+                symbols += comparison;
+                if (comparison < current.data.length()) {
+                    break;
+                } else if (start + comparison == newElement.length()) {
+                    //CASE1: WHOLE ELEMENT FOUND
+                    if (!current.locations.isEmpty()) {
+                        //CASE1.1: CURRENT IS END
+                        result = new RadixTreeNode[] {parent, current};
+                    } else if (current.children.size() == 2
+                            && current.children.getEmpty() != null) {
+                        //CASE1.2 CURRENT HAS EMPTY SUBSET
+                        //this occurs when one element has only one addional
+                        //child, but is also an end, thus it is not an end but
+                        //instead contains an empty string child in
+                        //accordance with the no only child rule
+                        result = new RadixTreeNode[] {current,
+                            current.children.getEmpty()};
+                    }
+                    break;
+                } else {
+                    //CASE2: ALL OF PARENT IN CHILD
+                    start += comparison;
+                    parent = current;
+                }
+            }
+            if (RadixTreeMetrics.ENABLED && listener != null) {
+                listener.found(nodes, symbols);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fills an empty tree with elements at locations in the order given
+     *
+     * @param elements           elements in order of occurance
+     * @return boolean if any element was added
+     */
+    private boolean bulkLoad(Collection<? extends V> elements) {
+        List<V> added = new ArrayList<>(elements.size());
+        for (V element : elements) {
+            if (element != null) {
+                added.add(element);
+            }
+        }
+        if (added.isEmpty()) {
+            return false;
+        }
+        int[] order = new int[added.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        sortOrder(added, order, new long[order.length], 0, order.length, 0);
+        bulkLoadHelper(root, added, order, 0, order.length, 0);
+        index.reset(order.length);
+        size = order.length;
+        root.count = size;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Helper for bulkLoad, sorts order[low] to order[high - 1], indexes of
+     * elements that all start with the same depth symbols, by element and
+     * then by index, so equal elements stay in order of occurance. Sorts
+     * the indexes on one symbol at a time, packed above the index in a
+     * long, then carries on one symbol deeper within each run of equal
+     * symbols.
+     *
+     * @param elements           elements in order of occurance
+     * @param order              indexes of elements
+     * @param keys               space to sort in, as long as order
+     * @param low                first index of order to sort
+     * @param high               index of order after the last to sort
+     * @param depth              symbols the elements are known to share
+     */
+    private void sortOrder(List<V> elements, int[] order, long[] keys,
+            int low, int high, int depth) {
+        while (high - low > 1) {
+            for (int i = low; i < high; i++) {
+                V element = elements.get(order[i]);
+                //elements ending at depth sort first
+                int symbol = depth < element.length()
+                        ? element.symbolAt(depth) : -1;
+                keys[i] = (long) symbol << 32 | order[i];
+            }
+            Arrays.sort(keys, low, high);
+            for (int i = low; i < high; i++) {
+                order[i] = (int) keys[i];
+            }
+            int symbol = (int) (keys[low] >> 32);
+            if (symbol == (int) (keys[high - 1] >> 32)) {
+                if (symbol < 0) {
+                    //all equal, in order of occurance
+                    return;
+                }
+                depth++;
+            } else {
+                int start = low;
+                while (start < high) {
+                    symbol = (int) (keys[start] >> 32);
+                    int end = start + 1;
+                    while (end < high && (int) (keys[end] >> 32) == symbol) {
+                        end++;
+                    }
+                    if (symbol >= 0) {
+                        sortOrder(elements, order, keys, start, end,
+                                depth + 1);
+                    }
+                    start = end;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Helper for bulkLoad, lays out the sorted elements order[low] to
+     * order[high - 1], which all start with the length symbols leading to
+     * node, below node. Slots are locations, so an element's slot is its
+     * index plus one.
+     *
+     * @param node               node to fill
+     * @param elements           elements in order of occurance
+     * @param order              indexes of elements in sorted order
+     * @param low                first index of order to lay out
+     * @param high               index of order after the last to lay out
+     * @param length             length of the element leading to node
+     */
+    private void bulkLoadHelper(RadixTreeNode node, List<V> elements,
+            int[] order, int low, int high, int length) {
+        //elements ending at node sort first
+        int ends = low;
+        while (ends < high && elements.get(order[ends]).length() == length) {
+            ends++;
+        }
+        int groups = 0;
+        int start = ends;
+        while (start < high) {
+            V first = elements.get(order[start]);
+            int symbol = first.symbolAt(length);
+            int end = start + 1;
+            while (end < high
+                    && elements.get(order[end]).symbolAt(length) == symbol) {
+                end++;
+            }
+            //sorted, so first and last share the prefix of the whole group
+            V last = elements.get(order[end - 1]);
+            int common = length + first.subSet(length, first.length())
+                    .mismatch(last, length);
+            RadixTreeNode child = new RadixTreeNode(first.subSet(length,
+                    common));
+            child.count = end - start;
+            bulkLoadHelper(child, elements, order, start, end, common);
+            node.children.add(child);
+            groups++;
+            start = end;
+        }
+        if (ends > low) {
+            RadixTreeNode holder = node;
+            if (node == root || groups == 1) {
+                //no only child rule, or the empty element
+                holder = new RadixTreeNode(elements.get(order[low])
+                        .subSet(length, length));
+                holder.count = ends - low;
+                node.children.add(holder);
+            }
+            for (int i = low; i < ends; i++) {
+                holder.locations.addInt(order[i] + 1);
+            }
+        }
+    }
+
+    /**
+     * Helper for merge, moves the occurrences in from into node, where both
+     * are reached by the same element
+     *
+     * @param node               node of this tree
+     * @param from               node of the other tree
+     * @param slots              slots in this tree of the other's slots
+     */
+    private void mergeHelper(RadixTreeNode node, RadixTreeNode from,
+            int[] slots) {
+        node.count += from.count;
+        LocationList ends = new LocationList();
+        ends.addAll(from.locations);
+        List<RadixTreeNode> children = new ArrayList<>();
+        for (RadixTreeNode child : from.children) {
+            if (child.data.length() == 0) {
+                ends.addAll(child.locations);
+            } else {
+                children.add(child);
+            }
+        }
+        for (RadixTreeNode child : children) {
+            mergeChild(node, child, slots);
+        }
+        if (!ends.isEmpty()) {
+            RadixTreeNode holder = node.children.getEmpty();
+            if (holder == null && node == root) {
+                //the empty element is always kept in the empty subset node
+                //of root
+                holder = new RadixTreeNode(from.children.getEmpty().data);
+                node.children.add(holder);
+            } else if (holder == null) {
+                holder = node;
+            }
+            for (int i = 0; i < ends.size(); i++) {
+                holder.locations.addInt(slots[ends.getInt(i)]);
+            }
+            if (holder != node) {
+                holder.count += ends.size();
+            }
+        }
+        mergeEmpty(node);
+    }
+
+    /**
+     * Helper for merge, moves child of the other tree, whose count is
+     * already in node's, below node
+     *
+     * @param node               node of this tree
+     * @param child              node of the other tree below node
+     * @param slots              slots in this tree of the other's slots
+     */
+    private void mergeChild(RadixTreeNode node, RadixTreeNode child,
+            int[] slots) {
+        RadixTreeNode current = node.children.get(child.data.symbolAt(0));
+        if (current == null) {
+            //CASE1: NO MATCH, move child and all below it
+            moveSlots(child, slots);
+            node.children.add(child);
+            mergeEmpty(node);
+            return;
+        }
+        int comparison = current.data.mismatch(child.data, 0);
+        if (comparison < current.data.length()) {
+            //CASE2: PART OF CURRENT IN CHILD, current is split as in add
+            RadixTreeNode newChild = new RadixTreeNode(current.data.subSet(
+                    comparison, current.data.length()));
+            current.data = current.data.subSet(0, comparison);
+            newChild.mergeChildren(current.children);
+            newChild.mergeLocations(current);
+            newChild.count = current.count;
+            current.children.clear();
+            current.children.add(newChild);
+        }
+        if (comparison == child.data.length()) {
+            //CASE3: WHOLE CHILD FOUND
+            mergeHelper(current, child, slots);
+        } else {
+            //CASE4: ALL OF CURRENT IN CHILD
+            child.data = child.data.subSet(comparison, child.data.length());
+            current.count += child.count;
+            mergeChild(current, child, slots);
+        }
+        node.children.update(current);
+    }
+
+    /**
+     * Restores the no only child rule at node after merge gave it new
+     * children or locations
+     *
+     * @param node               node of this tree
+     */
+    private void mergeEmpty(RadixTreeNode node) {
+        if (node != root) {
+            RadixTreeNode empty = node.children.getEmpty();
+            int others = node.children.size() - (empty != null ? 1 : 0);
+            if (empty != null && others > 1) {
+                node.children.remove(empty);
+                node.mergeLocations(empty);
+            } else if (empty == null && others == 1
+                    && !node.locations.isEmpty()) {
+                newEmpty(node);
+            }
+        }
+    }
+
+    /**
+     * Helper for merge, gives every location in and below node its slot in
+     * this tree
+     *
+     * @param node               node of the other tree
+     * @param slots              slots in this tree of the other's slots
+     */
+    private void moveSlots(RadixTreeNode node, int[] slots) {
+        for (RadixTreeNode current : node.children) {
+            moveSlots(current, slots);
+        }
+        for (int i = 0; i < node.locations.size(); i++) {
+            node.locations.setInt(i, slots[node.locations.getInt(i)]);
+        }
+    }
+
+    /**
+     * Helper to compactLabels method
+     *
+     * @param node                     current start node
+     */
+    private void compactLabelsHelper(RadixTreeNode node) {
+        for (RadixTreeNode current : node.children) {
+            current.data = current.data.compact();
+            compactLabelsHelper(current);
+        }
+    }
+
+    /**
+     * Helper to stats method, counts node and every node below it
+     *
+     * @param node                     current start node
+     * @param depth                    edges from root to node
+     * @param result                   stats to count in
+     * @param sources                  backing sources already counted
+     */
+    private void statsHelper(RadixTreeNode node, int depth,
+            RadixTreeStats result, Set<Object> sources) {
+        RadixTreeChildren children = node.children;
+        long bytes = NODE_BYTES + CHILDREN_BYTES + LOCATION_LIST_BYTES
+                + arrayBytes(children.symbols == null ? 0
+                : 4L * children.symbols.length)
+                + arrayBytes(children.nodes == null ? 0
+                : 4L * children.nodes.length)
+                + arrayBytes(children.counted == null ? 0
+                : 4L * children.counted.length)
+                + arrayBytes(children.sums == null ? 0
+                : 4L * children.sums.length)
+                + arrayBytes(4L * node.locations.capacity());
+        int labelLength = 0;
+        if (node.data != null) {
+            labelLength = node.data.length();
+            bytes += LABEL_BYTES;
+            Object source = node.data.getSource();
+            if (source != null && sources.add(source)) {
+                //labels split from one element share its source, which
+                //is counted with the first of them found
+                bytes += sourceBytes(source);
+            }
+        }
+        result.addNode(depth, children.size(), node.locations.size(),
+                labelLength, depth > 1 && labelLength == 0, bytes);
+        for (RadixTreeNode current : children) {
+            statsHelper(current, depth + 1, result, sources);
+        }
+    }
+
+    /**
+     * estimated heap held by the source of a label
+     *
+     * @param source                   String or array labels are views onto
+     * @return long bytes, 0 for a source of unknown type
+     */
+    private static long sourceBytes(Object source) {
+        if (source instanceof String) {
+            //one byte per char, as held by a Latin-1 String
+            return STRING_BYTES + arrayBytes(((String) source).length());
+        } else if (source instanceof byte[]) {
+            return arrayBytes(((byte[]) source).length);
+        }
+        return 0;
+    }
+
+    /**
+     * estimated heap held by an array
+     *
+     * @param contents                 bytes of its entries, 0 for no array
+     * @return long bytes with the header, rounded up to the 8 bytes
+     *         objects are aligned to
+     */
+    private static long arrayBytes(long contents) {
+        if (contents == 0) {
+            return 0;
+        }
+        return (ARRAY_HEADER_BYTES + contents + 7) & ~7L;
+    }
+
+    /**
+     * takes an occurrence of element off the count of every node from root
+     * down to the node holding it
+     *
+     * @param element            element being removed
+     * @param end                node holding element's locations
+     */
+    private void uncountPath(AbstractRadixTreeElement element,
+            RadixTreeNode end) {
+        RadixTreeNode current = root;
+        int start = 0; //element before start is already matched
+        current.count--;
+        while (current != end) {
+            RadixTreeNode parent = current;
+            if (start < element.length()) {
+                current = current.children.get(element.symbolAt(start));
+            } else {
+                current = current.children.getEmpty();
+            }
+            current.count--;
+            parent.children.update(current);
+            start += current.data.length();
+        }
+    }
+
+    /**
+     * counts a new occurrence and gives it the next slot
+     *
+     * @return int slot of the new occurrence
+     */
+    private int nextSlot() {
+        size++;
+        modCount++;
+        return index.allocate();
+    }
+
+    /**
+     * renumbers every slot to its location, dropping released slots
+     */
+    private void compactLocations() {
+        int nodes = compactLocationsHelper(root);
+        index.reset(size);
+        if (RadixTreeMetrics.ENABLED && listener != null) {
+            listener.compacted(nodes);
+        }
+    }
+
+    /**
+     * Helper to compactLocations method
+     *
+     * @param node                     current start node
+     * @return int nodes renumbered, node and those below it
+     */
+    private int compactLocationsHelper(RadixTreeNode node) {
+        int nodes = 1;
+        for (RadixTreeNode current : node.children) {
+            nodes += compactLocationsHelper(current);
+        }
+        for (int i = 0; i < node.locations.size(); i++) {
+            node.locations.setInt(i, index.rank(node.locations.getInt(i)));
+        }
+        return nodes;
+    }
+
+    /**
+     * Helper for toArray
+     *
+     * @param array               array to populate
+     * @param element             current element to append data
+     * @param node               current start node
+     */
+    private void toArrayHelper(Object[] array,
+            AbstractRadixTreeElement element, RadixTreeNode node) {
+        for (RadixTreeNode current : node.children) {
+            toArrayHelper(array, element.append(current.data), current);
+        }
+        for (int i = 0; i < node.locations.size(); i++) {
+            array[index.rank(node.locations.getInt(i)) - 1] = element;
+        }
+    }
+
+    /**
+     * Provides new empty node for add method
+     *
+     * @param  parent   parent to add empty node to
+     */
+    private void newEmpty(RadixTreeNode parent) {
+        RadixTreeNode newEmpty = new RadixTreeNode(parent.data.subSet(0, 0));
+        newEmpty.mergeLocations(parent);
+        newEmpty.count = newEmpty.locations.size();
+        parent.children.add(newEmpty);
+    }
+
+
+
+
+
+
+
+
+
+
+    /**
+     * inner node class for RadixTree with generic of AbstractRadixTreeElement
+     */
+    private static class RadixTreeNode implements Comparable<RadixTreeNode> {
+        private AbstractRadixTreeElement data;
+        private RadixTreeChildren children;
+        private LocationList locations;
+        private int count; //locations in this node and all below it
+
+        /**
+         * RadixTreeNode constructor
+         *
+         * @param element data for node
+         */
+        private RadixTreeNode(AbstractRadixTreeElement element) {
+            data = element;
+            children = new RadixTreeChildren();
+            locations = new LocationList();
+        }
+
+        @Override
+        public int hashCode() {
+            if (data != null) {
+                return data.hashCode();
+            } else {
+                return -1;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other != null && other instanceof RadixTreeNode
+                    && data.equals(((RadixTreeNode) other).data);
+        }
+
+        @Override
+        public int compareTo(RadixTreeNode o) {
+            if (o != null) {
+                return this.data.compareTo(o.data);
+            } else {
+                throw new NullPointerException();
+            }
+        }
+
+        /**
+         * adds slot to the end of locations, or slots if not null
+         *
+         * @param  slot     slot to add
+         * @param  slots    slots to add in order, or null
+         */
+        private void addSlots(int slot, LocationList slots) {
+            if (slots == null) {
+                locations.addInt(slot);
+            } else {
+                locations.addAll(slots);
+            }
+        }
+
+        /**
+         * moves the locations of other to the end of locations, leaving
+         * other with none
+         *
+         * @param  other node whose locations are moved
+         */
+        private void mergeLocations(RadixTreeNode other) {
+            if (locations.isEmpty()) {
+                //hand the array over instead of copying it
+                locations = other.locations;
+                other.locations = new LocationList();
+            } else {
+                locations.addAll(other.locations);
+                other.locations.clear();
+            }
+        }
+
+        /**
+         * adds new Children to children
+         *
+         * @param  newChildren Children to be added
+         */
+        private void mergeChildren(RadixTreeChildren newChildren) {
+            for (RadixTreeNode newChild : newChildren) {
+                children.add(newChild);
+            }
+        }
+    }
+
+    /**
+     * inner class for the children of a RadixTreeNode, found by the first
+     * symbol of their data. Up to SORTED_LIMIT children are kept in arrays
+     * sorted by symbol and found by binary search; beyond that, while every
+     * first symbol fits in DIRECT_SIZE, they are kept in a table indexed by
+     * symbol. The empty subset child has no first symbol and is kept apart.
+     * Iteration is in symbol order with the empty subset child first.
+     *
+     * Beside each child in nodes, counted holds the count it had when it
+     * was last added or updated, and sums is a Fenwick tree over counted,
+     * so the occurrences in the children before a symbol are summed, and
+     * the child holding a position is found, in O(log fan-out).
+     */
+    private static class RadixTreeChildren
+            implements Iterable<RadixTreeNode> {
+        private RadixTreeNode empty;
+        private int[] symbols;
+        private RadixTreeNode[] nodes;
+        private int[] counted;
+        private int[] sums;
+        private int count;
+        private boolean direct;
+
+        /**
+         * finds the child whose data starts with symbol
+         *
+         * @param  symbol   first symbol of child
+         *
+         * @return child or null if there is none
+         */
+        private RadixTreeNode get(int symbol) {
+            if (direct) {
+                if (symbol < DIRECT_SIZE) {
+                    return nodes[symbol];
+                }
+            } else if (count > 0) {
+                int index = indexOf(symbol);
+                if (index >= 0) {
+                    return nodes[index];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * returns the empty subset child
+         *
+         * @return empty subset child or null if there is none
+         */
+        private RadixTreeNode getEmpty() {
+            return empty;
+        }
+
+        /**
+         * adds a child, no other child may start with the same symbol
+         *
+         * @param  node     child to add
+         */
+        private void add(RadixTreeNode node) {
+            if (node.data.length() == 0) {
+                empty = node;
+                return;
+            }
+            int symbol = node.data.symbolAt(0);
+            if (direct && symbol >= DIRECT_SIZE) {
+                toSorted();
+            }
+            if (direct) {
+                nodes[symbol] = node;
+                counted[symbol] = node.count;
+                addSum(symbol, node.count);
+            } else {
+                if (nodes == null) {
+                    symbols = new int[2];
+                    nodes = new RadixTreeNode[2];
+                    counted = new int[2];
+                } else if (count == nodes.length) {
+                    symbols = Arrays.copyOf(symbols, count * 2);
+                    nodes = Arrays.copyOf(nodes, count * 2);
+                    counted = Arrays.copyOf(counted, count * 2);
+                }
+                int index = -(indexOf(symbol) + 1);
+                System.arraycopy(symbols, index, symbols, index + 1,
+                        count - index);
+                System.arraycopy(nodes, index, nodes, index + 1,
+                        count - index);
+                System.arraycopy(counted, index, counted, index + 1,
+                        count - index);
+                symbols[index] = symbol;
+                nodes[index] = node;
+                counted[index] = node.count;
+                //the children after index moved, so their sums change
+                buildSums();
+            }
+            count++;
+            if (!direct && count > SORTED_LIMIT
+                    && symbols[count - 1] < DIRECT_SIZE) {
+                toDirect();
+            }
+        }
+
+        /**
+         * removes a child
+         *
+         * @param  node     child to remove
+         *
+         * @return boolean if node was a child
+         */
+        private boolean remove(RadixTreeNode node) {
+            if (node == empty) {
+                empty = null;
                 return true;
+            }
+            if (node.data.length() == 0 || node != get(
+                    node.data.symbolAt(0))) {
+                return false;
+            }
+            int symbol = node.data.symbolAt(0);
+            if (direct) {
+                nodes[symbol] = null;
+                addSum(symbol, -counted[symbol]);
+                counted[symbol] = 0;
+            } else {
+                int index = indexOf(symbol);
+                System.arraycopy(symbols, index + 1, symbols, index,
+                        count - index - 1);
+                System.arraycopy(nodes, index + 1, nodes, index,
+                        count - index - 1);
+                System.arraycopy(counted, index + 1, counted, index,
+                        count - index - 1);
+                nodes[count - 1] = null;
+                counted[count - 1] = 0;
+                buildSums();
+            }
+            count--;
+            if (direct && count <= SORTED_LIMIT / 2) {
+                toSorted();
+            }
+            return true;
+        }
+
+        /**
+         * removes the first child in iteration order
+         *
+         * @return removed child
+         */
+        private RadixTreeNode removeFirst() {
+            RadixTreeNode first = peek();
+            if (first == null) {
+                throw new NoSuchElementException();
+            }
+            remove(first);
+            return first;
+        }
+
+        /**
+         * returns the first child in iteration order
+         *
+         * @return first child or null if there are no children
+         */
+        private RadixTreeNode peek() {
+            if (empty != null) {
+                return empty;
+            } else if (count == 0) {
+                return null;
+            } else if (!direct) {
+                return nodes[0];
+            }
+            int i = 0;
+            while (nodes[i] == null) {
+                i++;
+            }
+            return nodes[i];
+        }
+
+        /**
+         * brings the sums up to date with the count of a child, which must
+         * be called whenever the count of a child other than the empty
+         * subset child changes
+         *
+         * @param  node     child whose count changed
+         */
+        private void update(RadixTreeNode node) {
+            if (node == empty) {
+                return;
+            }
+            int index = direct ? node.data.symbolAt(0)
+                    : indexOf(node.data.symbolAt(0));
+            int delta = node.count - counted[index];
+            if (delta != 0) {
+                counted[index] = node.count;
+                addSum(index, delta);
+            }
+        }
+
+        /**
+         * counts the occurrences in and below the children, other than the
+         * empty subset child, whose first symbol is less than symbol
+         *
+         * @param  symbol   symbol to count up to
+         *
+         * @return int occurrences before symbol
+         */
+        private int countBefore(int symbol) {
+            if (count == 0) {
+                return 0;
+            }
+            int index;
+            if (direct) {
+                index = Math.min(symbol, DIRECT_SIZE);
+            } else {
+                index = indexOf(symbol);
+                if (index < 0) {
+                    index = -(index + 1);
+                }
+            }
+            int result = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                result += sums[i];
+            }
+            return result;
+        }
+
+        /**
+         * finds the child, other than the empty subset child, holding the
+         * occurrence at position, counting from the first symbol
+         *
+         * @param  position     occurrence to find, less than the sum of
+         *                      the counts of the children
+         *
+         * @return child holding position
+         */
+        private RadixTreeNode childAt(int position) {
+            int index = 0; //children before index sum to at most position
+            for (int step = Integer.highestOneBit(sums.length - 1);
+                    step > 0; step >>= 1) {
+                if (index + step < sums.length
+                        && sums[index + step] <= position) {
+                    index += step;
+                    position -= sums[index];
+                }
+            }
+            return nodes[index];
+        }
+
+        /**
+         * adds delta to the count at index of nodes in sums
+         *
+         * @param  index    index of nodes
+         * @param  delta    change in count
+         */
+        private void addSum(int index, int delta) {
+            for (int i = index + 1; i < sums.length; i += i & -i) {
+                sums[i] += delta;
+            }
+        }
+
+        /**
+         * builds sums again from counted
+         */
+        private void buildSums() {
+            sums = new int[counted.length + 1];
+            for (int i = 1; i < sums.length; i++) {
+                sums[i] += counted[i - 1];
+                int parent = i + (i & -i);
+                if (parent < sums.length) {
+                    sums[parent] += sums[i];
+                }
+            }
+        }
+
+        /**
+         * removes all children
+         */
+        private void clear() {
+            empty = null;
+            symbols = null;
+            nodes = null;
+            counted = null;
+            sums = null;
+            count = 0;
+            direct = false;
+        }
+
+        /**
+         * number of children including the empty subset child
+         *
+         * @return number of children
+         */
+        private int size() {
+            if (empty != null) {
+                return count + 1;
             } else {
-                i = 0;
-                return false;
+                return count;
+            }
+        }
+
+        /**
+         * if there are no children
+         *
+         * @return boolean if there are no children
+         */
+        private boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Iterator<RadixTreeNode> iterator() {
+            return new ChildIterator(empty != null, 0);
+        }
+
+        /**
+         * iterator over the children whose first symbol is at least from,
+         * leaving out the empty subset child
+         *
+         * @param  from     smallest first symbol to return
+         *
+         * @return Iterator over children in symbol order
+         */
+        private Iterator<RadixTreeNode> iterator(int from) {
+            if (direct) {
+                return new ChildIterator(false, Math.min(from, DIRECT_SIZE));
+            }
+            int index = indexOf(from);
+            if (index < 0) {
+                index = -(index + 1);
+            }
+            return new ChildIterator(false, index);
+        }
+
+        /**
+         * iterator over the children whose first symbol is at most to, from
+         * the last symbol down, ending with the empty subset child
+         *
+         * @param  to       largest first symbol to return
+         *
+         * @return Iterator over children in reverse symbol order
+         */
+        private Iterator<RadixTreeNode> descendingIterator(int to) {
+            int start;
+            if (direct) {
+                start = Math.min(to, DIRECT_SIZE - 1);
+            } else {
+                start = indexOf(to);
+                if (start < 0) {
+                    start = -(start + 1) - 1;
+                }
+            }
+            return new DescendingChildIterator(start);
+        }
+
+        /**
+         * iterator over children in reverse symbol order, starting at an
+         * index of nodes
+         */
+        private class DescendingChildIterator
+                implements Iterator<RadixTreeNode> {
+            private boolean emptyDone;
+            private int i;
+
+            /**
+             * DescendingChildIterator constructor
+             *
+             * @param  start        index of nodes to start at
+             */
+            private DescendingChildIterator(int start) {
+                emptyDone = empty == null;
+                i = start;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (direct) {
+                    while (i >= 0 && nodes[i] == null) {
+                        i--;
+                    }
+                }
+                return i >= 0 || !emptyDone;
+            }
+
+            @Override
+            public RadixTreeNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (i >= 0) {
+                    return nodes[i--];
+                }
+                emptyDone = true;
+                return empty;
+            }
+        }
+
+        /**
+         * iterator over children in symbol order, starting at an index of
+         * nodes
+         */
+        private class ChildIterator implements Iterator<RadixTreeNode> {
+            private boolean emptyDone;
+            private int i;
+
+            /**
+             * ChildIterator constructor
+             *
+             * @param  withEmpty    if the empty subset child comes first
+             * @param  start        index of nodes to start at
+             */
+            private ChildIterator(boolean withEmpty, int start) {
+                emptyDone = !withEmpty;
+                i = start;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!emptyDone) {
+                    return true;
+                }
+                if (direct) {
+                    while (i < DIRECT_SIZE && nodes[i] == null) {
+                        i++;
+                    }
+                    return i < DIRECT_SIZE;
+                }
+                return i < count;
+            }
+
+            @Override
+            public RadixTreeNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (!emptyDone) {
+                    emptyDone = true;
+                    return empty;
+                }
+                return nodes[i++];
+            }
+        }
+
+        /**
+         * binary search for symbol in sorted arrays
+         *
+         * @param  symbol   symbol to find
+         *
+         * @return index of symbol, or -(insertion point + 1) if not present
+         */
+        private int indexOf(int symbol) {
+            if (symbols == null) {
+                return -1;
+            }
+            return Arrays.binarySearch(symbols, 0, count, symbol);
+        }
+
+        /**
+         * moves children from sorted arrays to table indexed by symbol
+         */
+        private void toDirect() {
+            RadixTreeNode[] table = new RadixTreeNode[DIRECT_SIZE];
+            int[] tableCounted = new int[DIRECT_SIZE];
+            for (int i = 0; i < count; i++) {
+                table[symbols[i]] = nodes[i];
+                tableCounted[symbols[i]] = counted[i];
+            }
+            nodes = table;
+            counted = tableCounted;
+            symbols = null;
+            direct = true;
+            buildSums();
+        }
+
+        /**
+         * moves children from table indexed by symbol to sorted arrays
+         */
+        private void toSorted() {
+            int length = Math.max(2, count * 2);
+            int[] newSymbols = new int[length];
+            RadixTreeNode[] newNodes = new RadixTreeNode[length];
+            int[] newCounted = new int[length];
+            int j = 0;
+            for (int i = 0; i < DIRECT_SIZE; i++) {
+                if (nodes[i] != null) {
+                    newSymbols[j] = i;
+                    newCounted[j] = counted[i];
+                    newNodes[j++] = nodes[i];
+                }
+            }
+            symbols = newSymbols;
+            nodes = newNodes;
+            counted = newCounted;
+            direct = false;
+            buildSums();
+        }
+    }
+
+    /**
+     * Inner node class for Iterator
+     *
+     * Walks the tree in order of elements, returning each element once per
+     * occurrence, without building the elements up front. The stack holds
+     * the children still to visit of every node on the current path. The
+     * nodes of the path and the elements leading to them are kept in
+     * arrays reused for the whole walk, and an element is only built when
+     * it is returned or checked, with one append onto its parent's, so
+     * nodes without locations cost no element until something below them
+     * is returned.
+     */
+    private class RadixTreeIterator implements Iterator<V> {
+        private final ArrayDeque<Iterator<RadixTreeNode>> children;
+        private RadixTreeNode[] path;
+        private AbstractRadixTreeElement[] keys;
+        private final V prefix;
+        private final boolean distinct;
+        private final V to;
+        private final boolean toInclusive;
+        private boolean checkPrefix;
+        private V next;
+        private int remaining;
+        private V lastReturned;
+        private int expectedModCount;
+
+        /**
+         * RadixTreeIterator constructor
+         */
+        public RadixTreeIterator() {
+            this(false, null, null, false);
+            if (!isEmpty()) {
+                push(root.children.iterator(), root,
+                        root.children.peek().data.subSet(0, 0));
+            }
+        }
+
+        /**
+         * RadixTreeIterator constructor for each distinct element once,
+         * between from and to
+         *
+         * @param  from         lowest element, or null to start at the first
+         * @param  fromInclusive    if from itself may be returned
+         * @param  to           highest element, or null to go to the last
+         * @param  toInclusive  if to itself may be returned
+         */
+        public RadixTreeIterator(V from, boolean fromInclusive, V to,
+                boolean toInclusive) {
+            this(true, null, to, toInclusive);
+            if (from == null) {
+                if (!isEmpty()) {
+                    push(root.children.iterator(), root,
+                            root.children.peek().data.subSet(0, 0));
+                }
+            } else {
+                seekAfter(from);
+                if (fromInclusive && findHelper(from) != null
+                        && inRange(from)) {
+                    next = from;
+                    remaining = 1;
+                }
+            }
+        }
+
+        /**
+         * RadixTreeIterator constructor for elements starting with prefix
+         *
+         * @param  prefix       start of elements to iterate over
+         */
+        public RadixTreeIterator(V prefix) {
+            this(false, prefix, null, false);
+            RadixTreeNode[] nodes = new RadixTreeNode[1];
+            int start = prefixHelper(prefix, nodes);
+            if (start >= 0) {
+                //only the subtree of the node found
+                push(Collections.singletonList(nodes[0]).iterator(), null,
+                        prefix.subSet(0, start));
+            }
+        }
+
+        /**
+         * RadixTreeIterator constructor leaving the stack empty
+         *
+         * @param  distinct     if elements are returned once each
+         * @param  prefix       start of elements, or null for all
+         * @param  to           highest element, or null to go to the last
+         * @param  toInclusive  if to itself may be returned
+         */
+        private RadixTreeIterator(boolean distinct, V prefix, V to,
+                boolean toInclusive) {
+            children = new ArrayDeque<>();
+            path = new RadixTreeNode[16];
+            keys = new AbstractRadixTreeElement[16];
+            this.prefix = prefix;
+            this.distinct = distinct;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * If has next
+         *
+         * @return hasNext() boolean
+         */
+        public boolean hasNext() {
+            checkForComodification();
+            if (remaining == 0) {
+                advance();
             }
+            return remaining > 0;
         }
 
         /**
@@ -566,10 +2005,395 @@ public class RadixTree<V extends AbstractRadixTreeElement>
          * @return next element
          */
         public V next() {
-            if (hasNext()) {
-                return (V) array[i++];
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            lastReturned = next;
+            return next;
+        }
+
+        /**
+         * Removes an occurrence of the last element returned, or every
+         * occurrence when elements are returned once each
+         */
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            RadixTree.this.remove(lastReturned);
+            while (distinct && RadixTree.this.remove(lastReturned)) {
+                //removes the remaining occurrences
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+            //the remove may have split or merged nodes on the stack, so
+            //find the place to carry on from again. That starts from root,
+            //so from then on elements need checking against prefix
+            V current = next;
+            int left = remaining;
+            seekAfter(current);
+            checkPrefix = prefix != null;
+            next = current;
+            remaining = left;
+        }
+
+        /**
+         * moves down to the next node that has locations
+         */
+        private void advance() {
+            while (!children.isEmpty()) {
+                Iterator<RadixTreeNode> current = children.peek();
+                if (current.hasNext()) {
+                    RadixTreeNode node = current.next();
+                    push(node.children.iterator(), node, null);
+                    if (!node.locations.isEmpty()) {
+                        V key = typed(keyAt(children.size() - 1));
+                        if ((checkPrefix && prefix.mismatch(key, 0)
+                                < prefix.length()) || !inRange(key)) {
+                            //past the elements to return
+                            clearPath();
+                            return;
+                        }
+                        next = key;
+                        if (distinct) {
+                            remaining = 1;
+                        } else {
+                            remaining = node.locations.size();
+                        }
+                        return;
+                    }
+                } else {
+                    children.pop();
+                    keys[children.size()] = null;
+                }
+            }
+        }
+
+        /**
+         * pushes a node onto the path
+         *
+         * @param  remaining    children of node still to visit
+         * @param  node         node on the path
+         * @param  key          element leading to node, or null to build it
+         *                      from its parent's when needed
+         */
+        private void push(Iterator<RadixTreeNode> remaining,
+                RadixTreeNode node, AbstractRadixTreeElement key) {
+            int depth = children.size();
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                keys = Arrays.copyOf(keys, depth * 2);
+            }
+            path[depth] = node;
+            keys[depth] = key;
+            children.push(remaining);
+        }
+
+        /**
+         * builds the element leading to a node on the path, and to every
+         * node above it that is not built yet
+         *
+         * @param  depth        place of the node on the path
+         *
+         * @return AbstractRadixTreeElement leading to the node
+         */
+        private AbstractRadixTreeElement keyAt(int depth) {
+            int built = depth;
+            while (keys[built] == null) {
+                built--;
+            }
+            while (built < depth) {
+                keys[built + 1] = keys[built].append(path[built + 1].data);
+                built++;
+            }
+            return keys[depth];
+        }
+
+        /**
+         * empties the path
+         */
+        private void clearPath() {
+            Arrays.fill(keys, 0, children.size(), null);
+            children.clear();
+        }
+
+        /**
+         * rebuilds the stack so that advance carries on with the first
+         * element greater than element
+         *
+         * @param  element      element to carry on after
+         */
+        private void seekAfter(V element) {
+            clearPath();
+            if (isEmpty()) {
+                return;
+            }
+            RadixTreeNode node = root;
+            AbstractRadixTreeElement key = root.children.peek().data.subSet(0,
+                    0);
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                int symbol = element.symbolAt(start);
+                RadixTreeNode current = node.children.get(symbol);
+                if (current == null) {
+                    break;
+                }
+                int comparison = current.data.mismatch(element, start);
+                if (comparison < current.data.length()) {
+                    if (start + comparison == element.length()
+                            || current.data.symbolAt(comparison)
+                            > element.symbolAt(start + comparison)) {
+                        //all of current comes after element
+                        push(node.children.iterator(symbol), node, key);
+                    } else {
+                        push(node.children.iterator(symbol + 1), node, key);
+                    }
+                    return;
+                }
+                push(node.children.iterator(symbol + 1), node, key);
+                key = null; //built from the path only if needed
+                node = current;
+                start += comparison;
+            }
+            if (start < element.length()) {
+                push(node.children.iterator(element.symbolAt(start) + 1),
+                        node, key);
+            } else {
+                //leaves out the empty subset child, which is element itself
+                push(node.children.iterator(0), node, key);
+            }
+        }
+
+        /**
+         * checks element against the highest element to return
+         *
+         * @param  element      element to check
+         *
+         * @return boolean if element is not past to
+         */
+        private boolean inRange(V element) {
+            if (to == null) {
+                return true;
+            }
+            int comparison = element.compareTo(to);
+            return comparison < 0 || (comparison == 0 && toInclusive);
+        }
+
+        /**
+         * fails if the tree was changed other than through this iterator
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Inner class for iterating over distinct elements from highest to
+     * lowest
+     *
+     * The walk is the reverse of RadixTreeIterator's: children from the
+     * last symbol down, and a node's own element only after all of its
+     * children, since it is a prefix of, and so less than, each of theirs.
+     */
+    private class DescendingIterator implements Iterator<V> {
+        private final ArrayDeque<Frame> frames;
+        private final V to;
+        private final boolean toInclusive;
+        private V next;
+        private V lastReturned;
+        private int expectedModCount;
+
+        /**
+         * DescendingIterator constructor
+         *
+         * @param  from         highest element, or null to start at the last
+         * @param  fromInclusive    if from itself may be returned
+         * @param  to           lowest element, or null to go to the first
+         * @param  toInclusive  if to itself may be returned
+         */
+        private DescendingIterator(V from, boolean fromInclusive, V to,
+                boolean toInclusive) {
+            frames = new ArrayDeque<>();
+            this.to = to;
+            this.toInclusive = toInclusive;
+            expectedModCount = modCount;
+            if (from == null) {
+                if (!isEmpty()) {
+                    frames.push(new Frame(root, root.children.peek().data
+                            .subSet(0, 0), root.children.descendingIterator(
+                            Integer.MAX_VALUE)));
+                }
+            } else {
+                seekBefore(from, fromInclusive);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            if (next == null) {
+                advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = null;
+            return lastReturned;
+        }
+
+        /**
+         * Removes every occurrence of the last element returned
+         */
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            while (RadixTree.this.remove(lastReturned)) {
+                //removes every occurrence
+            }
+            expectedModCount = modCount;
+            //the remove may have split or merged nodes on the stack
+            V current = next;
+            if (current == null) {
+                seekBefore(lastReturned, false);
+            } else {
+                seekBefore(current, false);
+                next = current;
+            }
+            lastReturned = null;
+        }
+
+        /**
+         * moves on to the next node, in reverse order, that has locations
+         */
+        private void advance() {
+            while (!frames.isEmpty()) {
+                Frame frame = frames.peek();
+                if (frame.children.hasNext()) {
+                    RadixTreeNode node = frame.children.next();
+                    frames.push(new Frame(node, frame.key.append(
+                            node.data), node.children.descendingIterator(
+                            Integer.MAX_VALUE)));
+                } else {
+                    frames.pop();
+                    if (frame.node != root
+                            && !frame.node.locations.isEmpty()) {
+                        if (to != null) {
+                            int comparison = frame.key.compareTo(to);
+                            if (comparison < 0
+                                    || (comparison == 0 && !toInclusive)) {
+                                frames.clear();
+                                return;
+                            }
+                        }
+                        next = typed(frame.key);
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * rebuilds the stack so that advance carries on with the last
+         * element less than, or equal to if inclusive, element
+         *
+         * @param  element      element to carry on before
+         * @param  inclusive    if element itself comes next
+         */
+        private void seekBefore(V element, boolean inclusive) {
+            frames.clear();
+            if (isEmpty()) {
+                return;
+            }
+            RadixTreeNode node = root;
+            AbstractRadixTreeElement key = root.children.peek().data.subSet(0,
+                    0);
+            int start = 0; //element before start is already matched
+            while (start < element.length()) {
+                //node is a prefix of element, so comes after its children
+                //before element
+                int symbol = element.symbolAt(start);
+                RadixTreeNode current = node.children.get(symbol);
+                if (current == null) {
+                    frames.push(new Frame(node, key,
+                            node.children.descendingIterator(symbol - 1)));
+                    return;
+                }
+                int comparison = current.data.mismatch(element, start);
+                if (comparison < current.data.length()) {
+                    if (start + comparison < element.length()
+                            && current.data.symbolAt(comparison)
+                            < element.symbolAt(start + comparison)) {
+                        //all of current comes before element
+                        frames.push(new Frame(node, key,
+                                node.children.descendingIterator(symbol)));
+                    } else {
+                        frames.push(new Frame(node, key,
+                                node.children.descendingIterator(
+                                symbol - 1)));
+                    }
+                    return;
+                }
+                frames.push(new Frame(node, key,
+                        node.children.descendingIterator(symbol - 1)));
+                key = key.append(current.data);
+                node = current;
+                start += comparison;
+            }
+            if (inclusive) {
+                //only element itself, in node or its empty subset node
+                if (node.children.getEmpty() != null) {
+                    frames.push(new Frame(node, key, Collections.singletonList(
+                            node.children.getEmpty()).iterator()));
+                } else {
+                    frames.push(new Frame(node, key,
+                            Collections.<RadixTreeNode>emptyIterator()));
+                }
+            }
+        }
+
+        /**
+         * fails if the tree was changed other than through this iterator
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /**
+         * a node on the current path with the children still to visit
+         */
+        private class Frame {
+            private final RadixTreeNode node;
+            private final AbstractRadixTreeElement key;
+            private final Iterator<RadixTreeNode> children;
+
+            /**
+             * Frame constructor
+             *
+             * @param  node         node on the path
+             * @param  key          element leading to node
+             * @param  children     children of node still to visit
+             */
+            private Frame(RadixTreeNode node, AbstractRadixTreeElement key,
+                    Iterator<RadixTreeNode> children) {
+                this.node = node;
+                this.key = key;
+                this.children = children;
             }
-            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,373 @@
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * NavigableSet view of the distinct elements of a RadixTree, optionally
+ * limited to a range and in descending order.
+ *
+ * The view is backed by the tree: changes to the tree show in the view and
+ * removing through the view removes every occurrence from the tree. Finding
+ * a neighbouring element costs one descent of the tree, and iterating over a
+ * range walks only the part of the tree inside it.
+ *
+ * @param <V> generic that is instance of AbstractRadixTreeElement
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class RadixTreeKeySet<V extends AbstractRadixTreeElement>
+        extends AbstractSet<V> implements NavigableSet<V> {
+    private final AbstractRadixTree<V> tree;
+    private final V lo;
+    private final boolean loInclusive;
+    private final V hi;
+    private final boolean hiInclusive;
+    private final boolean descending;
+
+    /**
+     * RadixTreeKeySet constructor
+     *
+     * @param  tree         backing tree
+     * @param  lo           lowest element, or null for no lower limit
+     * @param  loInclusive  if lo itself is in range
+     * @param  hi           highest element, or null for no upper limit
+     * @param  hiInclusive  if hi itself is in range
+     * @param  descending   if the view is in descending order
+     */
+    RadixTreeKeySet(AbstractRadixTree<V> tree, V lo, boolean loInclusive,
+            V hi, boolean hiInclusive, boolean descending) {
+        this.tree = tree;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.descending = descending;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        if (descending) {
+            return tree.descendingKeyIterator(hi, hiInclusive, lo,
+                    loInclusive);
+        }
+        return tree.keyIterator(lo, loInclusive, hi, hiInclusive);
+    }
+
+    @Override
+    public Iterator<V> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<V> descendingSet() {
+        return new RadixTreeKeySet<>(tree, lo, loInclusive, hi, hiInclusive,
+                !descending);
+    }
+
+    @Override
+    public int size() {
+        int result = 0;
+        for (Iterator<V> elements = iterator(); elements.hasNext();) {
+            elements.next();
+            result++;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lowest() == null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        //inRange only compares o to the bounds, as tree.contains does
+        return o != null && o instanceof AbstractRadixTreeElement
+                && inRange((V) o) && tree.contains(o);
+    }
+
+    /**
+     * removes every occurrence of o from the tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        boolean result = false;
+        if (contains(o)) {
+            while (tree.remove(o)) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        if (lo == null && hi == null) {
+            tree.clear();
+        } else {
+            super.clear();
+        }
+    }
+
+    @Override
+    public Comparator<? super V> comparator() {
+        if (descending) {
+            return Collections.reverseOrder();
+        }
+        return null;
+    }
+
+    @Override
+    public V first() {
+        return orThrow(descending ? highest() : lowest());
+    }
+
+    @Override
+    public V last() {
+        return orThrow(descending ? lowest() : highest());
+    }
+
+    @Override
+    public V lower(V e) {
+        return descending ? above(e, false) : below(e, false);
+    }
+
+    @Override
+    public V floor(V e) {
+        return descending ? above(e, true) : below(e, true);
+    }
+
+    @Override
+    public V ceiling(V e) {
+        return descending ? below(e, true) : above(e, true);
+    }
+
+    @Override
+    public V higher(V e) {
+        return descending ? below(e, false) : above(e, false);
+    }
+
+    @Override
+    public V pollFirst() {
+        V result = descending ? highest() : lowest();
+        if (result != null) {
+            remove(result);
+        }
+        return result;
+    }
+
+    @Override
+    public V pollLast() {
+        V result = descending ? lowest() : highest();
+        if (result != null) {
+            remove(result);
+        }
+        return result;
+    }
+
+    @Override
+    public NavigableSet<V> subSet(V fromElement, boolean fromInclusive,
+            V toElement, boolean toInclusive) {
+        if (descending) {
+            return range(toElement, toInclusive, fromElement, fromInclusive);
+        }
+        return range(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    @Override
+    public NavigableSet<V> headSet(V toElement, boolean inclusive) {
+        if (descending) {
+            return range(toElement, inclusive, hi, hiInclusive);
+        }
+        return range(lo, loInclusive, toElement, inclusive);
+    }
+
+    @Override
+    public NavigableSet<V> tailSet(V fromElement, boolean inclusive) {
+        if (descending) {
+            return range(lo, loInclusive, fromElement, inclusive);
+        }
+        return range(fromElement, inclusive, hi, hiInclusive);
+    }
+
+    @Override
+    public SortedSet<V> subSet(V fromElement, V toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<V> headSet(V toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<V> tailSet(V fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * smallest element in range
+     *
+     * @return smallest element or null if the range is empty
+     */
+    private V lowest() {
+        return firstOf(tree.keyIterator(lo, loInclusive, hi, hiInclusive));
+    }
+
+    /**
+     * largest element in range
+     *
+     * @return largest element or null if the range is empty
+     */
+    private V highest() {
+        return firstOf(tree.descendingKeyIterator(hi, hiInclusive, lo,
+                loInclusive));
+    }
+
+    /**
+     * smallest element in range above e, in natural order
+     *
+     * @param  e            element to start from
+     * @param  inclusive    if e itself may be returned
+     *
+     * @return element or null if there is none
+     */
+    private V above(V e, boolean inclusive) {
+        if (tooLow(e)) {
+            return lowest();
+        }
+        return firstOf(tree.keyIterator(e, inclusive, hi, hiInclusive));
+    }
+
+    /**
+     * largest element in range below e, in natural order
+     *
+     * @param  e            element to start from
+     * @param  inclusive    if e itself may be returned
+     *
+     * @return element or null if there is none
+     */
+    private V below(V e, boolean inclusive) {
+        if (tooHigh(e)) {
+            return highest();
+        }
+        return firstOf(tree.descendingKeyIterator(e, inclusive, lo,
+                loInclusive));
+    }
+
+    /**
+     * view of part of this view's range, in ascending terms
+     *
+     * @param  from         lowest element, or null for no lower limit
+     * @param  fromInclusive    if from itself is in range
+     * @param  to           highest element, or null for no upper limit
+     * @param  toInclusive  if to itself is in range
+     *
+     * @return new RadixTreeKeySet
+     */
+    private NavigableSet<V> range(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        if (from != null && from != lo && !inRange(from, fromInclusive)) {
+            throw new IllegalArgumentException("fromElement out of range");
+        }
+        if (to != null && to != hi && !inRange(to, toInclusive)) {
+            throw new IllegalArgumentException("toElement out of range");
+        }
+        return new RadixTreeKeySet<>(tree, from, fromInclusive, to,
+                toInclusive, descending);
+    }
+
+    /**
+     * if e is below this view's range
+     *
+     * @param  e            element to check
+     *
+     * @return boolean if e is too low
+     */
+    private boolean tooLow(V e) {
+        if (lo == null) {
+            return false;
+        }
+        int comparison = e.compareTo(lo);
+        return comparison < 0 || (comparison == 0 && !loInclusive);
+    }
+
+    /**
+     * if e is above this view's range
+     *
+     * @param  e            element to check
+     *
+     * @return boolean if e is too high
+     */
+    private boolean tooHigh(V e) {
+        if (hi == null) {
+            return false;
+        }
+        int comparison = e.compareTo(hi);
+        return comparison > 0 || (comparison == 0 && !hiInclusive);
+    }
+
+    /**
+     * if e is in this view's range
+     *
+     * @param  e            element to check
+     *
+     * @return boolean if e is in range
+     */
+    private boolean inRange(V e) {
+        return !tooLow(e) && !tooHigh(e);
+    }
+
+    /**
+     * if e may bound a view inside this one
+     *
+     * @param  e            element to check
+     * @param  inclusive    if e will itself be in range of the new view
+     *
+     * @return boolean if e is in range, or on an excluded end when not
+     *         inclusive
+     */
+    private boolean inRange(V e, boolean inclusive) {
+        if (inclusive) {
+            return inRange(e);
+        }
+        return (lo == null || e.compareTo(lo) >= 0)
+                && (hi == null || e.compareTo(hi) <= 0);
+    }
+
+    /**
+     * first element of an iterator
+     *
+     * @param  elements     iterator
+     *
+     * @return first element or null if there is none
+     */
+    private V firstOf(Iterator<V> elements) {
+        if (elements.hasNext()) {
+            return elements.next();
+        }
+        return null;
+    }
+
+    /**
+     * returns element or throws if there is none
+     *
+     * @param  element      element to check
+     *
+     * @return element
+     */
+    private V orThrow(V element) {
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Told by a RadixTree of the work each operation does, once the JVM is
+ * started with -Dradixtree.metrics=true. A node is counted as visited when
+ * its data is compared with the element, and symbols are those of the
+ * element matched by the nodes visited.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public interface RadixTreeListener {
+
+    /**
+     * called after the descent of find, findAll, contains or remove
+     *
+     * @param nodes              nodes visited
+     * @param symbols            symbols matched
+     */
+    void found(int nodes, int symbols);
+
+    /**
+     * called after an element is added
+     *
+     * @param nodes              nodes visited
+     * @param symbols            symbols matched
+     * @param split              if a node was split (CASE3)
+     */
+    void added(int nodes, int symbols, boolean split);
+
+    /**
+     * called after an occurrence is removed
+     *
+     * @param merged             if a node was merged with its only child
+     */
+    void removed(boolean merged);
+
+    /**
+     * called after released slots are dropped and every location is
+     * renumbered
+     *
+     * @param nodes              nodes renumbered
+     */
+    void compacted(int nodes);
+
+    /**
+     * called when find, findAll or contains looks in the cache set by
+     * setCacheSize
+     *
+     * @param hit                if the cache held the element
+     */
+    void cached(boolean hit);
+}
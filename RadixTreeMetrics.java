@@ -0,0 +1,213 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what RadixTree operations do, as a RadixTreeListener any number
+ * of trees may share, and shows the counts over JMX once registered.
+ *
+ * Trees only call listeners when the JVM is started with
+ * -Dradixtree.metrics=true. ENABLED is a constant, so otherwise the JIT
+ * drops the calls and the counting that feeds them from every path.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class RadixTreeMetrics implements RadixTreeListener,
+        RadixTreeMetricsMBean {
+    /**
+     * if trees call their listeners, read once from radixtree.metrics
+     */
+    public static final boolean ENABLED =
+            Boolean.getBoolean("radixtree.metrics");
+
+    /**
+     * entries in each histogram, the last counting every deeper operation
+     */
+    private static final int BUCKETS = 32;
+
+    private final LongAdder finds = new LongAdder();
+    private final LongAdder findNodes = new LongAdder();
+    private final LongAdder findSymbols = new LongAdder();
+    private final AtomicLongArray findHistogram = new AtomicLongArray(BUCKETS);
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder addNodes = new LongAdder();
+    private final LongAdder addSymbols = new LongAdder();
+    private final AtomicLongArray addHistogram = new AtomicLongArray(BUCKETS);
+    private final LongAdder splits = new LongAdder();
+    private final LongAdder removes = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder compactedNodes = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * radixtree:type=RadixTreeMetrics,name=name
+     *
+     * @param name name telling these metrics from others
+     * @return ObjectName registered
+     * @throws JMException if the name is taken or not valid
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(
+                "radixtree:type=RadixTreeMetrics,name=" + name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                objectName);
+        return objectName;
+    }
+
+    @Override
+    public void found(int nodes, int symbols) {
+        finds.increment();
+        findNodes.add(nodes);
+        findSymbols.add(symbols);
+        findHistogram.incrementAndGet(Math.min(nodes, BUCKETS - 1));
+    }
+
+    @Override
+    public void added(int nodes, int symbols, boolean split) {
+        adds.increment();
+        addNodes.add(nodes);
+        addSymbols.add(symbols);
+        addHistogram.incrementAndGet(Math.min(nodes, BUCKETS - 1));
+        if (split) {
+            splits.increment();
+        }
+    }
+
+    @Override
+    public void removed(boolean merged) {
+        removes.increment();
+        if (merged) {
+            merges.increment();
+        }
+    }
+
+    @Override
+    public void compacted(int nodes) {
+        compactions.increment();
+        compactedNodes.add(nodes);
+    }
+
+    @Override
+    public void cached(boolean hit) {
+        if (hit) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+        }
+    }
+
+    @Override
+    public long getFinds() {
+        return finds.sum();
+    }
+
+    @Override
+    public long getFindNodes() {
+        return findNodes.sum();
+    }
+
+    @Override
+    public long getFindSymbols() {
+        return findSymbols.sum();
+    }
+
+    @Override
+    public long[] getFindHistogram() {
+        return toArray(findHistogram);
+    }
+
+    @Override
+    public long getAdds() {
+        return adds.sum();
+    }
+
+    @Override
+    public long getAddNodes() {
+        return addNodes.sum();
+    }
+
+    @Override
+    public long getAddSymbols() {
+        return addSymbols.sum();
+    }
+
+    @Override
+    public long[] getAddHistogram() {
+        return toArray(addHistogram);
+    }
+
+    @Override
+    public long getSplits() {
+        return splits.sum();
+    }
+
+    @Override
+    public long getRemoves() {
+        return removes.sum();
+    }
+
+    @Override
+    public long getMerges() {
+        return merges.sum();
+    }
+
+    @Override
+    public long getCompactions() {
+        return compactions.sum();
+    }
+
+    @Override
+    public long getCompactedNodes() {
+        return compactedNodes.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[] {finds, findNodes,
+            findSymbols, adds, addNodes, addSymbols, splits, removes, merges,
+            compactions, compactedNodes, cacheHits, cacheMisses}) {
+            counter.reset();
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            findHistogram.set(i, 0);
+            addHistogram.set(i, 0);
+        }
+    }
+
+    /**
+     * copies a histogram
+     *
+     * @param histogram          histogram to copy
+     * @return long[] its entries
+     */
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] result = new long[histogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+}
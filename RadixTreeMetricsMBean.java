@@ -0,0 +1,95 @@
+/**
+ * Management interface of RadixTreeMetrics, the values read over JMX
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public interface RadixTreeMetricsMBean {
+
+    /**
+     * @return long descents of find, findAll, contains and remove
+     */
+    long getFinds();
+
+    /**
+     * @return long nodes visited by those descents
+     */
+    long getFindNodes();
+
+    /**
+     * @return long symbols matched by those descents
+     */
+    long getFindSymbols();
+
+    /**
+     * @return long[] descents by nodes visited, the last entry counting
+     *         every longer descent
+     */
+    long[] getFindHistogram();
+
+    /**
+     * @return long elements added
+     */
+    long getAdds();
+
+    /**
+     * @return long nodes visited by adds
+     */
+    long getAddNodes();
+
+    /**
+     * @return long symbols matched by adds
+     */
+    long getAddSymbols();
+
+    /**
+     * @return long[] adds by nodes visited, the last entry counting every
+     *         longer add
+     */
+    long[] getAddHistogram();
+
+    /**
+     * @return long nodes split by adds
+     */
+    long getSplits();
+
+    /**
+     * @return long occurrences removed
+     */
+    long getRemoves();
+
+    /**
+     * @return long nodes merged with their only child by removes
+     */
+    long getMerges();
+
+    /**
+     * @return long compactions of locations
+     */
+    long getCompactions();
+
+    /**
+     * @return long nodes renumbered by compactions
+     */
+    long getCompactedNodes();
+
+    /**
+     * @return long lookups the cache held the element for
+     */
+    long getCacheHits();
+
+    /**
+     * @return long lookups the cache did not hold the element for
+     */
+    long getCacheMisses();
+
+    /**
+     * @return double share of cache lookups that were hits, 0 before any
+     */
+    double getCacheHitRate();
+
+    /**
+     * sets every count back to zero
+     */
+    void reset();
+}
@@ -0,0 +1,138 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Checks the counts RadixTreeMetrics keeps, that they can be read over
+ * JMX, and that a RadixTree tells its listener only when metrics are
+ * enabled
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class RadixTreeMetricsTest {
+
+    /**
+     * The counts are sums of what each call reports, and a histogram
+     * counts every operation deeper than it has entries for in the last.
+     */
+    @Test
+    public void testCounts() {
+        RadixTreeMetrics metrics = new RadixTreeMetrics();
+        metrics.found(2, 5);
+        metrics.found(2, 3);
+        metrics.found(100, 100);
+        metrics.added(1, 4, true);
+        metrics.added(3, 6, false);
+        metrics.removed(true);
+        metrics.removed(false);
+        metrics.compacted(7);
+        metrics.cached(true);
+        metrics.cached(true);
+        metrics.cached(true);
+        metrics.cached(false);
+        assertEquals("testCounts: finds not correct", 3, metrics.getFinds());
+        assertEquals("testCounts: find nodes not correct", 104,
+                metrics.getFindNodes());
+        assertEquals("testCounts: find symbols not correct", 108,
+                metrics.getFindSymbols());
+        long[] histogram = metrics.getFindHistogram();
+        assertEquals("testCounts: histogram entry not correct", 2,
+                histogram[2]);
+        assertEquals("testCounts: last histogram entry not correct", 1,
+                histogram[histogram.length - 1]);
+        assertEquals("testCounts: adds not correct", 2, metrics.getAdds());
+        assertEquals("testCounts: add nodes not correct", 4,
+                metrics.getAddNodes());
+        assertEquals("testCounts: add symbols not correct", 10,
+                metrics.getAddSymbols());
+        assertEquals("testCounts: splits not correct", 1,
+                metrics.getSplits());
+        assertEquals("testCounts: removes not correct", 2,
+                metrics.getRemoves());
+        assertEquals("testCounts: merges not correct", 1,
+                metrics.getMerges());
+        assertEquals("testCounts: compactions not correct", 1,
+                metrics.getCompactions());
+        assertEquals("testCounts: compacted nodes not correct", 7,
+                metrics.getCompactedNodes());
+        assertEquals("testCounts: hit rate not correct", 0.75,
+                metrics.getCacheHitRate(), 0);
+        metrics.reset();
+        assertEquals("testCounts: finds not reset", 0, metrics.getFinds());
+        assertEquals("testCounts: splits not reset", 0,
+                metrics.getSplits());
+        assertEquals("testCounts: hit rate not reset", 0,
+                metrics.getCacheHitRate(), 0);
+        assertArrayEquals("testCounts: histogram not reset",
+                new long[histogram.length], metrics.getAddHistogram());
+    }
+
+    /**
+     * Registered metrics can be read and reset through the MBean server.
+     */
+    @Test
+    public void testRegister() throws JMException {
+        RadixTreeMetrics metrics = new RadixTreeMetrics();
+        ObjectName name = metrics.register("testRegister");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            metrics.added(2, 2, true);
+            assertEquals("testRegister: adds not read", 1L,
+                    server.getAttribute(name, "Adds"));
+            assertEquals("testRegister: splits not read", 1L,
+                    server.getAttribute(name, "Splits"));
+            server.invoke(name, "reset", null, null);
+            assertEquals("testRegister: adds not reset", 0L,
+                    server.getAttribute(name, "Adds"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * "team" splits the node of "test" into "te", "toast" splits "te" into
+     * "t", and removing "toast" merges "t" with the node left below it.
+     * Finding "team" and the descent of the remove match 9 symbols. The tree
+     * tells its listener of none of it unless metrics are enabled.
+     */
+    @Test
+    public void testTreeListener() {
+        RadixTree<StringRadixTreeElement> tree = new RadixTree<>();
+        RadixTreeMetrics metrics = new RadixTreeMetrics();
+        tree.setListener(metrics);
+        tree.add(new StringRadixTreeElement("test"));
+        tree.add(new StringRadixTreeElement("team"));
+        tree.add(new StringRadixTreeElement("toast"));
+        tree.find(new StringRadixTreeElement("team"));
+        tree.remove(new StringRadixTreeElement("toast"));
+        if (RadixTreeMetrics.ENABLED) {
+            assertEquals("testTreeListener: adds not correct", 3,
+                    metrics.getAdds());
+            assertEquals("testTreeListener: splits not correct", 2,
+                    metrics.getSplits());
+            //"team" and "toast" each split the one node they compare with
+            assertEquals("testTreeListener: add nodes not correct", 2,
+                    metrics.getAddNodes());
+            //find of "team" and the descent of remove
+            assertEquals("testTreeListener: finds not correct", 2,
+                    metrics.getFinds());
+            assertEquals("testTreeListener: find symbols not correct", 9,
+                    metrics.getFindSymbols());
+            assertEquals("testTreeListener: merges not correct", 1,
+                    metrics.getMerges());
+        } else {
+            assertEquals("testTreeListener: adds told while disabled", 0,
+                    metrics.getAdds());
+            assertEquals("testTreeListener: finds told while disabled", 0,
+                    metrics.getFinds());
+            assertEquals("testTreeListener: removes told while disabled", 0,
+                    metrics.getRemoves());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * The shape of a RadixTree as RadixTree.stats found it in one traversal:
+ * how many nodes there are, how deep and wide they go, how locations are
+ * spread over them and about how much heap they hold.
+ *
+ * Root is a node at depth 0. Placeholders are the empty subset nodes kept
+ * below an element with one other child by the no only child rule; the
+ * empty subset node of root, which holds the empty element, is not one.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class RadixTreeStats {
+    private int nodes;
+    private long labelSymbols;
+    private int placeholders;
+    private long heapBytes;
+    private int[] depths;
+    private int[] fanOuts;
+    private int[] locations;
+
+    /**
+     * empty RadixTreeStats constructor, for RadixTree to fill
+     */
+    RadixTreeStats() {
+        depths = new int[1];
+        fanOuts = new int[1];
+        locations = new int[1];
+    }
+
+    /**
+     * counts one node
+     *
+     * @param depth              edges from root to node
+     * @param children           children of node, with the empty subset
+     * @param locationCount      locations node holds
+     * @param labelLength        symbols in the label of node
+     * @param placeholder        if node is an empty subset placeholder
+     * @param bytes              estimated heap node holds on its own
+     */
+    void addNode(int depth, int children, int locationCount,
+            int labelLength, boolean placeholder, long bytes) {
+        nodes++;
+        labelSymbols += labelLength;
+        if (placeholder) {
+            placeholders++;
+        }
+        heapBytes += bytes;
+        depths = count(depths, depth);
+        fanOuts = count(fanOuts, children);
+        locations = count(locations, bucket(locationCount));
+    }
+
+    /**
+     * @return int nodes in the tree, root included
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return long symbols in all the edge labels, chars for
+     *         StringRadixTreeElement
+     */
+    public long getLabelSymbols() {
+        return labelSymbols;
+    }
+
+    /**
+     * @return int empty subset placeholder nodes
+     */
+    public int getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * @return long estimated bytes of heap retained by the tree, counting
+     *         each String or array that labels are views onto once, at
+     *         one byte per symbol
+     */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * @return int[] nodes by depth, root at index 0
+     */
+    public int[] getDepthHistogram() {
+        return depths.clone();
+    }
+
+    /**
+     * @return int[] nodes by number of children
+     */
+    public int[] getFanOutHistogram() {
+        return fanOuts.clone();
+    }
+
+    /**
+     * @return int[] nodes by locations held: index 0 counts nodes holding
+     *         none, and index i after it those holding 2^(i - 1) to
+     *         2^i - 1
+     */
+    public int[] getLocationHistogram() {
+        return locations.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "Nodes: " + nodes
+                + "\nLabel symbols: " + labelSymbols
+                + "\nPlaceholder nodes: " + placeholders
+                + "\nEstimated heap bytes: " + heapBytes
+                + "\nNodes by depth: " + Arrays.toString(depths)
+                + "\nNodes by children: " + Arrays.toString(fanOuts)
+                + "\nNodes by locations (0, 1, 2-3, 4-7, ...): "
+                + Arrays.toString(locations);
+    }
+
+    /**
+     * adds one to histogram at index, growing it to reach index
+     *
+     * @param histogram          histogram to count in
+     * @param index              entry to count
+     * @return int[] histogram, or a longer copy of it
+     */
+    private static int[] count(int[] histogram, int index) {
+        if (index >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, index + 1);
+        }
+        histogram[index]++;
+        return histogram;
+    }
+
+    /**
+     * entry of the location histogram for a number of locations
+     *
+     * @param locationCount      locations a node holds
+     * @return int 0 for none, otherwise one more than the floor of its log
+     */
+    private static int bucket(int locationCount) {
+        return 32 - Integer.numberOfLeadingZeros(locationCount);
+    }
+}
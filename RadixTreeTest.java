@@ -0,0 +1,486 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for what is built on RadixTree rather than on the tree
+ * interface: bulk building, stats, merge, and the mapped and logged
+ * trees. These run once instead of for every implementation.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class RadixTreeTest {
+    private RadixTree<StringRadixTreeElement> myTree;
+    private String charSet;
+
+    /**
+     * Sets up class for tests
+     */
+    @Before
+    public void start() {
+        myTree = new RadixTree<>();
+        createCharSet();
+    }
+
+    /**
+     * tests building a tree in one go against adding one at a time
+     */
+    @Test
+    public void testBuild() {
+        String[] words = addMultipleDifferent(75);
+        List<StringRadixTreeElement> elements = new ArrayList<>();
+        for (String word : words) {
+            elements.add(new StringRadixTreeElement(word));
+        }
+        //a repeat, the empty element, and a prefix ending inside a label
+        for (String word : new String[] {words[3], "",
+            words[5].substring(0, words[5].length() / 2)}) {
+            elements.add(new StringRadixTreeElement(word));
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        RadixTree<StringRadixTreeElement> built = RadixTree.build(elements);
+        assertEquals("testBuild: size not correct", myTree.size(),
+                built.size());
+        RadixTreeStats expected = myTree.stats();
+        RadixTreeStats stats = built.stats();
+        assertEquals("testBuild: nodes differ", expected.getNodes(),
+                stats.getNodes());
+        assertEquals("testBuild: label symbols differ",
+                expected.getLabelSymbols(), stats.getLabelSymbols());
+        assertEquals("testBuild: placeholders differ",
+                expected.getPlaceholders(), stats.getPlaceholders());
+        assertTrue("testBuild: depths differ", Arrays.equals(
+                expected.getDepthHistogram(), stats.getDepthHistogram()));
+        assertTrue("testBuild: fan-out differs", Arrays.equals(
+                expected.getFanOutHistogram(), stats.getFanOutHistogram()));
+        assertTrue("testBuild: locations per node differ", Arrays.equals(
+                expected.getLocationHistogram(),
+                stats.getLocationHistogram()));
+        assertTrue("testBuild: elements not in same order",
+                Arrays.equals(myTree.toArray(), built.toArray()));
+        for (StringRadixTreeElement element : elements) {
+            assertEquals("testBuild: locations differ for " + element,
+                    myTree.findAll(element), built.findAll(element));
+        }
+        for (StringRadixTreeElement element : elements) {
+            assertTrue("testBuild: not removed: " + element,
+                    built.remove(element));
+        }
+        assertTrue("testBuild: not isEmpty()", built.isEmpty());
+    }
+
+    /**
+     * tests adding batches against adding one at a time, on an empty tree
+     * and on one that holds words already
+     */
+    @Test
+    public void testAddBatch() {
+        Random random = new Random(20);
+        RadixTree<StringRadixTreeElement> batched = new RadixTree<>();
+        assertFalse("testAddBatch: null batch added",
+                batched.addBatch(null));
+        assertFalse("testAddBatch: batch of null added",
+                batched.addBatch(Arrays.asList(
+                (StringRadixTreeElement) null)));
+        for (int batch = 0; batch < 20; batch++) {
+            List<StringRadixTreeElement> elements = new ArrayList<>();
+            int size = random.nextInt(batch < 10 ? 10 : 300);
+            for (int i = 0; i < size; i++) {
+                String word = "";
+                int length = random.nextInt(6);
+                for (int j = 0; j < length; j++) {
+                    //skewed, so words repeat and share prefixes
+                    word += charSet.charAt(Math.min(random.nextInt(
+                            charSet.length()), random.nextInt(
+                            charSet.length())));
+                }
+                elements.add(random.nextInt(20) == 0 ? null
+                        : new StringRadixTreeElement(word));
+            }
+            boolean added = false;
+            for (StringRadixTreeElement element : elements) {
+                added |= myTree.add(element);
+            }
+            assertEquals("testAddBatch: wrong result", added,
+                    batched.addBatch(elements));
+            assertEquals("testAddBatch: size not correct", myTree.size(),
+                    batched.size());
+            assertTrue("testAddBatch: elements not in same order",
+                    Arrays.equals(myTree.toArray(), batched.toArray()));
+            for (int i = 0; i < myTree.size(); i++) {
+                assertEquals("testAddBatch: wrong select " + i,
+                        myTree.select(i), batched.select(i));
+                assertEquals("testAddBatch: wrong rank",
+                        myTree.rank(myTree.select(i)),
+                        batched.rank(myTree.select(i)));
+            }
+            for (StringRadixTreeElement element : elements) {
+                if (element != null) {
+                    assertEquals("testAddBatch: locations differ for "
+                            + element, myTree.findAll(element),
+                            batched.findAll(element));
+                }
+            }
+            //removes some so batches also land after released slots
+            for (int i = 0; i < size / 3; i++) {
+                StringRadixTreeElement element = elements.get(i);
+                assertEquals("testAddBatch: remove differs for " + element,
+                        myTree.remove(element), batched.remove(element));
+            }
+        }
+        assertEquals("testAddBatch: nodes differ",
+                myTree.stats().getNodes(), batched.stats().getNodes());
+        assertEquals("testAddBatch: placeholders differ",
+                myTree.stats().getPlaceholders(),
+                batched.stats().getPlaceholders());
+    }
+
+    /**
+     * Tests stats on a tree whose shape is known: root holds "t" and the
+     * empty element, "t" splits into "e" and "o", and "to" leaves a
+     * placeholder below "o" beside "ast"
+     */
+    @Test
+    public void testStats() {
+        RadixTree<StringRadixTreeElement> tree = new RadixTree<>();
+        RadixTreeStats empty = tree.stats();
+        assertEquals("testStats: empty tree nodes not correct", 1,
+                empty.getNodes());
+        for (String word : new String[] {"test", "team", "toast", "te", "",
+            "test", "to"}) {
+            tree.add(new StringRadixTreeElement(word));
+        }
+        RadixTreeStats stats = tree.stats();
+        assertEquals("testStats: nodes not correct", 9, stats.getNodes());
+        assertEquals("testStats: label symbols not correct", 10,
+                stats.getLabelSymbols());
+        assertEquals("testStats: placeholders not correct", 1,
+                stats.getPlaceholders());
+        assertEquals("testStats: depths not correct", "[1, 2, 2, 4]",
+                Arrays.toString(stats.getDepthHistogram()));
+        assertEquals("testStats: fan-out not correct", "[5, 0, 4]",
+                Arrays.toString(stats.getFanOutHistogram()));
+        assertEquals("testStats: locations not correct", "[3, 5, 1]",
+                Arrays.toString(stats.getLocationHistogram()));
+        assertTrue("testStats: heap not estimated",
+                stats.getHeapBytes() > empty.getHeapBytes());
+        tree.remove(new StringRadixTreeElement("to"));
+        assertEquals("testStats: placeholder not merged", 0,
+                tree.stats().getPlaceholders());
+        //ten labels that are views onto one String count its text once
+        String text = "";
+        while (text.length() < 1010) {
+            text += "abcdefghij";
+        }
+        tree = new RadixTree<>();
+        for (int i = 0; i < 10; i++) {
+            tree.add(new StringRadixTreeElement(text, i, i + 1000));
+        }
+        stats = tree.stats();
+        assertEquals("testStats: shared label symbols not correct", 10000,
+                stats.getLabelSymbols());
+        assertTrue("testStats: shared source counted more than once",
+                stats.getHeapBytes() < 3 * text.length());
+    }
+
+    /**
+     * Tests merge and ParallelRadixTreeBuilder
+     */
+    @Test
+    public void testParallelBuild() {
+        String[] words = addMultipleDifferent(200);
+        String text = "";
+        for (String word : words) {
+            text += word + (word.length() % 3 == 0 ? "\n" : " ");
+        }
+        RadixTree<StringRadixTreeElement> built = new ParallelRadixTreeBuilder(
+                new ForkJoinPool(4), 16).build(text);
+        assertEquals("testParallelBuild: size not correct", myTree.size(),
+                built.size());
+        assertTrue("testParallelBuild: elements not in same order",
+                Arrays.equals(myTree.toArray(), built.toArray()));
+        for (String word : words) {
+            StringRadixTreeElement element = new StringRadixTreeElement(word);
+            assertEquals("testParallelBuild: locations differ for " + word,
+                    myTree.findAll(element), built.findAll(element));
+        }
+        //words may repeat, so the locations merged to come from a tree
+        //given the same removes with the merged words added after
+        RadixTree<StringRadixTreeElement> model = new RadixTree<>();
+        for (String word : words) {
+            model.add(new StringRadixTreeElement(word));
+        }
+        RadixTree<StringRadixTreeElement> other = new RadixTree<>();
+        for (int i = 0; i < 10; i++) {
+            built.remove(new StringRadixTreeElement(words[i]));
+            model.remove(new StringRadixTreeElement(words[i]));
+            other.add(new StringRadixTreeElement(words[i]));
+        }
+        for (int i = 0; i < 10; i++) {
+            model.add(new StringRadixTreeElement(words[i]));
+        }
+        assertTrue("testParallelBuild: merge failed", built.merge(other));
+        assertTrue("testParallelBuild: merged tree not isEmpty()",
+                other.isEmpty());
+        for (String word : words) {
+            StringRadixTreeElement element = new StringRadixTreeElement(word);
+            assertEquals("testParallelBuild: merged to wrong location",
+                    model.findAll(element), built.findAll(element));
+        }
+        assertTrue("testParallelBuild: elements not in same order after "
+                + "merge", Arrays.equals(model.toArray(), built.toArray()));
+        assertEquals("testParallelBuild: size not correct after merge",
+                words.length, built.size());
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals("testParallelBuild: wrong select " + i
+                    + " after merge", model.select(i), built.select(i));
+            assertEquals("testParallelBuild: wrong rank after merge",
+                    model.rank(model.select(i)),
+                    built.rank(model.select(i)));
+        }
+    }
+
+    /**
+     * Tests MappedFileTokenizer against a Scanner over the text it reads
+     */
+    @Test
+    public void testMappedFileTokenizer() throws IOException {
+        String[] words = addMultipleDifferent(100);
+        String text = "";
+        //ideographic and em spaces separate words, a no-break space does
+        //not
+        String[] spaces = {" ", "\r\n\t", "\u3000", "\u2003 "};
+        for (int i = 0; i < words.length; i++) {
+            text += (i % 7 == 0 ? "\u00e9\ud83d\ude00" : "")
+                    + (i % 11 == 0 ? "\u00a0" : "") + words[i]
+                    + spaces[i % spaces.length];
+        }
+        text += "alpha\u3000beta gamma\u2003delta";
+        File file = File.createTempFile("radixtree", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        List<StringRadixTreeElement> expected = new ArrayList<>();
+        try (Scanner scanner = new Scanner(text)) {
+            while (scanner.hasNext()) {
+                expected.add(new StringRadixTreeElement(scanner.next()));
+            }
+        }
+        List<StringRadixTreeElement> read = new ArrayList<>();
+        try (MappedFileTokenizer tokenizer = new MappedFileTokenizer(file, 5)) {
+            List<StringRadixTreeElement> window = tokenizer.nextWords();
+            while (window != null) {
+                read.addAll(window);
+                window = tokenizer.nextWords();
+            }
+        }
+        assertEquals("testMappedFileTokenizer: words differ", expected, read);
+        RadixTree<StringRadixTreeElement> built =
+                MappedFileTokenizer.build(file);
+        assertTrue("testMappedFileTokenizer: tree differs",
+                Arrays.equals(RadixTree.build(expected).toArray(),
+                built.toArray()));
+        assertTrue("testMappedFileTokenizer: parallel tree differs",
+                Arrays.equals(built.toArray(),
+                new ParallelRadixTreeBuilder().build(file).toArray()));
+    }
+
+    /**
+     * Tests writing tree to an index file and querying it mapped
+     */
+    @Test
+    public void testMappedRadixTree() throws IOException {
+        String[] words = addMultipleDifferent(200);
+        for (int i = 0; i < words.length; i += 3) {
+            myTree.add(new StringRadixTreeElement(words[i]));
+            myTree.add(new StringRadixTreeElement(words[i].substring(0,
+                    words[i].length() / 2)));
+        }
+        File file = File.createTempFile("radixtree", ".rdx");
+        file.deleteOnExit();
+        MappedRadixTree.write(myTree, file);
+        try (MappedRadixTree mapped = new MappedRadixTree(file)) {
+            assertTrue("testMappedRadixTree: verify failed", mapped.verify());
+            assertEquals("testMappedRadixTree: size not correct",
+                    myTree.size(), mapped.size());
+            assertTrue("testMappedRadixTree: elements not in same order",
+                    Arrays.equals(myTree.toArray(), mapped.toArray()));
+            assertEquals("testMappedRadixTree: iteration differs",
+                    new ArrayList<>(myTree), new ArrayList<>(mapped));
+            assertEquals("testMappedRadixTree: descending keys differ",
+                    new ArrayList<>(myTree.keySet().descendingSet()),
+                    new ArrayList<>(mapped.keySet().descendingSet()));
+            for (String word : words) {
+                StringRadixTreeElement element = new StringRadixTreeElement(
+                        word);
+                StringRadixTreeElement prefix = new StringRadixTreeElement(
+                        word.substring(0, Math.min(2, word.length())));
+                assertEquals("testMappedRadixTree: find differs for " + word,
+                        myTree.find(element), mapped.find(element));
+                assertEquals("testMappedRadixTree: locations differ for "
+                        + word, myTree.findAll(element),
+                        mapped.findAll(element));
+                assertEquals("testMappedRadixTree: rank differs for " + word,
+                        myTree.rank(element), mapped.rank(element));
+                assertEquals("testMappedRadixTree: prefix count differs for "
+                        + prefix, myTree.countWithPrefix(prefix),
+                        mapped.countWithPrefix(prefix));
+                assertEquals("testMappedRadixTree: prefix locations differ "
+                        + "for " + prefix, myTree.findAllWithPrefix(prefix),
+                        mapped.findAllWithPrefix(prefix));
+                assertEquals("testMappedRadixTree: subSet differs for "
+                        + word, new ArrayList<>(myTree.keySet().subSet(
+                        prefix, true, element, false)), new ArrayList<>(
+                        mapped.keySet().subSet(prefix, true, element,
+                        false)));
+            }
+            for (int i = 0; i < myTree.size(); i++) {
+                assertEquals("testMappedRadixTree: select differs at " + i,
+                        myTree.select(i), mapped.select(i));
+            }
+            StringRadixTreeElement missing = new StringRadixTreeElement(
+                    words[0] + "0");
+            assertFalse("testMappedRadixTree: contains missing element",
+                    mapped.contains(missing));
+            assertEquals("testMappedRadixTree: found missing element", null,
+                    mapped.findAll(missing));
+            //replacing the file leaves the one mapped as it was
+            RadixTree<StringRadixTreeElement> other = new RadixTree<>();
+            other.add(missing);
+            MappedRadixTree.write(other, file);
+            assertTrue("testMappedRadixTree: replaced file changed mapping",
+                    mapped.verify() && Arrays.equals(myTree.toArray(),
+                    mapped.toArray()));
+        }
+        try (MappedRadixTree mapped = new MappedRadixTree(file)) {
+            assertTrue("testMappedRadixTree: file not replaced",
+                    mapped.size() == 1 && mapped.contains(new
+                    StringRadixTreeElement(words[0] + "0")));
+        }
+        for (File left : file.getParentFile().listFiles()) {
+            assertFalse("testMappedRadixTree: temporary file left",
+                    left.getName().startsWith(file.getName())
+                    && left.getName().endsWith(".tmp"));
+        }
+        MappedRadixTree.write(myTree, file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file.toPath(), bytes);
+        try (MappedRadixTree mapped = new MappedRadixTree(file)) {
+            assertFalse("testMappedRadixTree: corrupt file verified",
+                    mapped.verify());
+        }
+        bytes[8] ^= 1;
+        Files.write(file.toPath(), bytes);
+        try {
+            new MappedRadixTree(file).close();
+            assertTrue("testMappedRadixTree: corrupt header opened", false);
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Tests LoggedRadixTree recovers every change from its snapshots and
+     * log, batches included, ignoring a torn record at the end of the log
+     */
+    @Test
+    public void testLoggedRadixTree() throws IOException {
+        String[] words = addMultipleDifferent(200);
+        File directory = Files.createTempDirectory("radixtree").toFile();
+        LoggedRadixTree logged = new LoggedRadixTree(directory, 8, 50);
+        for (String word : words) {
+            logged.add(new StringRadixTreeElement(word));
+        }
+        for (int i = 0; i < words.length; i += 4) {
+            StringRadixTreeElement element = new StringRadixTreeElement(
+                    words[i]);
+            myTree.remove(element);
+            logged.remove(element);
+        }
+        logged.close();
+        assertFalse("testLoggedRadixTree: no snapshot taken",
+                new File(directory, "log-0").exists());
+        logged = new LoggedRadixTree(directory, 8, 1000);
+        assertTrue("testLoggedRadixTree: elements not recovered",
+                Arrays.equals(myTree.toArray(), logged.toArray()));
+        List<StringRadixTreeElement> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            StringRadixTreeElement element = new StringRadixTreeElement(
+                    words[i]);
+            myTree.add(element);
+            batch.add(element);
+        }
+        logged.addBatch(batch);
+        logged.sync();
+        File log = null;
+        for (File file : directory.listFiles()) {
+            if (file.getName().startsWith("log-")) {
+                assertEquals("testLoggedRadixTree: not one log", null, log);
+                log = file;
+            }
+        }
+        try (FileOutputStream torn = new FileOutputStream(log, true)) {
+            torn.write(new byte[] {0, 0, 0, 9, 1, 2});
+        }
+        logged = new LoggedRadixTree(directory, 8, 1000);
+        assertTrue("testLoggedRadixTree: log not replayed",
+                Arrays.equals(myTree.toArray(), logged.toArray()));
+        logged.clear();
+        logged.add(new StringRadixTreeElement(words[0]));
+        logged.close();
+        logged = new LoggedRadixTree(directory);
+        assertEquals("testLoggedRadixTree: clear not replayed", 1,
+                logged.size());
+        logged.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Adds multiple differing elements to tree
+     */
+    private String[] addMultipleDifferent(int count) {
+        myTree.clear();
+        String[] addedArray = new String[count];
+        Random randy = new Random();
+        for (int i = 0; i < count; i++) {
+            String newString = "";
+            for (int j = 0; j < (randy.nextInt(14) + 1); j++) {
+                newString += charSet.charAt(randy.nextInt(charSet.length()));
+            }
+            addedArray[i] = newString;
+            myTree.add(new StringRadixTreeElement(newString));
+        }
+        return addedArray;
+    }
+
+    /**
+     * Creates charSet to be used to pull characters from
+     */
+    private void createCharSet() {
+        charSet = "";
+        for (int i = 'a'; i <= 'z'; i++) {
+            charSet += (char) i;
+        }
+    }
+}
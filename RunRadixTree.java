@@ -1,4 +1,5 @@
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 
 import java.util.List;
@@ -11,48 +12,118 @@ import java.util.Scanner;
  * @version 1.0
  */
 public class RunRadixTree {
-    private static RadixTree<StringRadixTreeElement> myTree;
+    private static AbstractRadixTree<StringRadixTreeElement> myTree;
 
     /**
-     * main method
+     * main method, run as RunRadixTree [-q] [-i index] [filename] where -q
+     * skips printing the original file so that it is read only once, and
+     * -i opens index read-only instead of reading the file, unless the file
+     * is newer, in which case the tree is built and written to index
      *
      * @param  args string array
      */
     public static void main(String[] args) {
-        Scanner textFile = getFile();
-        createTree(textFile);
+        boolean echo = true;
+        String filename = null;
+        File indexFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-q")) {
+                echo = false;
+            } else if (args[i].equals("-i") && i + 1 < args.length) {
+                i++;
+                indexFile = new File(args[i]);
+            } else {
+                filename = args[i];
+            }
+        }
+        if (indexFile != null && indexFile.isFile() && (filename == null
+                || indexFile.lastModified()
+                >= new File(filename).lastModified())) {
+            openIndex(indexFile);
+        } else {
+            File textFile = getFile(filename, echo);
+            createTree(textFile);
+            if (indexFile != null) {
+                writeIndex(indexFile);
+            }
+        }
         prompt();
     }
 
-    private static Scanner getFile() {
+    /**
+     * finds a readable file, asking for one until given one
+     *
+     * @param  filename   name of file to try first, or null to ask
+     * @param  echo       if the original file is printed
+     *
+     * @return readable File
+     */
+    private static File getFile(String filename, boolean echo) {
         Scanner scandy = new Scanner(System.in);
         while (true) {
             try {
-                System.out.print("Enter filename or \"exit\" to stop: ");
-                String filename = scandy.next();
-                if (filename.equalsIgnoreCase("exit")) {
-                    System.exit(0);
+                if (filename == null) {
+                    System.out.print("Enter filename or \"exit\" to stop: ");
+                    filename = scandy.next();
+                    if (filename.equalsIgnoreCase("exit")) {
+                        System.exit(0);
+                    }
                 }
-                printOriginal(new Scanner(new File(filename)));
-                return new Scanner(new File(filename));
+                File textFile = new File(filename);
+                if (echo) {
+                    printOriginal(new Scanner(textFile));
+                } else if (!textFile.isFile() || !textFile.canRead()) {
+                    throw new FileNotFoundException(filename
+                            + " (cannot be read)");
+                }
+                return textFile;
             } catch (IOException e) {
                 System.out.println(e + ("\nTry Again.\n"));
+                filename = null;
             }
         }
     }
 
     /**
-     * creates tree from file
+     * creates tree from file, reading it once and building chunks of it in
+     * parallel
      *
-     * @param  textFile   Scanner to create tree with
+     * @param  textFile   File to create tree with
+     */
+    private static void createTree(File textFile) {
+        //textFile is assured to be readable by getFile()
+        try {
+            myTree = new ParallelRadixTreeBuilder().build(textFile);
+        } catch (IOException e) {
+            System.out.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * opens a tree written by writeIndex without reading its text
+     *
+     * @param  indexFile  index to open
+     */
+    private static void openIndex(File indexFile) {
+        try {
+            myTree = new MappedRadixTree(indexFile);
+        } catch (IOException e) {
+            System.out.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * writes tree to an index for later runs to open
      *
-     * @return completed tree
+     * @param  indexFile  index to write
      */
-    private static void createTree(Scanner textFile) {
-        //textFile is assured to be not null by getFile()
-        myTree = new RadixTree<>();
-        while (textFile.hasNext()) {
-            myTree.add(new StringRadixTreeElement(textFile.next()));
+    private static void writeIndex(File indexFile) {
+        try {
+            MappedRadixTree.write(myTree, indexFile);
+        } catch (IOException e) {
+            System.out.println(e);
         }
     }
 
@@ -68,6 +139,20 @@ public class RunRadixTree {
         }
     }
 
+    /**
+     * tells the user if the tree was opened from an index, which cannot
+     * be changed
+     *
+     * @return boolean if the tree is read-only
+     */
+    private static boolean readOnly() {
+        if (myTree instanceof MappedRadixTree) {
+            System.out.println("The index is read-only.");
+            return true;
+        }
+        return false;
+    }
+
     /**
      * prompts user for action to take on tree
      *
@@ -88,6 +173,7 @@ public class RunRadixTree {
                         + "\n6 - Search"
                         + "\n7 - Search for all"
                         + "\n8 - Size"
+                        + "\n9 - Statistics"
                         + "\n-1 - Exit\n");
                 try {
                     integer = Integer.parseInt(scandy.next());
@@ -98,10 +184,16 @@ public class RunRadixTree {
             }
             switch (integer) {
             case 1:
+                if (readOnly()) {
+                    break;
+                }
                 System.out.println("Enter word to add");
                 myTree.add(new StringRadixTreeElement(scandy.next()));
                 break;
             case 2:
+                if (readOnly()) {
+                    break;
+                }
                 System.out.println("Are you sure? (Y/N)");
                 String answer = scandy.next();
                 switch (answer) {
@@ -141,6 +233,9 @@ public class RunRadixTree {
                 }
                 break;
             case 5:
+                if (readOnly()) {
+                    break;
+                }
                 System.out.println("Enter word to remove");
                 if (myTree.remove(new StringRadixTreeElement(scandy.next()))) {
                     System.out.println("Word removed.");
@@ -175,6 +270,14 @@ public class RunRadixTree {
             case 8:
                 System.out.println("Size: " + myTree.size());
                 break;
+            case 9:
+                if (myTree instanceof RadixTree) {
+                    System.out.println(((RadixTree) myTree).stats());
+                } else {
+                    System.out.println("Statistics are only kept for a"
+                            + " RadixTree, not an index.");
+                }
+                break;
             case -1:
                 System.exit(0);
                 break;
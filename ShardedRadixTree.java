@@ -0,0 +1,704 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe RadixTree split into shards by the first symbol of each
+ * element, so that writers of elements in different shards do not wait
+ * for each other.
+ *
+ * Each shard is a RadixTree with its own lock. Every element starting
+ * with a symbol is in the same shard, and the empty element is in the
+ * first. Locations are handed out by one LocationIndex shared by all
+ * shards, so find and findAll return locations in the whole tree. Each
+ * shard keeps the shared slot of each of its occurrences, in the order of
+ * its own locations; a shard adds its occurrences in order of their
+ * shared slots, so that order is the same. The shared LocationIndex is
+ * locked only while a slot is handed out, released or ranked, which is
+ * O(log n), while the shard stays locked for the whole add or remove.
+ *
+ * find, findAll and the prefix queries of a non-empty prefix lock one
+ * shard. size, toArray, rank and select lock every shard, in order, and
+ * iteration merges the shards in order of elements. Iterators are
+ * fail-fast like RadixTree's: a write to a shard they have not finished
+ * makes them throw ConcurrentModificationException.
+ *
+ * @param <V> generic that is instance of AbstractRadixTreeElement
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ShardedRadixTree<V extends AbstractRadixTreeElement>
+        extends AbstractRadixTree<V> {
+    /**
+     * shards of a tree made with the empty constructor
+     */
+    public static final int DEFAULT_SHARDS = 16;
+
+    /**
+     * released slots tolerated beyond twice the live ones before they
+     * are compacted
+     */
+    private static final int COMPACT_SLACK = 64;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Shard[] shards;
+    private final LocationIndex locations; //shared slots of every shard
+
+    /**
+     * empty ShardedRadixTree constructor
+     */
+    public ShardedRadixTree() {
+        this(DEFAULT_SHARDS);
+    }
+
+    /**
+     * empty ShardedRadixTree constructor
+     *
+     * @param shards number of shards, at least 1
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public ShardedRadixTree(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards: " + shards);
+        }
+        //Shard is an inner class of a generic class, so no array of it
+        //can be created but a raw one, which only ever holds this tree's
+        this.shards = new ShardedRadixTree.Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard();
+        }
+        locations = new LocationIndex();
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        List<Shard> all = Arrays.asList(shards);
+        return new MergingIterator(all, false, null, false, null, false,
+                false);
+    }
+
+    @Override
+    public int size() {
+        synchronized (locations) {
+            return locations.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        lockAll();
+        try {
+            Object[] result = new Object[size()];
+            for (Shard shard : shards) {
+                Object[] elements = shard.toArray();
+                for (int i = 0; i < elements.length; i++) {
+                    result[shard.location(i + 1) - 1] = elements[i];
+                }
+            }
+            return result;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean add(V newElement) {
+        if (newElement == null) {
+            return false;
+        }
+        Shard shard = shardOf(newElement);
+        shard.lock.lock();
+        try {
+            return shard.add(newElement);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * removes last occurance of element in tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o != null && o instanceof AbstractRadixTreeElement) {
+            Shard shard = shardOf((AbstractRadixTreeElement) o);
+            boolean result;
+            shard.lock.lock();
+            try {
+                result = shard.remove(o);
+            } finally {
+                shard.lock.unlock();
+            }
+            if (result) {
+                compactIfDue();
+            }
+            return result;
+        }
+        return false;
+    }
+
+    /**
+     * Adds every element of c at locations in the order of c. Each add
+     * locks only its own shard.
+     */
+    @Override
+    public boolean addAll(Collection<? extends V> c) {
+        boolean result = false;
+        if (c != null) {
+            for (V newElement : c) {
+                if (!result) {
+                    result = add(newElement);
+                } else {
+                    add(newElement);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            for (Shard shard : shards) {
+                shard.clear();
+            }
+            synchronized (locations) {
+                locations.clear();
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public int find(V element) {
+        if (element == null) {
+            return -1;
+        }
+        Shard shard = shardOf(element);
+        shard.lock.lock();
+        try {
+            int location = shard.find(element);
+            return location < 0 ? -1 : shard.location(location);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> findAll(V element) {
+        if (element == null) {
+            return null;
+        }
+        Shard shard = shardOf(element);
+        shard.lock.lock();
+        try {
+            //the shard's locations are in the same order as the tree's
+            return shard.locations(shard.findAll(element));
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    Iterator<V> keyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new MergingIterator(Arrays.asList(shards), true, from,
+                fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    Iterator<V> descendingKeyIterator(V from, boolean fromInclusive, V to,
+            boolean toInclusive) {
+        return new MergingIterator(Arrays.asList(shards), true, from,
+                fromInclusive, to, toInclusive, true);
+    }
+
+    @Override
+    public Iterator<V> prefixIterator(V prefix) {
+        if (prefix == null) {
+            return Collections.emptyIterator();
+        } else if (prefix.length() == 0) {
+            return iterator();
+        }
+        return new MergingIterator(Collections.singletonList(
+                shardOf(prefix)), false, prefix, false, null, false, false);
+    }
+
+    @Override
+    public int countWithPrefix(V prefix) {
+        if (prefix == null) {
+            return 0;
+        } else if (prefix.length() == 0) {
+            return size();
+        }
+        Shard shard = shardOf(prefix);
+        shard.lock.lock();
+        try {
+            return shard.countWithPrefix(prefix);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public int rank(V element) {
+        if (element == null) {
+            return 0;
+        }
+        lockAll();
+        try {
+            return rankHelper(element);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Finds the element at a position in order of elements. For each
+     * shard, binary searches its elements for the last one whose rank in
+     * the whole tree is at most position, which is the element at
+     * position if any of that shard's occurrences are there.
+     */
+    @Override
+    public V select(int position) {
+        lockAll();
+        try {
+            if (position < 0 || position >= size()) {
+                return null;
+            }
+            for (Shard shard : shards) {
+                int low = 0;
+                int high = shard.size() - 1;
+                V found = null;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    V element = shard.select(middle);
+                    if (rankHelper(element) <= position) {
+                        found = element;
+                        low = middle + 1;
+                    } else {
+                        high = middle - 1;
+                    }
+                }
+                if (found != null && position < rankHelper(found)
+                        + shard.findAll(found).size()) {
+                    return found;
+                }
+            }
+            return null;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Integer> findAllWithPrefix(V prefix) {
+        if (prefix == null) {
+            return null;
+        } else if (prefix.length() > 0) {
+            Shard shard = shardOf(prefix);
+            shard.lock.lock();
+            try {
+                return shard.locations(shard.findAllWithPrefix(prefix));
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        lockAll();
+        try {
+            LocationList result = new LocationList(size());
+            for (Shard shard : shards) {
+                List<Integer> found = shard.locations(
+                        shard.findAllWithPrefix(prefix));
+                if (found != null) {
+                    result.addAll((LocationList) found);
+                }
+            }
+            if (result.isEmpty()) {
+                return null;
+            }
+            result.sort();
+            return result;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * shard holding every element that starts as element does
+     *
+     * @param element element to place
+     * @return Shard for element
+     */
+    private Shard shardOf(AbstractRadixTreeElement element) {
+        if (element.length() == 0) {
+            return shards[0];
+        }
+        return shards[element.symbolAt(0) % shards.length];
+    }
+
+    /**
+     * counts occurrences less than element in every shard, with every
+     * shard locked
+     *
+     * @param element element to count up to
+     * @return int number of occurrences less than element
+     */
+    private int rankHelper(V element) {
+        int result = 0;
+        for (Shard shard : shards) {
+            result += shard.rank(element);
+        }
+        return result;
+    }
+
+    /**
+     * locks every shard, in order so that two callers cannot each hold a
+     * lock the other waits for
+     */
+    private void lockAll() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+        }
+    }
+
+    /**
+     * unlocks every shard
+     */
+    private void unlockAll() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    /**
+     * Renumbers every shared slot to its location once more than half of
+     * the slots handed out have been released, so that the shared
+     * LocationIndex stays in proportion to the tree.
+     */
+    private void compactIfDue() {
+        synchronized (locations) {
+            if (locations.slots() <= 2 * locations.size() + COMPACT_SLACK) {
+                return;
+            }
+        }
+        lockAll();
+        try {
+            synchronized (locations) {
+                if (locations.slots() > 2 * locations.size()
+                        + COMPACT_SLACK) {
+                    for (Shard shard : shards) {
+                        shard.renumber();
+                    }
+                    locations.reset(locations.size());
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * RadixTree holding the elements of one shard. Alongside the locations
+     * of the tree it keeps a LocationIndex of its own slots, changed in
+     * step with the tree's, and the shared slot of each of its slots. The
+     * tree's iterators remove through remove, so removing through them
+     * releases the shared slot too.
+     */
+    private class Shard extends RadixTree<V> {
+        private final ReentrantLock lock;
+        private final LocationIndex live;
+        private int[] shared; //shared slot of each slot of live
+
+        /**
+         * empty Shard constructor
+         */
+        private Shard() {
+            lock = new ReentrantLock();
+            live = new LocationIndex();
+            shared = new int[INITIAL_CAPACITY];
+        }
+
+        @Override
+        public boolean add(V newElement) {
+            if (newElement == null) {
+                return false;
+            }
+            int slot = live.allocate();
+            if (slot >= shared.length) {
+                shared = Arrays.copyOf(shared, shared.length * 2);
+            }
+            synchronized (locations) {
+                shared[slot] = locations.allocate();
+            }
+            return super.add(newElement);
+        }
+
+        /**
+         * removes the last occurance of o, which holds the highest of its
+         * locations, and releases its shared slot
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (o == null || !(o instanceof AbstractRadixTreeElement)) {
+                return false;
+            }
+            //findAll only compares o to the elements of the shard
+            List<Integer> found = findAll((V) o);
+            if (found == null || !super.remove(o)) {
+                return false;
+            }
+            int slot = live.select(found.get(found.size() - 1));
+            live.release(slot);
+            synchronized (locations) {
+                locations.release(shared[slot]);
+            }
+            if (live.slots() > 2 * live.size() + COMPACT_SLACK) {
+                int[] newShared = new int[Math.max(INITIAL_CAPACITY,
+                        Integer.highestOneBit(live.size()) * 2)];
+                for (int i = 1; i <= live.size(); i++) {
+                    newShared[i] = shared[live.select(i)];
+                }
+                shared = newShared;
+                live.reset(live.size());
+            }
+            return true;
+        }
+
+        /**
+         * Adds each element of c in turn, so that every one gets a shared
+         * slot
+         */
+        @Override
+        public boolean addAll(Collection<? extends V> c) {
+            boolean result = false;
+            if (c != null) {
+                for (V newElement : c) {
+                    if (!result) {
+                        result = add(newElement);
+                    } else {
+                        add(newElement);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * empties the shard, leaving the shared slots to the caller
+         */
+        @Override
+        public void clear() {
+            super.clear();
+            live.clear();
+            shared = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * location in the whole tree of a location in the shard
+         *
+         * @param location location in the shard
+         * @return int location in the whole tree
+         */
+        private int location(int location) {
+            int slot = shared[live.select(location)];
+            synchronized (locations) {
+                return locations.rank(slot);
+            }
+        }
+
+        /**
+         * locations in the whole tree of locations in the shard
+         *
+         * @param found sorted locations in the shard, or null
+         * @return sorted list of locations in the whole tree, or null
+         */
+        private List<Integer> locations(List<Integer> found) {
+            if (found == null) {
+                return null;
+            }
+            LocationList result = new LocationList(found.size());
+            for (int location : found) {
+                result.addInt(location(location));
+            }
+            return result;
+        }
+
+        /**
+         * turns every shared slot into its location, with the shared
+         * LocationIndex locked
+         */
+        private void renumber() {
+            for (int i = 1; i <= live.size(); i++) {
+                int slot = live.select(i);
+                shared[slot] = locations.rank(shared[slot]);
+            }
+        }
+    }
+
+    /**
+     * Iterator over shards in order of elements, merging the iterators of
+     * the shards with a heap of the next element of each. A shard's
+     * iterator is only moved on when its next element is asked for, so
+     * removing removes through the iterator that returned the element.
+     */
+    private class MergingIterator implements Iterator<V> {
+        private final PriorityQueue<Head> heads;
+        private final boolean descending;
+        private Head pending; //head returned last, not yet moved on
+
+        /**
+         * MergingIterator constructor
+         *
+         * @param merged shards to merge
+         * @param distinct if each element is returned once
+         * @param from first element, or the prefix when not distinct
+         * @param fromInclusive if from itself may be returned
+         * @param to last element
+         * @param toInclusive if to itself may be returned
+         * @param descending if elements are returned from highest
+         */
+        private MergingIterator(List<Shard> merged, boolean distinct,
+                V from, boolean fromInclusive, V to, boolean toInclusive,
+                boolean descending) {
+            this.descending = descending;
+            heads = new PriorityQueue<>(merged.size() + 1);
+            for (Shard shard : merged) {
+                shard.lock.lock();
+                try {
+                    Iterator<V> elements;
+                    if (!distinct) {
+                        elements = from == null ? shard.iterator()
+                                : shard.prefixIterator(from);
+                    } else if (descending) {
+                        elements = shard.descendingKeyIterator(from,
+                                fromInclusive, to, toInclusive);
+                    } else {
+                        elements = shard.keyIterator(from, fromInclusive,
+                                to, toInclusive);
+                    }
+                    Head head = new Head(shard, elements);
+                    if (head.advance()) {
+                        heads.add(head);
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Asks the head returned last without moving it on, so that
+         * remove still removes what next returned
+         */
+        @Override
+        public boolean hasNext() {
+            if (!heads.isEmpty()) {
+                return true;
+            } else if (pending == null) {
+                return false;
+            }
+            pending.shard.lock.lock();
+            try {
+                return pending.elements.hasNext();
+            } finally {
+                pending.shard.lock.unlock();
+            }
+        }
+
+        @Override
+        public V next() {
+            moveOn();
+            if (heads.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            pending = heads.poll();
+            return pending.element;
+        }
+
+        @Override
+        public void remove() {
+            if (pending == null) {
+                throw new IllegalStateException();
+            }
+            pending.shard.lock.lock();
+            try {
+                pending.elements.remove();
+            } finally {
+                pending.shard.lock.unlock();
+            }
+            compactIfDue();
+        }
+
+        /**
+         * moves the head returned last on to its shard's next element
+         */
+        private void moveOn() {
+            if (pending != null) {
+                pending.shard.lock.lock();
+                try {
+                    if (pending.advance()) {
+                        heads.add(pending);
+                    }
+                } finally {
+                    pending.shard.lock.unlock();
+                }
+                pending = null;
+            }
+        }
+
+        /**
+         * Iterator over one shard with its next element
+         */
+        private class Head implements Comparable<Head> {
+            private final Shard shard;
+            private final Iterator<V> elements;
+            private V element;
+
+            /**
+             * Head constructor
+             *
+             * @param shard shard iterated over
+             * @param elements iterator over shard
+             */
+            private Head(Shard shard, Iterator<V> elements) {
+                this.shard = shard;
+                this.elements = elements;
+            }
+
+            /**
+             * moves on to the next element of the shard, with the shard
+             * locked
+             *
+             * @return true if there is one
+             */
+            private boolean advance() {
+                if (!elements.hasNext()) {
+                    return false;
+                }
+                element = elements.next();
+                return true;
+            }
+
+            @Override
+            public int compareTo(Head other) {
+                int comparison = element.compareTo(other.element);
+                return descending ? -comparison : comparison;
+            }
+        }
+    }
+}
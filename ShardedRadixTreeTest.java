@@ -0,0 +1,88 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the StringRadixTree tests on ShardedRadixTree, and checks that
+ * threads writing to it at once get a location each in the whole tree
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ShardedRadixTreeTest extends StringRadixTreeTest {
+    private static final int WRITERS = 4;
+    private static final int WORDS = 3000;
+
+    @Override
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        return new ShardedRadixTree<>(4);
+    }
+
+    /**
+     * Each writer adds and then removes some of its own words while the
+     * others do the same. Every occurrence left must have its own location
+     * from 1 to size, and toArray must hold it there.
+     */
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        final ShardedRadixTree<StringRadixTreeElement> tree =
+                new ShardedRadixTree<>(3);
+        final String[][] words = new String[WRITERS][WORDS];
+        RadixTree<StringRadixTreeElement> model = new RadixTree<>();
+        for (int i = 0; i < WRITERS; i++) {
+            for (int j = 0; j < WORDS; j++) {
+                words[i][j] = Integer.toString(j * WRITERS + i, 11);
+                if (j % 3 != 0) {
+                    model.add(new StringRadixTreeElement(words[i][j]));
+                }
+            }
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            final String[] own = words[i];
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (String word : own) {
+                        tree.add(new StringRadixTreeElement(word));
+                    }
+                    for (int j = 0; j < own.length; j += 3) {
+                        tree.remove(new StringRadixTreeElement(own[j]));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("testConcurrentWriters: size not correct",
+                model.size(), tree.size());
+        Object[] elements = tree.toArray();
+        boolean[] located = new boolean[tree.size() + 1];
+        for (StringRadixTreeElement element : model) {
+            int location = tree.find(element);
+            assertFalse("testConcurrentWriters: location " + location
+                    + " given twice", located[location]);
+            located[location] = true;
+            assertEquals("testConcurrentWriters: toArray not at location",
+                    element, elements[location - 1]);
+        }
+        assertEquals("testConcurrentWriters: keys differ",
+                new ArrayList<>(model.keySet()),
+                new ArrayList<>(tree.keySet()));
+    }
+}
@@ -1,11 +1,18 @@
 /**
  * StringRadixTreeElement class extends AbstractRadixTreeElement for String
  *
+ * Elements are views onto a range of a backing String, so subSet and
+ * append of neighbouring ranges share the backing String instead of
+ * copying it.
+ *
  * @author Austin Leal
  * @version 1.0
  */
 public class StringRadixTreeElement extends AbstractRadixTreeElement {
-    private String data;
+    private final String source;
+    private final int start;
+    private final int end;
+    private int hash;
 
     /**
      * StringRadixTreeElement constructor
@@ -13,27 +20,71 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
      * @param  element     data String
      */
     public StringRadixTreeElement(String element) {
-        data = element;
+        this(element, 0, element == null ? 0 : element.length());
+    }
+
+    /**
+     * StringRadixTreeElement constructor for a view onto part of a String
+     *
+     * @param  source      backing String
+     * @param  start       int starting position in source
+     * @param  end         int ending position in source
+     */
+    public StringRadixTreeElement(String source, int start, int end) {
+        if (source != null && (start < 0 || end > source.length()
+                || start > end)) {
+            throw new StringIndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length "
+                    + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
     }
 
     @Override
     public AbstractRadixTreeElement append(AbstractRadixTreeElement other) {
         if (other != null && other instanceof StringRadixTreeElement) {
-            return new StringRadixTreeElement(data + other.getData());
+            StringRadixTreeElement otherString =
+                    (StringRadixTreeElement) other;
+            if (otherString.length() == 0) {
+                return this;
+            } else if (length() == 0) {
+                return otherString;
+            } else if (source == otherString.source
+                    && end == otherString.start) {
+                //neighbouring ranges of one String, no copy needed
+                return new StringRadixTreeElement(source, start,
+                        otherString.end);
+            }
+            return new StringRadixTreeElement(new StringBuilder(
+                    length() + otherString.length())
+                    .append(source, start, end)
+                    .append(otherString.source, otherString.start,
+                    otherString.end).toString());
         }
         return null;
     }
 
     @Override
-    protected int comparePrefix(AbstractRadixTreeElement other) {
-        int result = -1;
+    public AbstractRadixTreeElement compact() {
+        if (source == null || (start == 0 && end == source.length())) {
+            return this;
+        }
+        return new StringRadixTreeElement(source.substring(start, end));
+    }
+
+    @Override
+    protected int mismatch(AbstractRadixTreeElement other, int otherStart) {
+        int result = 0;
         if (other != null && other instanceof StringRadixTreeElement) {
-            for (int i = 1; (i <= length()) && (i <= other.length()); i++) {
-                if (subSet(0, i).equals(other.subSet(0, i))) {
-                    result = i;
-                } else {
-                    i = length(); //additional terminating condition
-                }
+            StringRadixTreeElement otherString =
+                    (StringRadixTreeElement) other;
+            int offset = otherString.start + otherStart;
+            int length = Math.min(length(), otherString.end - offset);
+            while (result < length && source.charAt(start + result)
+                    == otherString.source.charAt(offset + result)) {
+                result++;
             }
         }
         return result;
@@ -43,7 +94,13 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
     public int compareTo(Object o) {
         if (o != null) {
             if (o instanceof StringRadixTreeElement) {
-                return this.data.compareTo(((StringRadixTreeElement) o).data);
+                StringRadixTreeElement other = (StringRadixTreeElement) o;
+                int common = mismatch(other, 0);
+                if (common < length() && common < other.length()) {
+                    return source.charAt(start + common)
+                            - other.source.charAt(other.start + common);
+                }
+                return length() - other.length();
             } else {
                 throw new ClassCastException();
             }
@@ -55,7 +112,14 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
     @Override
     public boolean equals(Object other) {
         if (other != null && other instanceof StringRadixTreeElement) {
-            return data.equals(((StringRadixTreeElement) other).data);
+            StringRadixTreeElement otherString =
+                    (StringRadixTreeElement) other;
+            if (source == null || otherString.source == null) {
+                return source == otherString.source;
+            }
+            return length() == otherString.length()
+                    && source.regionMatches(start, otherString.source,
+                    otherString.start, length());
         } else {
             return false;
         }
@@ -63,14 +127,35 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
 
     @Override
     protected String getData() {
-        return data;
+        if (source == null || (start == 0 && end == source.length())) {
+            return source;
+        }
+        return source.substring(start, end);
     }
 
 
+    /**
+     * returns the String the element is a view onto
+     *
+     * @return String backing String
+     */
+    @Override
+    protected String getSource() {
+        return source;
+    }
+
     @Override
     public int hashCode() {
-        if (data != null) {
-            return data.hashCode();
+        if (source != null) {
+            int result = hash;
+            if (result == 0) {
+                //same value String.hashCode gives for the range
+                for (int i = start; i < end; i++) {
+                    result = 31 * result + source.charAt(i);
+                }
+                hash = result;
+            }
+            return result;
         } else {
             return -1;
         }
@@ -78,13 +163,27 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
 
     @Override
     public int length() {
-        return data.length();
+        return end - start;
+    }
+
+    @Override
+    public int symbolAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return source.charAt(start + index);
     }
 
     @Override
     public AbstractRadixTreeElement subSet(int start, int end) {
-        if (data != null && start <= end) {
-            return new StringRadixTreeElement(data.substring(start, end));
+        if (source != null && start <= end) {
+            if (start < 0 || end > length()) {
+                throw new StringIndexOutOfBoundsException(
+                        "start " + start + ", end " + end + ", length "
+                        + length());
+            }
+            return new StringRadixTreeElement(source, this.start + start,
+                    this.start + end);
         } else {
             return null;
         }
@@ -92,6 +191,6 @@ public class StringRadixTreeElement extends AbstractRadixTreeElement {
 
     @Override
     public String toString() {
-        return data;
+        return getData();
     }
-}
\ No newline at end of file
+}
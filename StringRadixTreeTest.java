@@ -6,7 +6,14 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.Random;
+import java.util.TreeSet;
 
 /**
  * Test class for StringRadixTree;
@@ -15,7 +22,7 @@ import java.util.Random;
  * @version 1.0
  */
 public class StringRadixTreeTest {
-    private RadixTree<StringRadixTreeElement> myTree;
+    private AbstractRadixTree<StringRadixTreeElement> myTree;
     private String charSet;
 
 
@@ -26,10 +33,20 @@ public class StringRadixTreeTest {
      */
     @Before
     public void start() {
-        myTree = new RadixTree<>();
+        myTree = createTree();
         createCharSet();
     }
 
+    /**
+     * Creates the tree under test, overridden to run the tests on another
+     * implementation
+     *
+     * @return empty tree
+     */
+    protected AbstractRadixTree<StringRadixTreeElement> createTree() {
+        return new RadixTree<>();
+    }
+
     /**
      * Tests adding one element to tree
      */
@@ -450,6 +467,37 @@ public class StringRadixTreeTest {
         }
     }
 
+    /**
+     * Tests that locations close up after removes
+     */
+    @Test
+    public void testLocationsAfterRemove() {
+        String[] words = {"one", "two", "one", "three", "two", "one"};
+        for (String word : words) {
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        assertTrue("testLocationsAfterRemove: not removed: three",
+                myTree.remove(new StringRadixTreeElement("three")));
+        assertEquals("testLocationsAfterRemove: wrong locations of two",
+                Arrays.asList(2, 4), myTree.findAll(
+                new StringRadixTreeElement("two")));
+        assertTrue("testLocationsAfterRemove: not removed: one",
+                myTree.remove(new StringRadixTreeElement("one")));
+        assertEquals("testLocationsAfterRemove: wrong locations of one",
+                Arrays.asList(1, 3), myTree.findAll(
+                new StringRadixTreeElement("one")));
+        for (int i = 0; i < 500; i++) {
+            myTree.add(new StringRadixTreeElement("x" + i));
+        }
+        for (int i = 0; i < 500; i++) {
+            myTree.remove(new StringRadixTreeElement("x" + i));
+        }
+        assertEquals("testLocationsAfterRemove: wrong location of two", 2,
+                myTree.find(new StringRadixTreeElement("two")));
+        assertEquals("testLocationsAfterRemove: wrong size", 4,
+                myTree.size());
+    }
+
     /**
      * tests iterator
      */
@@ -481,6 +529,251 @@ public class StringRadixTreeTest {
                 i, 75);
     }
 
+    /**
+     * tests removing through the iterator
+     */
+    @Test
+    public void testIteratorRemove() {
+        String[] words = {"ab", "abc", "abd", "b", "ab", "abc"};
+        for (String word : words) {
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        Iterator<StringRadixTreeElement> elements = myTree.iterator();
+        int i = 0;
+        while (elements.hasNext()) {
+            if (elements.next().toString().startsWith("abc")) {
+                elements.remove();
+            }
+            i++;
+        }
+        assertEquals("testIteratorRemove: did not visit every element", 6,
+                i);
+        assertEquals("testIteratorRemove: size not correct", 4,
+                myTree.size());
+        assertFalse("testIteratorRemove: still contains: abc",
+                myTree.contains(new StringRadixTreeElement("abc")));
+        assertEquals("testIteratorRemove: wrong location of abd", 2,
+                myTree.find(new StringRadixTreeElement("abd")));
+    }
+
+    /**
+     * tests prefix queries
+     */
+    @Test
+    public void testPrefix() {
+        String[] words = {"car", "cart", "care", "cat", "car", "dog", "ca"};
+        for (String word : words) {
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        StringRadixTreeElement prefix = new StringRadixTreeElement("car");
+        assertEquals("testPrefix: wrong count for car", 4,
+                myTree.countWithPrefix(prefix));
+        assertEquals("testPrefix: wrong locations for car",
+                Arrays.asList(1, 2, 3, 5), myTree.findAllWithPrefix(prefix));
+        String result = "";
+        Iterator<StringRadixTreeElement> elements =
+                myTree.prefixIterator(prefix);
+        while (elements.hasNext()) {
+            result += elements.next() + " ";
+        }
+        assertEquals("testPrefix: wrong elements for car",
+                "car car care cart ", result);
+        assertEquals("testPrefix: wrong count for c", 6,
+                myTree.countWithPrefix(new StringRadixTreeElement("c")));
+        assertEquals("testPrefix: wrong count for cars", 0,
+                myTree.countWithPrefix(new StringRadixTreeElement("cars")));
+        assertEquals("testPrefix: wrong count for empty prefix", 7,
+                myTree.countWithPrefix(new StringRadixTreeElement("")));
+        assertFalse("testPrefix: elements for dot", myTree.prefixIterator(
+                new StringRadixTreeElement("dot")).hasNext());
+    }
+
+    /**
+     * tests rank and select against sorted order
+     */
+    @Test
+    public void testRankSelect() {
+        String[] words = {"pear", "apple", "peach", "apple", "plum", "pea"};
+        for (String word : words) {
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        String[] sorted = words.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals("testRankSelect: wrong element at " + i, sorted[i],
+                    myTree.select(i).toString());
+        }
+        assertEquals("testRankSelect: wrong rank of peach", 3,
+                myTree.rank(new StringRadixTreeElement("peach")));
+        assertEquals("testRankSelect: wrong rank of pe", 2,
+                myTree.rank(new StringRadixTreeElement("pe")));
+        assertEquals("testRankSelect: wrong rank of z", 6,
+                myTree.rank(new StringRadixTreeElement("z")));
+        myTree.remove(new StringRadixTreeElement("apple"));
+        assertEquals("testRankSelect: wrong rank of pea after remove", 1,
+                myTree.rank(new StringRadixTreeElement("pea")));
+        assertEquals("testRankSelect: wrong count for pea after remove", 3,
+                myTree.countWithPrefix(new StringRadixTreeElement("pea")));
+    }
+
+    /**
+     * tests ordered queries on the set of distinct elements
+     */
+    @Test
+    public void testKeySet() {
+        String[] words = {"dog", "cat", "car", "dog", "cart", "deer", "ant"};
+        for (String word : words) {
+            myTree.add(new StringRadixTreeElement(word));
+        }
+        NavigableSet<StringRadixTreeElement> keys = myTree.keySet();
+        assertEquals("testKeySet: wrong size", 6, keys.size());
+        assertEquals("testKeySet: wrong first", "ant",
+                keys.first().toString());
+        assertEquals("testKeySet: wrong last", "dog", keys.last().toString());
+        assertEquals("testKeySet: wrong ceiling of cas", "cat",
+                keys.ceiling(new StringRadixTreeElement("cas")).toString());
+        assertEquals("testKeySet: wrong floor of cas", "cart",
+                keys.floor(new StringRadixTreeElement("cas")).toString());
+        assertEquals("testKeySet: wrong higher of car", "cart",
+                keys.higher(new StringRadixTreeElement("car")).toString());
+        assertEquals("testKeySet: wrong lower of car", "ant",
+                keys.lower(new StringRadixTreeElement("car")).toString());
+        String result = "";
+        for (StringRadixTreeElement element : keys.subSet(
+                new StringRadixTreeElement("c"), true,
+                new StringRadixTreeElement("deer"), true)) {
+            result += element + " ";
+        }
+        assertEquals("testKeySet: wrong subSet", "car cart cat deer ",
+                result);
+        result = "";
+        Iterator<StringRadixTreeElement> elements = keys.headSet(
+                new StringRadixTreeElement("cat"), false).descendingIterator();
+        while (elements.hasNext()) {
+            result += elements.next() + " ";
+        }
+        assertEquals("testKeySet: wrong descending headSet", "cart car ant ",
+                result);
+        assertTrue("testKeySet: dog not removed",
+                keys.remove(new StringRadixTreeElement("dog")));
+        assertEquals("testKeySet: every dog not removed from tree", 5,
+                myTree.size());
+    }
+
+    /**
+     * tests nodes whose children move between the sorted arrays and the
+     * direct table, including symbols too large for the table and the
+     * empty child at the root
+     */
+    @Test
+    public void testManyChildren() {
+        List<String> added = new ArrayList<>();
+        addChild(added, "");
+        for (int i = 0; i < 40; i++) {
+            addChild(added, (char) ('!' + i) + "x");
+            addChild(added, "a" + (char) ('!' + i));
+        }
+        //words that occur more than once, each removed together below
+        addChild(added, "");
+        addChild(added, "Hx");
+        addChild(added, "a\"");
+        checkChildren("testManyChildren: grown", added);
+        for (int i = 39; i >= 4; i--) {
+            removeChild(added, (char) ('!' + i) + "x");
+            removeChild(added, "a" + (char) ('!' + i));
+        }
+        checkChildren("testManyChildren: shrunk", added);
+        removeChild(added, "");
+        for (int i = 10; i < 30; i++) {
+            addChild(added, (char) ('!' + i) + "x");
+            addChild(added, "a" + (char) ('!' + i));
+        }
+        checkChildren("testManyChildren: grown again", added);
+        addChild(added, "\u0100x");
+        addChild(added, "a\u0101");
+        addChild(added, "");
+        checkChildren("testManyChildren: large symbol", added);
+        for (int i = 0; i < 10; i++) {
+            addChild(added, (char) ('\u0102' + i) + "x");
+            addChild(added, "a" + (char) ('\u0102' + i));
+        }
+        checkChildren("testManyChildren: large symbols", added);
+        for (int i = 0; i < 10; i++) {
+            removeChild(added, (char) ('\u0102' + i) + "x");
+            removeChild(added, "a" + (char) ('\u0102' + i));
+        }
+        removeChild(added, "\u0100x");
+        removeChild(added, "a\u0101");
+        addChild(added, "~x");
+        addChild(added, "a~");
+        checkChildren("testManyChildren: small symbols again", added);
+    }
+
+    /**
+     * Adds a word to both the tree and the list of words added
+     */
+    private void addChild(List<String> added, String word) {
+        added.add(word);
+        myTree.add(new StringRadixTreeElement(word));
+    }
+
+    /**
+     * Removes every occurrence of a word from the tree and the list
+     */
+    private void removeChild(List<String> added, String word) {
+        added.removeAll(Collections.singleton(word));
+        StringRadixTreeElement element = new StringRadixTreeElement(word);
+        while (myTree.remove(element)) {
+            //removes the remaining occurrences
+        }
+    }
+
+    /**
+     * Checks every query of the tree against the list of words added
+     */
+    private void checkChildren(String test, List<String> added) {
+        assertEquals(test + ": wrong size", added.size(), myTree.size());
+        List<String> sorted = new ArrayList<>(added);
+        Collections.sort(sorted);
+        List<String> iterated = new ArrayList<>();
+        for (StringRadixTreeElement element : myTree) {
+            iterated.add(element.toString());
+        }
+        assertEquals(test + ": wrong order", sorted, iterated);
+        List<String> distinct = new ArrayList<>();
+        Iterator<StringRadixTreeElement> keys =
+                myTree.keySet().descendingIterator();
+        while (keys.hasNext()) {
+            distinct.add(0, keys.next().toString());
+        }
+        assertEquals(test + ": wrong descending keys",
+                new ArrayList<>(new TreeSet<>(added)), distinct);
+        for (int i = 0; i < sorted.size(); i++) {
+            StringRadixTreeElement element =
+                    new StringRadixTreeElement(sorted.get(i));
+            assertEquals(test + ": wrong select " + i, sorted.get(i),
+                    myTree.select(i).toString());
+            assertEquals(test + ": wrong rank of " + sorted.get(i),
+                    sorted.indexOf(sorted.get(i)), myTree.rank(element));
+            List<Integer> locations = new ArrayList<>();
+            for (int j = 0; j < added.size(); j++) {
+                if (added.get(j).equals(sorted.get(i))) {
+                    locations.add(j + 1);
+                }
+            }
+            assertEquals(test + ": wrong locations of " + sorted.get(i),
+                    locations, myTree.findAll(element));
+        }
+        int prefixed = 0;
+        for (String word : added) {
+            if (word.startsWith("a")) {
+                prefixed++;
+            }
+        }
+        assertEquals(test + ": wrong count with prefix a", prefixed,
+                myTree.countWithPrefix(new StringRadixTreeElement("a")));
+    }
+
     /**
      * Adds multiple differing elements to tree
      */
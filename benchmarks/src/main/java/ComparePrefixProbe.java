@@ -0,0 +1,17 @@
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Exposes AbstractRadixTreeElement.comparePrefix to the benchmarks, which
+ * live in a named package and so cannot see the tree classes directly
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class ComparePrefixProbe implements ToIntBiFunction<Object, Object> {
+
+    @Override
+    public int applyAsInt(Object element, Object other) {
+        return ((AbstractRadixTreeElement) element).comparePrefix(
+                (AbstractRadixTreeElement) other);
+    }
+}
@@ -0,0 +1,20 @@
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Exposes AbstractRadixTree.findAll to the benchmarks, which live in a
+ * named package and so cannot see the tree classes directly
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class FindAllProbe
+        implements BiFunction<Object, Object, List<Integer>> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Integer> apply(Object tree, Object element) {
+        return ((AbstractRadixTree<AbstractRadixTreeElement>) tree).findAll(
+                (AbstractRadixTreeElement) element);
+    }
+}
@@ -0,0 +1,18 @@
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Exposes AbstractRadixTree.find to the benchmarks, which live in a named
+ * package and so cannot see the tree classes directly
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+public class FindProbe implements ToIntBiFunction<Object, Object> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int applyAsInt(Object tree, Object element) {
+        return ((AbstractRadixTree<AbstractRadixTreeElement>) tree).find(
+                (AbstractRadixTreeElement) element);
+    }
+}
@@ -0,0 +1,108 @@
+package radixtree.bench;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding the words of a Corpus to a RadixTree that already holds some,
+ * one add per word against RadixTree.addBatch in batches of batchSize
+ *
+ * Each invocation starts from the same BASE words built again, so the
+ * time is for adding WORDS words.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AddBatchBenchmark {
+    private static final int BASE = 200000;
+    private static final int WORDS = 100000;
+
+    @Param({"0.5", "0.9"})
+    private double duplicateRatio;
+
+    @Param({"1000", "10000", "100000"})
+    private int batchSize;
+
+    private List<Object> base;
+    private List<Object> words;
+    private Method addBatch;
+    private Collection<Object> tree;
+
+    /**
+     * generates the words of the tree and the words to add
+     *
+     * @throws IOException if the corpus cannot be read
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ReflectiveOperationException {
+        List<Object> corpus = Corpus.words("zipf", BASE + WORDS, "skewed",
+                0.5, duplicateRatio);
+        base = corpus.subList(0, BASE);
+        words = corpus.subList(BASE, BASE + WORDS);
+        addBatch = Class.forName("RadixTree").getMethod("addBatch",
+                Collection.class);
+    }
+
+    /**
+     * builds the tree the words are added to
+     *
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void buildTree() throws ReflectiveOperationException {
+        tree = (Collection<Object>) Class.forName("RadixTree").getMethod(
+                "build", Collection.class).invoke(null, base);
+    }
+
+    /**
+     * adds each word in turn
+     *
+     * @return Object tree
+     */
+    @Benchmark
+    public Object add() {
+        for (Object word : words) {
+            tree.add(word);
+        }
+        return tree;
+    }
+
+    /**
+     * adds the words in batches
+     *
+     * @return Object tree
+     * @throws ReflectiveOperationException if addBatch cannot be called
+     */
+    @Benchmark
+    public Object addBatch() throws ReflectiveOperationException {
+        for (int i = 0; i < WORDS; i += batchSize) {
+            addBatch.invoke(tree, words.subList(i,
+                    Math.min(WORDS, i + batchSize)));
+        }
+        return tree;
+    }
+}
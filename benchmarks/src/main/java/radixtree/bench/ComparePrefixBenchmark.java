@@ -0,0 +1,98 @@
+package radixtree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a single edge comparison: the old substring-per-position loop
+ * against StringRadixTreeElement.comparePrefix
+ *
+ * Run with -prof gc to see the allocation difference.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComparePrefixBenchmark {
+    @Param({"4", "16", "64"})
+    private int length;
+
+    private String edge;
+    private String key;
+    private Object edgeElement;
+    private Object keyElement;
+    private ToIntBiFunction<Object, Object> probe;
+
+    /**
+     * builds an edge and a key that agree on all but the last symbol
+     *
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length - 1; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        edge = builder.toString() + "x";
+        key = builder.toString() + "y";
+        edgeElement = newElement(edge);
+        keyElement = newElement(key);
+        probe = (ToIntBiFunction<Object, Object>) Class.forName(
+                "ComparePrefixProbe").getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * the comparison as it was written before the mismatch primitive
+     *
+     * @return int end of equal prefix
+     */
+    @Benchmark
+    public int substringLoop() {
+        int result = -1;
+        for (int i = 1; (i <= edge.length()) && (i <= key.length()); i++) {
+            if (edge.substring(0, i).equals(key.substring(0, i))) {
+                result = i;
+            } else {
+                i = edge.length();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * the current comparison
+     *
+     * @return int end of equal prefix
+     */
+    @Benchmark
+    public int comparePrefix() {
+        return probe.applyAsInt(edgeElement, keyElement);
+    }
+
+    private static Object newElement(String data)
+            throws ReflectiveOperationException {
+        return Class.forName("StringRadixTreeElement")
+                .getConstructor(String.class).newInstance(data);
+    }
+}
@@ -0,0 +1,170 @@
+package radixtree.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded word lists for the benchmarks, built locally so every run sees
+ * the same words
+ *
+ * A "zipf" corpus draws its words from a generated dictionary: each word
+ * is there once, and the duplicates are drawn from it by Zipf's law. The
+ * "gettysburg" corpus repeats the words of Gettysburg_Address.txt, split
+ * on whitespace as RunRadixTree does, until there are size of them.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+final class Corpus {
+    /**
+     * seed of every corpus, so runs can be compared
+     */
+    static final long SEED = 42;
+
+    private static final String TEXT = "/Gettysburg_Address.txt";
+    private static final int FIXED_LENGTH = 8;
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 24;
+
+    private Corpus() {
+    }
+
+    /**
+     * makes a corpus of StringRadixTreeElements
+     *
+     * @param corpus "zipf" or "gettysburg"
+     * @param size number of words
+     * @param keyLength "fixed", "uniform" or "skewed" lengths of words in
+     *                  the dictionary
+     * @param prefixRatio share of dictionary words that begin with part of
+     *                    an earlier one
+     * @param duplicateRatio share of words that repeat an earlier one
+     * @return List of elements in corpus order
+     * @throws IOException if Gettysburg_Address.txt cannot be read
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    static List<Object> words(String corpus, int size, String keyLength,
+            double prefixRatio, double duplicateRatio)
+            throws IOException, ReflectiveOperationException {
+        List<String> words;
+        if (corpus.equals("zipf")) {
+            words = zipf(size, keyLength, prefixRatio, duplicateRatio);
+        } else if (corpus.equals("gettysburg")) {
+            words = gettysburg(size);
+        } else {
+            throw new IllegalArgumentException("unknown corpus " + corpus);
+        }
+        Constructor<?> constructor = Class.forName("StringRadixTreeElement")
+                .getConstructor(String.class);
+        List<Object> elements = new ArrayList<>(words.size());
+        for (String word : words) {
+            elements.add(constructor.newInstance(word));
+        }
+        return elements;
+    }
+
+    /**
+     * copies elements into a seeded random order
+     *
+     * @param elements elements to copy
+     * @return Object[] shuffled copy
+     */
+    static Object[] shuffled(List<Object> elements) {
+        List<Object> copy = new ArrayList<>(elements);
+        Collections.shuffle(copy, new Random(SEED));
+        return copy.toArray();
+    }
+
+    private static List<String> zipf(int size, String keyLength,
+            double prefixRatio, double duplicateRatio) {
+        Random random = new Random(SEED);
+        int distinct = Math.max(1,
+                (int) Math.round(size * (1 - duplicateRatio)));
+        List<String> dictionary = new ArrayList<>(distinct);
+        Set<String> seen = new HashSet<>();
+        while (dictionary.size() < distinct) {
+            int length = length(keyLength, random);
+            StringBuilder builder = new StringBuilder(length);
+            if (!dictionary.isEmpty() && random.nextDouble() < prefixRatio) {
+                String other =
+                        dictionary.get(random.nextInt(dictionary.size()));
+                builder.append(other, 0, 1 + random.nextInt(
+                        Math.min(other.length(), length - 1)));
+            }
+            while (builder.length() < length) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            if (seen.add(builder.toString())) {
+                dictionary.add(builder.toString());
+            }
+        }
+        double[] weights = new double[distinct];
+        double total = 0;
+        for (int i = 0; i < distinct; i++) {
+            total += 1.0 / (i + 1);
+            weights[i] = total;
+        }
+        List<String> words = new ArrayList<>(size);
+        words.addAll(dictionary);
+        while (words.size() < size) {
+            int rank = Arrays.binarySearch(weights,
+                    random.nextDouble() * total);
+            rank = Math.min(distinct - 1, rank < 0 ? -rank - 1 : rank);
+            words.add(dictionary.get(rank));
+        }
+        Collections.shuffle(words, random);
+        return words;
+    }
+
+    private static int length(String keyLength, Random random) {
+        if (keyLength.equals("fixed")) {
+            return FIXED_LENGTH;
+        } else if (keyLength.equals("uniform")) {
+            return MIN_LENGTH
+                    + random.nextInt(2 * FIXED_LENGTH - MIN_LENGTH + 1);
+        } else if (keyLength.equals("skewed")) {
+            //mostly short words with a long tail, as in English text
+            int extra = (int) (-Math.log(1 - random.nextDouble()) * 4);
+            return MIN_LENGTH + Math.min(MAX_LENGTH - MIN_LENGTH, extra);
+        } else {
+            throw new IllegalArgumentException("unknown key length "
+                    + keyLength);
+        }
+    }
+
+    private static List<String> gettysburg(int size) throws IOException {
+        List<String> text = new ArrayList<>();
+        InputStream in = Corpus.class.getResourceAsStream(TEXT);
+        if (in == null) {
+            throw new IOException(TEXT + " is not on the class path");
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String word : line.trim().split("\\s+")) {
+                    if (!word.isEmpty()) {
+                        text.add(word);
+                    }
+                }
+            }
+        }
+        List<String> words = new ArrayList<>(size);
+        while (words.size() < size) {
+            words.addAll(text.subList(0,
+                    Math.min(text.size(), size - words.size())));
+        }
+        return words;
+    }
+}
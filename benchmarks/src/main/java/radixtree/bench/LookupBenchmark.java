@@ -0,0 +1,143 @@
+package radixtree.bench;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToIntBiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Queries on a RadixTree built once from a Corpus: find, findAll and
+ * contains of one corpus word per call, and toArray and iteration of the
+ * whole tree
+ *
+ * Words are looked up in a seeded random order, so often used words are
+ * looked up as often as they occur. With -p corpus=gettysburg the three
+ * shape parameters do not apply. Run with -prof gc to see what each
+ * operation allocates.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({"zipf"})
+    private String corpus;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"uniform", "skewed"})
+    private String keyLength;
+
+    @Param({"0.0", "0.5"})
+    private double prefixRatio;
+
+    @Param({"0.0", "0.5"})
+    private double duplicateRatio;
+
+    private Collection<Object> tree;
+    private Object[] queries;
+    private int next;
+    private ToIntBiFunction<Object, Object> find;
+    private BiFunction<Object, Object, List<Integer>> findAll;
+
+    /**
+     * builds the tree and the order of the queries
+     *
+     * @throws IOException if the corpus cannot be read
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException, ReflectiveOperationException {
+        List<Object> words = Corpus.words(corpus, size, keyLength,
+                prefixRatio, duplicateRatio);
+        tree = (Collection<Object>) Class.forName("RadixTree").getMethod(
+                "build", Collection.class).invoke(null, words);
+        queries = Corpus.shuffled(words);
+        next = 0;
+        find = (ToIntBiFunction<Object, Object>) Class.forName("FindProbe")
+                .getDeclaredConstructor().newInstance();
+        findAll = (BiFunction<Object, Object, List<Integer>>) Class
+                .forName("FindAllProbe").getDeclaredConstructor()
+                .newInstance();
+    }
+
+    /**
+     * first location of a word
+     *
+     * @return int location
+     */
+    @Benchmark
+    public int find() {
+        return find.applyAsInt(tree, nextQuery());
+    }
+
+    /**
+     * every location of a word
+     *
+     * @return List of locations
+     */
+    @Benchmark
+    public List<Integer> findAll() {
+        return findAll.apply(tree, nextQuery());
+    }
+
+    /**
+     * whether a word is in the tree
+     *
+     * @return boolean true, as every query is
+     */
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(nextQuery());
+    }
+
+    /**
+     * every occurrence in location order
+     *
+     * @return Object[] of the tree
+     */
+    @Benchmark
+    public Object[] toArray() {
+        return tree.toArray();
+    }
+
+    /**
+     * walks the tree's iterator to the end
+     *
+     * @param blackhole consumes each element
+     */
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Object element : tree) {
+            blackhole.consume(element);
+        }
+    }
+
+    private Object nextQuery() {
+        Object query = queries[next];
+        next = (next + 1 == queries.length) ? 0 : next + 1;
+        return query;
+    }
+}
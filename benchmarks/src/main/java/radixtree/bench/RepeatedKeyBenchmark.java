@@ -0,0 +1,81 @@
+package radixtree.bench;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding one word size times to an empty tree, as natural text does with
+ * its most common words
+ *
+ * Each add of a word that already occurs k times should cost the same
+ * whatever k is, so the time should grow in proportion to size. A tree
+ * that copies the slots of the word on every add grows with size squared.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepeatedKeyBenchmark {
+    @Param({"RadixTree", "ConcurrentRadixTree"})
+    private String implementation;
+
+    @Param({"20000", "80000"})
+    private int size;
+
+    private Object word;
+    private Collection<Object> tree;
+
+    /**
+     * makes the word to repeat
+     *
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Trial)
+    public void setup() throws ReflectiveOperationException {
+        word = Class.forName("StringRadixTreeElement").getConstructor(
+                String.class).newInstance("the");
+    }
+
+    /**
+     * makes an empty tree of the kind measured
+     *
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void emptyTree() throws ReflectiveOperationException {
+        tree = (Collection<Object>) Class.forName(implementation)
+                .getConstructor().newInstance();
+    }
+
+    /**
+     * adds the word size times
+     *
+     * @return Object tree
+     */
+    @Benchmark
+    public Object add() {
+        for (int i = 0; i < size; i++) {
+            tree.add(word);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,109 @@
+package radixtree.bench;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a RadixTree from a Corpus by add, and emptying one by remove
+ *
+ * Each invocation starts from the whole corpus built again, so the time
+ * is for size adds or size removes. The words are removed in a seeded
+ * random order. With -p corpus=gettysburg the three shape parameters do
+ * not apply. Run with -prof gc to see what each operation allocates.
+ *
+ * @author Austin Leal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UpdateBenchmark {
+    @Param({"zipf"})
+    private String corpus;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"uniform", "skewed"})
+    private String keyLength;
+
+    @Param({"0.0", "0.5"})
+    private double prefixRatio;
+
+    @Param({"0.0", "0.5"})
+    private double duplicateRatio;
+
+    private List<Object> words;
+    private Object[] removals;
+    private Collection<Object> tree;
+
+    /**
+     * generates the corpus and the order of removal
+     *
+     * @throws IOException if the corpus cannot be read
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ReflectiveOperationException {
+        words = Corpus.words(corpus, size, keyLength, prefixRatio,
+                duplicateRatio);
+        removals = Corpus.shuffled(words);
+    }
+
+    /**
+     * builds the tree from the corpus
+     *
+     * @throws ReflectiveOperationException if the tree classes are missing
+     */
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void buildTree() throws ReflectiveOperationException {
+        tree = (Collection<Object>) Class.forName("RadixTree").getMethod(
+                "build", Collection.class).invoke(null, words);
+    }
+
+    /**
+     * empties the tree and adds the corpus to it word by word
+     *
+     * @return Object tree
+     */
+    @Benchmark
+    public Object add() {
+        tree.clear();
+        for (Object word : words) {
+            tree.add(word);
+        }
+        return tree;
+    }
+
+    /**
+     * removes every word of the corpus
+     *
+     * @return Object tree, now empty
+     */
+    @Benchmark
+    public Object remove() {
+        for (Object word : removals) {
+            tree.remove(word);
+        }
+        return tree;
+    }
+}